@@ -62,6 +62,7 @@ export interface Paginated<T> {
   total: number;
   page: number;
   size: number;
+  nextCursor?: string | null;
 }
 
 const api = axios.create({
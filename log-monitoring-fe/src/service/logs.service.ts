@@ -11,11 +11,13 @@ export interface LogSearchRequest {
   from?: string;
   to?: string;
   message?: string;
-  messageMode?: "contains" | "exact" | "prefix";
+  messageMode?: "contains" | "exact" | "prefix" | "match";
   sortBy?: string;
   sortDir?: "ASC" | "DESC";
   page?: number;
   size?: number;
+  cursor?: string; // nextCursor of the previous page
+  scroll?: boolean; // start a cursor scroll; the response then carries nextCursor
 }
 
 export interface PageResponse<T> {
@@ -26,6 +28,7 @@ export interface PageResponse<T> {
   size: number;
   first: boolean;
   last: boolean;
+  nextCursor?: string | null;
 }
 
 class LogsService {
@@ -0,0 +1,53 @@
+package com.logs.bench;
+
+import com.logs.dto.LogRequest;
+import com.logs.enums.Environment;
+import com.logs.enums.LogLevel;
+import com.logs.ingest.MessageFingerprint;
+import com.logs.model.LogEvent;
+
+import java.time.Instant;
+
+/** Representative payloads shared by the benchmarks. */
+public final class SampleLogs {
+
+    public static final String TIMESTAMP = "2026-01-20T10:15:30.123Z";
+
+    public static final String MESSAGE = "Payment 48213 failed for order 'A-77f1' after 3 retries: "
+            + "upstream 10.2.3.4 returned 503 (trace 9b2e6c1a-3f4d-4e8a-9c1b-2d7f8e6a5b4c)";
+
+    public static final String STACK = "java.lang.IllegalStateException: upstream unavailable\n"
+            + "\tat com.shop.payment.Gateway.charge(Gateway.java:118)\n"
+            + "\tat com.shop.payment.PaymentService.pay(PaymentService.java:64)";
+
+    private SampleLogs() {
+    }
+
+    public static LogRequest request() {
+        return LogRequest.builder()
+                .serviceName("payment-service")
+                .level(LogLevel.ERROR)
+                .message(MESSAGE)
+                .timestamp(TIMESTAMP)
+                .traceId("9b2e6c1a3f4d")
+                .build();
+    }
+
+    /** A fully populated event, as it leaves the ingest path. */
+    public static LogEvent event() {
+        LogEvent event = LogEvent.builder()
+                .id("5c0e2f0e-6a1b-4b61-9d7e-0f3a1c2b4d5e")
+                .serviceName("payment-service")
+                .env(Environment.PROD)
+                .tenant("default")
+                .level(LogLevel.ERROR)
+                .message(MESSAGE)
+                .traceId("9b2e6c1a3f4d")
+                .latencyMs(1834)
+                .stack(STACK)
+                .timestamp(Instant.parse(TIMESTAMP))
+                .build();
+        MessageFingerprint.fill(event);
+        return event;
+    }
+}
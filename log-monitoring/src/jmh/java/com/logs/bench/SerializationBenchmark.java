@@ -0,0 +1,72 @@
+package com.logs.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.config.RedisConfig;
+import com.logs.kafka.LogEventDeserializer;
+import com.logs.kafka.LogEventSerializer;
+import com.logs.metrics.RemoteCallMetrics;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka payloads ({@link com.logs.kafka.LogEventCodec}) versus the Redis JSON values of the
+ * recent-logs windows. The Redis serializer is taken from the template built by {@link RedisConfig};
+ * its connection factory is never started.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final LogEventSerializer kafkaSerializer = new LogEventSerializer();
+    private final LogEventDeserializer kafkaDeserializer = new LogEventDeserializer();
+    private ObjectMapper objectMapper;
+    private RedisSerializer<Object> redisSerializer;
+
+    private LogEvent event;
+    private byte[] kafkaPayload;
+    private byte[] redisPayload;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        objectMapper = new Jackson2ObjectMapperBuilder().build();
+        redisSerializer = (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(new LettuceConnectionFactory(), objectMapper, new RemoteCallMetrics(new SimpleMeterRegistry()))
+                .getValueSerializer();
+
+        event = SampleLogs.event();
+        kafkaPayload = kafkaSerializer.serialize("log-events", event);
+        redisPayload = redisSerializer.serialize(event);
+    }
+
+    @Benchmark
+    public byte[] kafkaEncode() {
+        return kafkaSerializer.serialize("log-events", event);
+    }
+
+    @Benchmark
+    public LogEvent kafkaDecode() {
+        return kafkaDeserializer.deserialize("log-events", kafkaPayload);
+    }
+
+    @Benchmark
+    public byte[] redisJsonEncode() {
+        return redisSerializer.serialize(event);
+    }
+
+    /** Read back as CacheRepository does: untyped JSON, then converted to a LogEvent. */
+    @Benchmark
+    public LogEvent redisJsonDecode() {
+        return objectMapper.convertValue(redisSerializer.deserialize(redisPayload), LogEvent.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.logs.service;
+
+import com.logs.bench.SampleLogs;
+import com.logs.dto.LogRequest;
+import com.logs.ingest.MessageFingerprint;
+import com.logs.model.LogEvent;
+import com.logs.util.DateUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/** Per-log work on the HTTP ingest thread, before the event is handed to the pipeline. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestBenchmark {
+
+    private LogRequest request;
+
+    @Setup
+    public void setup() {
+        request = SampleLogs.request();
+    }
+
+    /** LogRequest to LogEvent: id, timestamp parse and message fingerprint. */
+    @Benchmark
+    public LogEvent toEvent() {
+        return LogService.toEvent(request);
+    }
+
+    @Benchmark
+    public Instant parseIsoInstant() {
+        return DateUtils.parseIsoInstant(SampleLogs.TIMESTAMP);
+    }
+
+    @Benchmark
+    public String fingerprintTemplate() {
+        return MessageFingerprint.template(SampleLogs.MESSAGE);
+    }
+}
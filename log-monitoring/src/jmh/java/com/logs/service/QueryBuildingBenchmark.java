@@ -0,0 +1,70 @@
+package com.logs.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.logs.dto.TimeRangeFilter;
+import com.logs.enums.LogLevel;
+import com.logs.search.MessageQueries;
+import jakarta.json.stream.JsonGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the ES queries of /api/errors and /api/logs/search. The "Json" variants also write
+ * the query body the way the ES client does before sending it, into a reused in-memory buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildingBenchmark {
+
+    private final JacksonJsonpMapper jsonpMapper = new JacksonJsonpMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private TimeRangeFilter filter;
+
+    @Setup
+    public void setup() {
+        filter = TimeRangeFilter.builder()
+                .from(Instant.parse("2026-01-20T00:00:00Z"))
+                .to(Instant.parse("2026-01-20T12:00:00Z"))
+                .serviceName("payment-service")
+                .level(LogLevel.ERROR)
+                .env("PROD")
+                .build();
+    }
+
+    @Benchmark
+    public Query errorFilter() {
+        return ErrorService.buildFilter(filter);
+    }
+
+    @Benchmark
+    public int errorFilterJson() {
+        return write(ErrorService.buildFilter(filter));
+    }
+
+    @Benchmark
+    public Query messageContains() {
+        return MessageQueries.forMode("contains", "upstream returned 503", Set.of());
+    }
+
+    @Benchmark
+    public int messageContainsJson() {
+        return write(MessageQueries.forMode("contains", "upstream returned 503", Set.of()));
+    }
+
+    private int write(Query query) {
+        out.reset();
+        try (JsonGenerator g = jsonpMapper.jsonProvider().createGenerator(out)) {
+            query.serialize(g, jsonpMapper);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.logs.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.dto.LogRequest;
+import com.logs.enums.LogLevel;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop ingest load against a running instance: requests are scheduled at a fixed rate and
+ * sent whether or not earlier ones have completed (up to {@code max-in-flight}).
+ * <p>
+ * Latency is measured from each request's <em>intended</em> send time, so a stalled server is
+ * charged for the requests it held back (coordinated omission); the plain service time from the
+ * actual send is recorded alongside. Both go to HdrHistograms; the run writes a per-second
+ * histogram log ({@code .hlog}), a percentile distribution ({@code .hgrm}) and a JSON summary.
+ */
+public class IngestLoadGenerator {
+
+    private static final int BODY_POOL = 1024;
+    private static final String[] TEMPLATES = {
+            "GET /api/orders/%d completed in %d ms",
+            "Payment %d declined by issuer (code %d)",
+            "Cache miss for sku-%d, loaded in %d ms",
+            "Retrying call to inventory-service, attempt %d of %d",
+            "Connection pool exhausted: %d active, %d waiting",
+    };
+
+    private final LoadOptions opt;
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient client;
+    private final Recorder latency = new Recorder(3);
+    private final Recorder serviceTime = new Recorder(3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    IngestLoadGenerator(LoadOptions opt) {
+        this.opt = opt;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions opt = LoadOptions.parse(args);
+        if (!opt.compare().isEmpty()) {
+            List<LoadReport> runs = new ArrayList<>();
+            for (Path file : opt.compare()) runs.add(LoadReport.read(file));
+            LoadReport.compare(runs, System.out);
+            return;
+        }
+        LoadReport report = new IngestLoadGenerator(opt).run();
+        report.print(System.out);
+        System.exit(0);
+    }
+
+    LoadReport run() throws Exception {
+        Files.createDirectories(opt.outDir());
+        List<byte[]> bodies = bodies();
+        URI endpoint = URI.create(opt.endpoint());
+        Semaphore inFlight = new Semaphore(opt.maxInFlight());
+
+        Histogram totalLatency = new Histogram(3);
+        Histogram totalService = new Histogram(3);
+        String startedAt = Instant.now().toString();
+        PrintStream hlog = new PrintStream(new FileOutputStream(opt.outDir().resolve(opt.label() + ".hlog").toFile()));
+        HistogramLogWriter logWriter = new HistogramLogWriter(hlog);
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(System.currentTimeMillis());
+        logWriter.outputLegend();
+
+        long intervalNanos = 1_000_000_000L / Math.max(opt.rate(), 1);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(opt.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(opt.durationSeconds());
+
+        // per-second snapshots: progress line, histogram log, and the running totals
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        ticker.scheduleAtFixedRate(() -> {
+            Histogram l = latency.getIntervalHistogram();
+            Histogram s = serviceTime.getIntervalHistogram();
+            if (l.getTotalCount() == 0) return;
+            totalLatency.add(l);
+            totalService.add(s);
+            logWriter.outputIntervalHistogram(l);
+            System.out.printf("%,8d req/s  p50=%.2fms  p99=%.2fms  max=%.2fms  in-flight=%d%n",
+                    l.getTotalCount(), l.getValueAtPercentile(50) / 1e6, l.getValueAtPercentile(99) / 1e6,
+                    l.getMaxValue() / 1e6, opt.maxInFlight() - inFlight.availablePermits());
+        }, 1, 1, TimeUnit.SECONDS);
+
+        long sent = 0;
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) break;
+            long now;
+            while ((now = System.nanoTime()) < intended) LockSupport.parkNanos(intended - now);
+            // a full window delays the send; that delay is part of the measured latency
+            inFlight.acquire();
+            boolean measured = intended >= measureFrom;
+            if (measured) sent++;
+            long sendAt = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get((int) (i % bodies.size()))))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((resp, err) -> {
+                long done = System.nanoTime();
+                inFlight.release();
+                if (!measured) return;
+                latency.recordValue(done - intended);
+                serviceTime.recordValue(done - sendAt);
+                if (err != null) failed.increment();
+                else if (resp.statusCode() >= 300) rejected.increment();
+                else ok.increment();
+            });
+        }
+        long elapsed = System.nanoTime() - measureFrom;
+        inFlight.tryAcquire(opt.maxInFlight(), 60, TimeUnit.SECONDS);
+        ticker.shutdown();
+        ticker.awaitTermination(5, TimeUnit.SECONDS);
+        totalLatency.add(latency.getIntervalHistogram());
+        totalService.add(serviceTime.getIntervalHistogram());
+        hlog.close();
+
+        try (PrintStream hgrm = new PrintStream(new FileOutputStream(opt.outDir().resolve(opt.label() + ".hgrm").toFile()))) {
+            totalLatency.outputPercentileDistribution(hgrm, 1e6);
+        }
+        LoadReport report = new LoadReport(opt.label(), startedAt, opt.endpoint(), opt.rate(),
+                sent * 1e9 / elapsed, opt.durationSeconds(), opt.batchSize(), sent,
+                ok.sum(), rejected.sum(), failed.sum(),
+                LoadReport.percentiles(totalLatency), LoadReport.percentiles(totalService));
+        report.write(opt.outDir().resolve(opt.label() + ".json"));
+        return report;
+    }
+
+    /** A pool of request bodies following the service/level mix, built up front to keep the send loop cheap. */
+    private List<byte[]> bodies() throws IOException {
+        WeightedMix<String> services = WeightedMix.parse(opt.services(), s -> s);
+        WeightedMix<LogLevel> levels = WeightedMix.parse(opt.levels(), LogLevel::valueOf);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<byte[]> bodies = new ArrayList<>(BODY_POOL);
+        for (int b = 0; b < BODY_POOL; b++) {
+            List<LogRequest> batch = new ArrayList<>(opt.batchSize());
+            for (int i = 0; i < Math.max(opt.batchSize(), 1); i++) {
+                batch.add(LogRequest.builder()
+                        .serviceName(services.pick(random))
+                        .level(levels.pick(random))
+                        .message(String.format(TEMPLATES[random.nextInt(TEMPLATES.length)],
+                                random.nextInt(100_000), random.nextInt(1_000)))
+                        .traceId(Long.toHexString(random.nextLong()))
+                        .build());
+            }
+            bodies.add(opt.batchSize() > 1 ? json.writeValueAsBytes(batch) : json.writeValueAsBytes(batch.get(0)));
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,54 @@
+package com.logs.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of {@link IngestLoadGenerator}, as {@code name=value} pairs.
+ * {@code compare=a.json,b.json,...} prints a comparison of earlier runs instead of generating load.
+ */
+record LoadOptions(String url,
+                   int rate,
+                   int durationSeconds,
+                   int warmupSeconds,
+                   int batchSize,
+                   int maxInFlight,
+                   String services,
+                   String levels,
+                   String label,
+                   Path outDir,
+                   List<Path> compare) {
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected name=value, got: " + arg);
+            opts.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        List<Path> compare = new ArrayList<>();
+        for (String file : opts.getOrDefault("compare", "").split(",")) {
+            if (!file.isBlank()) compare.add(Path.of(file.trim()));
+        }
+        return new LoadOptions(
+                opts.getOrDefault("url", "http://localhost:8081"),
+                Integer.parseInt(opts.getOrDefault("rate", "1000")),
+                Integer.parseInt(opts.getOrDefault("duration", "60")),
+                Integer.parseInt(opts.getOrDefault("warmup", "10")),
+                Integer.parseInt(opts.getOrDefault("batch", "1")),
+                Integer.parseInt(opts.getOrDefault("max-in-flight", "256")),
+                opts.getOrDefault("services", "order-service:5,payment-service:3,inventory-service:2"),
+                opts.getOrDefault("levels", "INFO:80,WARN:14,ERROR:5,DEBUG:1"),
+                opts.getOrDefault("label", "run-" + System.currentTimeMillis()),
+                Path.of(opts.getOrDefault("out", "target/loadtest")),
+                compare);
+    }
+
+    /** POST /api/logs for single logs, /api/logs/batch otherwise. */
+    String endpoint() {
+        return url + (batchSize > 1 ? "/api/logs/batch" : "/api/logs");
+    }
+}
@@ -0,0 +1,92 @@
+package com.logs.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summary of one load run, written as JSON next to its histogram log so runs of different builds
+ * can be compared with {@code --compare}. Latencies are in milliseconds.
+ */
+record LoadReport(String label,
+                  String startedAt,
+                  String endpoint,
+                  int targetRate,
+                  double achievedRate,
+                  int durationSeconds,
+                  int batchSize,
+                  long requests,
+                  long ok,
+                  long rejected,
+                  long failed,
+                  Map<String, Double> latencyMs,
+                  Map<String, Double> serviceTimeMs) {
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /** Percentiles of a nanosecond histogram, in milliseconds. */
+    static Map<String, Double> percentiles(Histogram h) {
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (double p : PERCENTILES) {
+            out.put("p" + (p == Math.rint(p) ? String.valueOf((int) p) : String.valueOf(p)), h.getValueAtPercentile(p) / 1e6);
+        }
+        out.put("max", h.getMaxValue() / 1e6);
+        out.put("mean", h.getMean() / 1e6);
+        return out;
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        JSON.writeValue(file.toFile(), this);
+    }
+
+    static LoadReport read(Path file) throws IOException {
+        return JSON.readValue(file.toFile(), LoadReport.class);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%s: %d requests at %.0f/s (target %d/s), ok=%d rejected=%d failed=%d%n",
+                label, requests, achievedRate, targetRate, ok, rejected, failed);
+        out.println("  latency (from intended send time): " + latencyMs);
+        out.println("  service time (from actual send):   " + serviceTimeMs);
+    }
+
+    /** One row per metric, one column per run, plus the change of the last run against the first. */
+    static void compare(List<LoadReport> runs, PrintStream out) {
+        List<String> metrics = new ArrayList<>(List.of("achievedRate", "errorRate"));
+        runs.get(0).latencyMs().keySet().forEach(k -> metrics.add("latency." + k));
+        runs.get(0).serviceTimeMs().keySet().forEach(k -> metrics.add("service." + k));
+
+        out.printf("%-18s", "metric");
+        for (LoadReport r : runs) out.printf("%16s", r.label());
+        if (runs.size() > 1) out.printf("%10s", "change");
+        out.println();
+        for (String m : metrics) {
+            out.printf("%-18s", m);
+            for (LoadReport r : runs) out.printf("%16.3f", r.metric(m));
+            if (runs.size() > 1) {
+                double first = runs.get(0).metric(m);
+                double last = runs.get(runs.size() - 1).metric(m);
+                out.printf("%9.1f%%", first == 0 ? 0 : (last - first) * 100 / first);
+            }
+            out.println();
+        }
+    }
+
+    private double metric(String name) {
+        if (name.equals("achievedRate")) return achievedRate;
+        if (name.equals("errorRate")) return requests == 0 ? 0 : (double) (rejected + failed) / requests;
+        if (name.startsWith("latency.")) return latencyMs.getOrDefault(name.substring(8), 0.0);
+        return serviceTimeMs.getOrDefault(name.substring(8), 0.0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.logs.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/** Values picked in proportion to their weights, parsed from {@code "a:5,b:1"}. */
+final class WeightedMix<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final List<Integer> cumulative = new ArrayList<>();
+    private int total;
+
+    static <T> WeightedMix<T> parse(String spec, Function<String, T> parser) {
+        WeightedMix<T> mix = new WeightedMix<>();
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) continue;
+            String[] kv = part.trim().split(":");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (weight <= 0) continue;
+            mix.total += weight;
+            mix.values.add(parser.apply(kv[0].trim()));
+            mix.cumulative.add(mix.total);
+        }
+        if (mix.values.isEmpty()) throw new IllegalArgumentException("empty mix: " + spec);
+        return mix;
+    }
+
+    T pick(SplittableRandom random) {
+        int r = random.nextInt(total);
+        for (int i = 0; i < values.size(); i++) {
+            if (r < cumulative.get(i)) return values.get(i);
+        }
+        return values.get(values.size() - 1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.logs.alerting;
+
+import com.logs.service.AlertService;
+import com.logs.service.ServiceRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs one alert evaluation per service on a bounded pool, so a slow service only holds up
+ * its own worker. Each evaluation is cancelled {@code logs.alerts.eval-timeout-ms} after it
+ * starts (time spent queued behind other services does not count against it), and a
+ * service still being evaluated from the previous run is skipped rather than queued twice.
+ * Services are those active within the registry's horizon plus any service with an OPEN alert,
+ * so an alert of a service that went quiet still gets resolved. While a "too few logs" rule
+ * (LT/LTE) is enabled, every registered service is evaluated instead, since going quiet is
+ * exactly what such a rule is there to catch.
+ * With several instances, each one evaluates only the services it owns on the hash ring.
+ * <p>
+ * Metrics: {@code alerts.evaluation.run} (tick until the last evaluation finished),
+ * {@code alerts.evaluation.service} (one evaluation, tagged by outcome), {@code alerts.evaluation.lag} (queue wait
+ * before an evaluation starts), plus timeout/failure/skip counters and the owned-service gauge.
+ */
+@Slf4j
+@Component
+public class AlertEvaluationEngine {
+
+    private final ServiceRegistry serviceRegistry;
+    private final AlertService alertService;
+    private final ClusterMembership membership;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService watchdog;
+    private final long evalTimeoutMs;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Timer runTimer;
+    private final Timer serviceTimer;
+    private final Timer serviceFailedTimer;
+    private final Timer lagTimer;
+    private final Counter timeouts;
+    private final Counter failures;
+    private final Counter skipped;
+    private final AtomicLong ownedServices = new AtomicLong();
+
+    public AlertEvaluationEngine(ServiceRegistry serviceRegistry,
+                                 AlertService alertService,
+                                 ClusterMembership membership,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${logs.alerts.eval-threads:8}") int threads,
+                                 @Value("${logs.alerts.eval-queue-capacity:1000}") int queueCapacity,
+                                 @Value("${logs.alerts.eval-timeout-ms:15000}") long evalTimeoutMs) {
+        this.serviceRegistry = serviceRegistry;
+        this.alertService = alertService;
+        this.membership = membership;
+        this.evalTimeoutMs = evalTimeoutMs;
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), daemon("alert-eval"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(daemon("alert-eval-watchdog"));
+
+        this.runTimer = Timer.builder("alerts.evaluation.run").register(meterRegistry);
+        this.serviceTimer = Timer.builder("alerts.evaluation.service").tag("outcome", "success").register(meterRegistry);
+        this.serviceFailedTimer = Timer.builder("alerts.evaluation.service").tag("outcome", "error").register(meterRegistry);
+        this.lagTimer = Timer.builder("alerts.evaluation.lag").register(meterRegistry);
+        this.timeouts = Counter.builder("alerts.evaluation.timeouts").register(meterRegistry);
+        this.failures = Counter.builder("alerts.evaluation.failures").register(meterRegistry);
+        this.skipped = Counter.builder("alerts.evaluation.skipped").register(meterRegistry);
+        Gauge.builder("alerts.evaluation.services", ownedServices, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        watchdog.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** Fan out one evaluation per owned service. Returns without waiting for them. */
+    public void runOnce() {
+        long tick = System.nanoTime();
+        List<String> owned = servicesToEvaluate().stream()
+                .filter(membership::owns)
+                .toList();
+        ownedServices.set(owned.size());
+        if (owned.isEmpty()) return;
+
+        AtomicInteger remaining = new AtomicInteger(owned.size());
+        Runnable done = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                runTimer.record(System.nanoTime() - tick, TimeUnit.NANOSECONDS);
+            }
+        };
+        for (String svc : owned) {
+            if (!inFlight.add(svc)) {
+                skipped.increment();
+                log.warn("Previous alert evaluation for {} is still running, skipping", svc);
+                done.run();
+                continue;
+            }
+            CompletableFuture<Future<?>> self = new CompletableFuture<>();
+            try {
+                self.complete(workers.submit(() -> evaluate(svc, tick, self, done)));
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(svc);
+                skipped.increment();
+                done.run();
+            }
+        }
+    }
+
+    private Set<String> servicesToEvaluate() {
+        Set<String> services = new TreeSet<>(alertService.watchesForSilence()
+                ? serviceRegistry.knownServices()
+                : serviceRegistry.activeServices());
+        services.addAll(alertService.servicesWithOpenAlerts());
+        return services;
+    }
+
+    private void evaluate(String svc, long submittedAt, CompletableFuture<Future<?>> self, Runnable done) {
+        long start = System.nanoTime();
+        lagTimer.record(start - submittedAt, TimeUnit.NANOSECONDS);
+        // the deadline starts now, so a long queue does not eat into this service's budget
+        ScheduledFuture<?> deadline = watchdog.schedule(() -> {
+            if (self.join().cancel(true)) {
+                timeouts.increment();
+                log.warn("Alert evaluation for {} timed out after {} ms", svc, evalTimeoutMs);
+            }
+        }, evalTimeoutMs, TimeUnit.MILLISECONDS);
+        Timer outcome = serviceTimer;
+        try {
+            alertService.evaluateForService(svc);
+        } catch (Exception e) {
+            outcome = serviceFailedTimer;
+            failures.increment();
+            log.error("Alert evaluation failed for {}", svc, e);
+        } finally {
+            deadline.cancel(false);
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.remove(svc);
+            done.run();
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        return new ThreadFactory() {
+            private int n;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + "-" + (n++));
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.logs.alerting;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tracks the live instances of this application through heartbeats in a Redis sorted set
+ * (member = instance id, score = last heartbeat). Alert evaluation is sharded over these
+ * instances; if Redis is unreachable an instance assumes it is alone and evaluates everything.
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+
+    static final String INSTANCES_KEY = "alerting:instances";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    @Getter
+    private final String instanceId;
+    private final long instanceTtlMs;
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(RedisTemplate<String, Object> redisTemplate,
+                             @Value("${logs.cluster.instance-id:}") String instanceId,
+                             @Value("${logs.cluster.instance-ttl-ms:30000}") long instanceTtlMs,
+                             @Value("${logs.cluster.virtual-nodes:128}") int virtualNodes) {
+        this.redisTemplate = redisTemplate;
+        this.instanceId = instanceId == null || instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.instanceTtlMs = instanceTtlMs;
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(Set.of(this.instanceId), virtualNodes);
+    }
+
+    @Scheduled(fixedDelayString = "${logs.cluster.heartbeat-ms:10000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        Set<String> live = new HashSet<>();
+        live.add(instanceId);
+        try {
+            redisTemplate.opsForZSet().add(INSTANCES_KEY, instanceId, now);
+            redisTemplate.opsForZSet().removeRangeByScore(INSTANCES_KEY, 0, now - instanceTtlMs);
+            Set<Object> members = redisTemplate.opsForZSet()
+                    .rangeByScore(INSTANCES_KEY, now - instanceTtlMs, Double.POSITIVE_INFINITY);
+            if (members != null) members.forEach(m -> live.add((String) m));
+        } catch (RuntimeException e) {
+            log.warn("Cluster heartbeat failed, evaluating all services locally: {}", e.getMessage());
+        }
+        if (!live.equals(ring.nodes())) {
+            log.info("Alert evaluation shards over {} instance(s)", live.size());
+            ring = new ConsistentHashRing(live, virtualNodes);
+        }
+    }
+
+    /** Whether this instance is responsible for {@code serviceName}. */
+    public boolean owns(String serviceName) {
+        return instanceId.equals(ring.owner(serviceName));
+    }
+
+    public int liveInstances() {
+        return ring.nodes().size();
+    }
+}
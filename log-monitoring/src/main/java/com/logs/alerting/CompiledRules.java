@@ -0,0 +1,40 @@
+package com.logs.alerting;
+
+import com.logs.model.AlertRule;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Enabled, valid rules grouped by window. Evaluation fetches one {@link WindowStats} per group,
+ * so the number of stats lookups per service grows with distinct windows, not with rules.
+ */
+public record CompiledRules(List<WindowGroup> groups) {
+
+    public record WindowGroup(Duration window, List<AlertRule> rules) {
+    }
+
+    public static CompiledRules compile(Collection<AlertRule> rules) {
+        Map<Integer, List<AlertRule>> byWindow = new TreeMap<>();
+        for (AlertRule r : rules) {
+            if (!r.isEnabled() || !isValid(r)) continue;
+            byWindow.computeIfAbsent(r.getWindowMinutes(), w -> new ArrayList<>()).add(r);
+        }
+        List<WindowGroup> groups = new ArrayList<>(byWindow.size());
+        byWindow.forEach((minutes, rs) -> groups.add(new WindowGroup(Duration.ofMinutes(minutes), List.copyOf(rs))));
+        return new CompiledRules(List.copyOf(groups));
+    }
+
+    public static boolean isValid(AlertRule r) {
+        return r.getId() != null && !r.getId().isBlank()
+                && r.getMetric() != null
+                && r.getOperator() != null
+                && r.getThreshold() != null
+                && r.getSeverity() != null
+                && r.getWindowMinutes() != null && r.getWindowMinutes() > 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.logs.alerting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring. Each node is placed at {@code virtualNodes} points so keys
+ * spread evenly, and adding or removing a node only moves the keys next to its points.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Set.copyOf(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < Math.max(virtualNodes, 1); i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /** Node owning {@code key}, or null when the ring is empty. */
+    public String owner(String key) {
+        if (ring.isEmpty()) return null;
+        Map.Entry<Long, String> e = ring.ceilingEntry(hash(key));
+        return (e != null ? e : ring.firstEntry()).getValue();
+    }
+
+    /** 64-bit FNV-1a with a final avalanche mix; stable across JVMs, unlike String.hashCode. */
+    static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
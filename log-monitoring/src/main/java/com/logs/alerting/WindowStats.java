@@ -0,0 +1,27 @@
+package com.logs.alerting;
+
+import com.logs.enums.AlertMetric;
+import com.logs.enums.LogLevel;
+
+import java.util.Map;
+
+/** Per-level log counts of one service over one window; every rule metric derives from these. */
+public record WindowStats(Map<LogLevel, Long> countsByLevel) {
+
+    public long count(LogLevel level) {
+        return countsByLevel.getOrDefault(level, 0L);
+    }
+
+    public long total() {
+        return countsByLevel.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double value(AlertMetric metric) {
+        return switch (metric) {
+            case LOG_COUNT -> total();
+            case ERROR_COUNT -> count(LogLevel.ERROR);
+            case WARN_COUNT -> count(LogLevel.WARN);
+            case ERROR_RATE_PERCENT -> total() == 0 ? 0 : 100.0 * count(LogLevel.ERROR) / total();
+        };
+    }
+}
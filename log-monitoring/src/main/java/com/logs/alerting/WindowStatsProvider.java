@@ -0,0 +1,76 @@
+package com.logs.alerting;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.logs.enums.LogLevel;
+import com.logs.metrics.LogCounterService;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Window stats for one service: from the in-memory counters when they cover the window,
+ * otherwise from a single ES search with a terms aggregation on level.
+ * <p>
+ * The counters only see logs ingested by this instance, so they are used only while it is the
+ * only live instance; once several share the ingest traffic, every service is counted in ES.
+ */
+@Component
+@RequiredArgsConstructor
+public class WindowStatsProvider {
+
+    private final LogCounterService logCounterService;
+    private final ElasticsearchOperations esOps;
+    private final LogIndexManager logIndices;
+    private final ClusterMembership membership;
+
+    public WindowStats statsFor(String serviceName, Duration window) {
+        if (membership.liveInstances() > 1) return fromIndex(serviceName, window);
+        Map<LogLevel, Long> counts = new EnumMap<>(LogLevel.class);
+        for (LogLevel level : LogLevel.values()) {
+            OptionalLong c = logCounterService.count(serviceName, level, window);
+            if (c.isEmpty()) return fromIndex(serviceName, window);
+            counts.put(level, c.getAsLong());
+        }
+        return new WindowStats(counts);
+    }
+
+    private WindowStats fromIndex(String serviceName, Duration window) {
+        Instant since = Instant.now().minus(window);
+        NativeQuery nq = new NativeQueryBuilder()
+                .withQuery(Query.of(q -> q.bool(b -> b
+                        .filter(f -> f.term(t -> t.field("serviceName").value(serviceName)))
+                        .filter(f -> f.range(r -> r.field("timestamp").gte(JsonData.of(since.toString())))))))
+                .withAggregation("by_level", Aggregation.of(a -> a.terms(t -> t.field("level").size(10))))
+                .withMaxResults(0)
+                .build();
+        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class, logIndices.searchIndex(since, null));
+
+        Map<LogLevel, Long> counts = new EnumMap<>(LogLevel.class);
+        ElasticsearchAggregations aggs = (ElasticsearchAggregations) hits.getAggregations();
+        if (aggs != null && aggs.get("by_level") != null) {
+            for (StringTermsBucket b : aggs.get("by_level").aggregation().getAggregate().sterms().buckets().array()) {
+                try {
+                    counts.put(LogLevel.valueOf(b.key().stringValue()), b.docCount());
+                } catch (IllegalArgumentException ignore) {
+                    // unknown level in the index
+                }
+            }
+        }
+        return new WindowStats(counts);
+    }
+}
@@ -0,0 +1,72 @@
+package com.logs.cache;
+
+import com.logs.dto.TimeRangeFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Cache keys for dashboard queries. A {@link TimeRangeFilter} is snapped outward to
+ * {@code logs.query-cache.snap-seconds} boundaries, so "last 24h" requests issued a few seconds
+ * apart produce the same key. Services must query with {@link #normalize} so the cached result
+ * matches its key.
+ */
+@Component("queryKeyGenerator")
+public class QueryKeyGenerator implements KeyGenerator {
+
+    private final long snapSeconds;
+
+    public QueryKeyGenerator(@Value("${logs.query-cache.snap-seconds:60}") long snapSeconds) {
+        this.snapSeconds = Math.max(snapSeconds, 1);
+    }
+
+    /** Copy of {@code f} with from floored and to ceiled to the snap step; blank strings become null. */
+    public TimeRangeFilter normalize(TimeRangeFilter f) {
+        if (f == null) return new TimeRangeFilter();
+        return TimeRangeFilter.builder()
+                .from(f.getFrom() == null ? null : floor(f.getFrom()))
+                .to(f.getTo() == null ? null : ceil(f.getTo()))
+                .serviceName(blankToNull(f.getServiceName()))
+                .level(f.getLevel())
+                .env(blankToNull(f.getEnv()))
+                .build();
+    }
+
+    @Override
+    public String generate(Object target, Method method, Object... params) {
+        StringJoiner key = new StringJoiner("|");
+        for (Object p : params) {
+            if (p instanceof TimeRangeFilter f) {
+                TimeRangeFilter n = normalize(f);
+                key.add("from=" + (n.getFrom() == null ? "" : n.getFrom().getEpochSecond()))
+                        .add("to=" + (n.getTo() == null ? "" : n.getTo().getEpochSecond()))
+                        .add("svc=" + (n.getServiceName() == null ? "" : n.getServiceName()))
+                        .add("lvl=" + (n.getLevel() == null ? "" : n.getLevel().name()))
+                        .add("env=" + (n.getEnv() == null ? "" : n.getEnv()));
+            } else if (p == null) {
+                key.add("");
+            } else {
+                key.add(p.toString().toLowerCase(Locale.ROOT));
+            }
+        }
+        return key.toString();
+    }
+
+    private Instant floor(Instant t) {
+        return Instant.ofEpochSecond(Math.floorDiv(t.getEpochSecond(), snapSeconds) * snapSeconds);
+    }
+
+    private Instant ceil(Instant t) {
+        long s = t.getEpochSecond() + (t.getNano() > 0 ? 1 : 0);
+        return Instant.ofEpochSecond(-Math.floorDiv(-s, snapSeconds) * snapSeconds);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
@@ -0,0 +1,62 @@
+package com.logs.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Tiny TTL cache with single-flight loading: concurrent callers for the same key share one
+ * in-flight load, and the result is reused for {@code ttl} after the load finished. Failed loads
+ * (whatever the loader throws) are not cached: waiters see the failure and the next caller retries.
+ */
+public class SingleFlightCache<K, V> {
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public SingleFlightCache(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        long now = System.nanoTime();
+        Entry<V> mine = new Entry<>();
+        Entry<V> current = entries.compute(key, (k, e) -> e == null || e.isExpired(now, ttlNanos) ? mine : e);
+
+        if (current == mine) {
+            try {
+                V loaded = loader.get();
+                mine.loadedAt = System.nanoTime();
+                mine.value.complete(loaded);
+            } catch (Throwable ex) {
+                entries.remove(key, mine);
+                mine.value.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        try {
+            return current.value.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            if (ex.getCause() instanceof Error err) throw err;
+            throw ex;
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    private static final class Entry<V> {
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        volatile long loadedAt;              // set when the load finishes, before value completes
+
+        boolean isExpired(long now, long ttlNanos) {
+            // an in-flight load is never expired; its waiters get the fresh value
+            return value.isDone() && now - loadedAt >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.logs.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Two-tier Spring {@link org.springframework.cache.Cache}: a size-bounded Caffeine cache per
+ * instance (L1) in front of Redis (L2), so instances share each other's results. Redis errors
+ * degrade to L1-only. {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync = true)}) loads
+ * a key once per instance however many requests ask for it concurrently. The load runs outside
+ * Caffeine's compute, so a slow ES query for one key never blocks writers of other keys that
+ * share its hash bin.
+ * <p>
+ * Metrics: {@code cache.tiered.gets} tagged with {@code cache}, {@code tier} (l1/l2) and
+ * {@code result} (hit/miss).
+ */
+@Slf4j
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final int CLEAR_BATCH = 500;
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final RedisTemplate<String, Object> redis;
+    private final Duration remoteTtl;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TieredCache(String name,
+                       Cache<Object, Object> local,
+                       RedisTemplate<String, Object> redis,
+                       Duration remoteTtl,
+                       MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.local = local;
+        this.redis = redis;
+        this.remoteTtl = remoteTtl;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            l1Hits.increment();
+            return value;
+        }
+        l1Misses.increment();
+        value = remoteGet(key);
+        if (value != null) local.put(key, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = local.getIfPresent(key);
+        if (cached != null) {
+            l1Hits.increment();
+            return (T) cached;
+        }
+        l1Misses.increment();
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> current = inFlight.putIfAbsent(key, mine);
+        if (current == null) {
+            current = mine;
+            try {
+                mine.complete(load(key, valueLoader));
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+        try {
+            return (T) current.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        // another caller may have finished loading between our L1 miss and taking the flight
+        Object value = local.getIfPresent(key);
+        if (value != null) return value;
+        value = remoteGet(key);
+        if (value == null) {
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) remotePut(key, value);
+        }
+        if (value != null) local.put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) return;
+        local.put(key, value);
+        remotePut(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.invalidate(key);
+        try {
+            redis.delete(redisKey(key));
+        } catch (RuntimeException e) {
+            log.debug("Redis evict failed for cache {}: {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        try {
+            List<String> batch = new ArrayList<>(CLEAR_BATCH);
+            try (Cursor<String> keys = redis.scan(ScanOptions.scanOptions().match(redisKey("*")).count(CLEAR_BATCH).build())) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == CLEAR_BATCH) {
+                        redis.delete(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) redis.delete(batch);
+        } catch (RuntimeException e) {
+            log.debug("Redis clear failed for cache {}: {}", name, e.getMessage());
+        }
+    }
+
+    private Object remoteGet(Object key) {
+        Object value = null;
+        try {
+            value = redis.opsForValue().get(redisKey(key));
+        } catch (RuntimeException e) {
+            log.debug("Redis read failed for cache {}: {}", name, e.getMessage());
+        }
+        (value != null ? l2Hits : l2Misses).increment();
+        return value;
+    }
+
+    private void remotePut(Object key, Object value) {
+        try {
+            redis.opsForValue().set(redisKey(key), value, remoteTtl);
+        } catch (RuntimeException e) {
+            log.debug("Redis write failed for cache {}: {}", name, e.getMessage());
+        }
+    }
+
+    private String redisKey(Object key) {
+        return "qcache:" + name + ":" + key;
+    }
+
+    private Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tiered.gets")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
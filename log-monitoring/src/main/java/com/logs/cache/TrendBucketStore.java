@@ -0,0 +1,102 @@
+package com.logs.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logs.dto.TrendPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiFunction;
+
+/**
+ * Remembers closed date-histogram buckets per filter signature so a trend refresh only asks ES
+ * for the buckets it has not seen yet: normally the newest closed one(s) plus the open bucket.
+ * A bucket counts as closed once it ended more than {@code logs.trend.closed-grace-seconds} ago
+ * (to absorb late logs) and lies fully inside the requested range.
+ * <p>
+ * Logs can still land in a closed bucket after the grace (indexer lag, Kafka replays, rolled-back
+ * clients), so a stored bucket is only trusted for {@code logs.trend.closed-ttl-seconds} and is
+ * then fetched from ES again.
+ */
+@Component
+public class TrendBucketStore {
+
+    private final Cache<String, ConcurrentNavigableMap<Long, StoredBucket>> series;
+    private final long graceSeconds;
+    private final long ttlSeconds;
+    private final int maxBucketsPerSeries;
+    private final Clock clock;
+
+    public TrendBucketStore(@Value("${logs.trend.max-series:200}") long maxSeries,
+                            @Value("${logs.trend.max-buckets-per-series:50000}") int maxBucketsPerSeries,
+                            @Value("${logs.trend.closed-grace-seconds:60}") long graceSeconds,
+                            @Value("${logs.trend.closed-ttl-seconds:600}") long ttlSeconds) {
+        this(maxSeries, maxBucketsPerSeries, graceSeconds, ttlSeconds, Clock.systemUTC());
+    }
+
+    TrendBucketStore(long maxSeries, int maxBucketsPerSeries, long graceSeconds, long ttlSeconds, Clock clock) {
+        this.series = Caffeine.newBuilder().maximumSize(maxSeries).build();
+        this.maxBucketsPerSeries = maxBucketsPerSeries;
+        this.graceSeconds = graceSeconds;
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+    }
+
+    /**
+     * Dense trend points (one per bucket, zeros included) from the bucket containing {@code from}
+     * through the one containing {@code to}.
+     *
+     * @param query runs the histogram for [from, to] and returns bucket start (epoch s) to count
+     */
+    public List<TrendPoint> points(String signature, long stepSeconds, Instant from, Instant to,
+                                   BiFunction<Instant, Instant, Map<Long, Long>> query) {
+        ConcurrentNavigableMap<Long, StoredBucket> closed = series.get(signature, k -> new ConcurrentSkipListMap<>());
+        long now = clock.instant().getEpochSecond();
+        long first = Math.floorDiv(from.getEpochSecond(), stepSeconds) * stepSeconds;
+        long last = Math.floorDiv(to.getEpochSecond(), stepSeconds) * stepSeconds;
+        long closedUntil = Math.min(now - graceSeconds, to.getEpochSecond());
+
+        // Query from the first bucket we do not have (or no longer trust); closed buckets before it come from the store
+        long queryFrom = first;
+        while (queryFrom <= last && queryFrom + stepSeconds <= closedUntil && isFresh(closed.get(queryFrom), now)) {
+            queryFrom += stepSeconds;
+        }
+
+        Map<Long, Long> fresh = new HashMap<>();
+        if (queryFrom <= last) {
+            Map<Long, Long> result = query.apply(Instant.ofEpochSecond(queryFrom), to);
+            for (long b = queryFrom; b <= last; b += stepSeconds) {
+                long count = result.getOrDefault(b, 0L);
+                fresh.put(b, count);
+                if (b + stepSeconds <= closedUntil) closed.put(b, new StoredBucket(count, now));
+            }
+            while (closed.size() > maxBucketsPerSeries) closed.pollFirstEntry();
+        }
+
+        List<TrendPoint> points = new ArrayList<>((int) ((last - first) / stepSeconds) + 1);
+        for (long b = first; b <= last; b += stepSeconds) {
+            Long count = fresh.get(b);
+            if (count == null) {
+                StoredBucket stored = closed.get(b);
+                count = stored != null ? stored.count() : 0L;
+            }
+            points.add(new TrendPoint(Instant.ofEpochSecond(b), count));
+        }
+        return points;
+    }
+
+    private boolean isFresh(StoredBucket bucket, long now) {
+        return bucket != null && now - bucket.storedAt() < ttlSeconds;
+    }
+
+    private record StoredBucket(long count, long storedAt) {
+    }
+}
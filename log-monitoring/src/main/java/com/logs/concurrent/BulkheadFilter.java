@@ -0,0 +1,148 @@
+package com.logs.concurrent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.enums.TrafficClass;
+import com.logs.model.ApiResponse;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the requests of each {@link TrafficClass} in flight at once, so a slow Elasticsearch
+ * holding every query thread still leaves room for ingest, admin calls and /health. A request
+ * that finds its class full waits at most {@code maxWaitMs} for a permit, then gets 503.
+ * With virtual threads the container no longer runs out of threads, and these limits are what
+ * keeps a slow backend from piling up unbounded work.
+ * <p>
+ * A request that goes async (the streaming log export) keeps its permit until the async
+ * processing completes, errors or times out, not just until the container thread returns.
+ * <p>
+ * Unclassified paths (/health, /ping, /actuator/health, the live tail stream) are never limited.
+ */
+@Slf4j
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    /** Permits and wait of one class. */
+    public record Limit(int maxConcurrent, long maxWaitMs) {
+    }
+
+    private final Map<TrafficClass, Semaphore> permits = new EnumMap<>(TrafficClass.class);
+    private final Map<TrafficClass, Long> maxWaitMs = new EnumMap<>(TrafficClass.class);
+    private final ObjectMapper objectMapper;
+
+    public BulkheadFilter(Map<TrafficClass, Limit> limits, ObjectMapper objectMapper) {
+        limits.forEach((c, l) -> {
+            permits.put(c, new Semaphore(Math.max(l.maxConcurrent(), 1)));
+            maxWaitMs.put(c, Math.max(l.maxWaitMs(), 0));
+        });
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TrafficClass c = classify(request.getMethod(), request.getRequestURI());
+        Semaphore s = c == null ? null : permits.get(c);
+        if (s == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = s.tryAcquire(maxWaitMs.get(c), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.debug("Bulkhead {} full, rejecting {} {}", c, request.getMethod(), request.getRequestURI());
+            reject(response, c);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(s));
+                async = true;
+            }
+        } finally {
+            if (!async) s.release();
+        }
+    }
+
+    /** Permits of {@code c} currently free; for tests and diagnostics. */
+    public int available(TrafficClass c) {
+        Semaphore s = permits.get(c);
+        return s == null ? Integer.MAX_VALUE : s.availablePermits();
+    }
+
+    /** The bulkhead a request belongs to, or null for paths that are never limited. */
+    static TrafficClass classify(String method, String path) {
+        if (path.equals("/api/logs") || path.startsWith("/api/logs/batch")) {
+            return "POST".equals(method) ? TrafficClass.INGEST : TrafficClass.QUERY;
+        }
+        if (path.equals("/api/logs/stream")) return null;
+        if (path.startsWith("/api/alerts") || path.startsWith("/api/queries")) return TrafficClass.ADMIN;
+        if (path.startsWith("/api/")) return TrafficClass.QUERY;
+        if (path.startsWith("/actuator") && !path.startsWith("/actuator/health")) return TrafficClass.ADMIN;
+        return null;
+    }
+
+    /** Hands the permit back once, whichever of complete / error / timeout comes first. */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+        private final Semaphore permit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleaseOnCompletion(Semaphore permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // re-dispatched async cycles keep the same permit
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) permit.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response, TrafficClass c) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error("Too many concurrent " + c.name().toLowerCase() + " requests, retry shortly"));
+    }
+}
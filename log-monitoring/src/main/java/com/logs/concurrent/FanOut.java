@@ -0,0 +1,138 @@
+package com.logs.concurrent;
+
+import com.logs.exception.FanOutTimeoutException;
+import com.logs.search.QueryProfile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent backend calls of one request side by side, structured like
+ * {@code StructuredTaskScope.ShutdownOnFailure}: subtasks are forked in a {@link Scope},
+ * {@link Scope#join()} waits for all of them, and the first failure (or the deadline) cancels
+ * the rest. Leaving the scope cancels anything still running, so no subtask outlives its request.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} on a Java 21+ runtime each subtask gets a virtual
+ * thread; otherwise they share a bounded pool of {@code logs.fan-out.threads} platform threads.
+ */
+@Slf4j
+@Component
+public class FanOut {
+
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    @Autowired
+    public FanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                  @Value("${logs.fan-out.threads:32}") int threads,
+                  @Value("${logs.fan-out.timeout-ms:10000}") long timeoutMs) {
+        this(executor(virtualThreads, threads), Duration.ofMillis(timeoutMs));
+    }
+
+    public FanOut(ExecutorService executor, Duration timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /** Open a scope; use it in try-with-resources on the request thread. */
+    public Scope open() {
+        return new Scope(System.nanoTime() + timeout.toNanos());
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final long deadline;
+        private final List<Future<?>> tasks = new ArrayList<>();
+        private final CompletableFuture<Void> failed = new CompletableFuture<>();
+        private final List<CompletableFuture<?>> results = new ArrayList<>();
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /** Start {@code task}; its result is available from the returned supplier after {@link #join()}. */
+        public <T> Supplier<T> fork(Callable<T> task) {
+            QueryProfile profile = QueryProfile.current();
+            CompletableFuture<T> result = new CompletableFuture<>();
+            results.add(result);
+            tasks.add(executor.submit(() -> {
+                QueryProfile previous = QueryProfile.attach(profile);
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                    failed.completeExceptionally(e);
+                } finally {
+                    QueryProfile.attach(previous);
+                }
+            }));
+            return result::join;
+        }
+
+        /**
+         * Wait for every subtask. A failing subtask cancels the others and its exception is rethrown
+         * (unchecked ones as they are); running past the deadline cancels all and throws
+         * {@link FanOutTimeoutException}.
+         */
+        public void join() {
+            CompletableFuture<Void> all = CompletableFuture.allOf(results.toArray(CompletableFuture[]::new));
+            try {
+                CompletableFuture.anyOf(all, failed).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                cancel();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re) throw re;
+                if (cause instanceof Error err) throw err;
+                throw new CompletionException(cause);
+            } catch (TimeoutException e) {
+                cancel();
+                throw new FanOutTimeoutException("Backend calls did not complete within " + timeout.toMillis() + " ms");
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while waiting for backend calls");
+            }
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+
+        private void cancel() {
+            for (Future<?> t : tasks) t.cancel(true);
+        }
+    }
+
+    private static ExecutorService executor(boolean virtualThreads, int threads) {
+        if (virtualThreads) {
+            try {
+                // Java 21+; looked up reflectively so the code still builds and runs on 17
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads need Java 21+ (running {}); fan-out uses {} platform threads",
+                        Runtime.version(), threads);
+            }
+        }
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(threads, 1), r -> {
+            Thread t = new Thread(r, "fan-out-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
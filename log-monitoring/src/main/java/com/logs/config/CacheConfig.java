@@ -0,0 +1,89 @@
+package com.logs.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logs.cache.TieredCache;
+import com.logs.metrics.RemoteCallMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ERROR_TREND = "error-trend";
+    public static final String ERROR_SEVERITY = "error-severity";
+    public static final String ERRORS_BY_SERVICE = "errors-by-service";
+    public static final String ERROR_TOP_MESSAGES = "error-top-messages";
+
+    /** {@code @Cacheable} condition: profiled requests must reach Elasticsearch to be measured. */
+    public static final String NOT_PROFILED = "!T(com.logs.search.QueryProfile).esProfileRequested()";
+
+    /** Separate template for cached query results: values carry their type so they can be read back. */
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(LettuceConnectionFactory cf,
+                                                            ObjectMapper springObjectMapper,
+                                                            RemoteCallMetrics remoteCallMetrics) {
+        RedisTemplate<String, Object> tpl = new RedisTemplate<>();
+        tpl.setConnectionFactory(remoteCallMetrics.instrument(cf));
+        tpl.setKeySerializer(new StringRedisSerializer());
+
+        ObjectMapper mapper = springObjectMapper.copy()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        tpl.setValueSerializer(GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(mapper)
+                .defaultTyping(true)
+                .build());
+
+        tpl.afterPropertiesSet();
+        return tpl;
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisTemplate<String, Object> cacheRedisTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${logs.query-cache.l1-max-entries:1000}") long l1MaxEntries,
+                                     @Value("${logs.query-cache.l1-ttl-ms:30000}") long l1TtlMs,
+                                     @Value("${logs.query-cache.l2-ttl-ms:60000}") long l2TtlMs) {
+        return new AbstractCacheManager() {
+            @Override
+            protected Collection<? extends Cache> loadCaches() {
+                return List.of(create(ERROR_TREND), create(ERROR_SEVERITY), create(ERRORS_BY_SERVICE),
+                        create(ERROR_TOP_MESSAGES));
+            }
+
+            @Override
+            protected Cache getMissingCache(String name) {
+                return create(name);
+            }
+
+            private Cache create(String name) {
+                return new TieredCache(name,
+                        Caffeine.newBuilder()
+                                .maximumSize(l1MaxEntries)
+                                .expireAfterWrite(Duration.ofMillis(l1TtlMs))
+                                .build(),
+                        cacheRedisTemplate,
+                        Duration.ofMillis(l2TtlMs),
+                        meterRegistry);
+            }
+        };
+    }
+}
@@ -1,9 +1,10 @@
 package com.logs.config;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
-import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.logs.metrics.RemoteCallMetrics;
+import com.logs.search.ProfilingJsonpMapper;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,8 +23,9 @@ public class ElasticSearchConfig {
     }
 
     @Bean(destroyMethod = "close")
-    public ElasticsearchTransport transport(RestClient restClient) {
-        return new RestClientTransport(restClient, new JacksonJsonpMapper());
+    public ElasticsearchTransport transport(RestClient restClient, RemoteCallMetrics remoteCallMetrics) {
+        // every request is timed (remote.calls{system=elasticsearch}); searches of ?profile=true requests carry "profile"
+        return remoteCallMetrics.instrument(new RestClientTransport(restClient, new ProfilingJsonpMapper()));
     }
 
     @Bean
@@ -1,60 +1,91 @@
 package com.logs.config;
 
+import com.logs.kafka.LogEventDeserializer;
+import com.logs.kafka.LogEventSerializer;
+import com.logs.model.LogEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
-import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
-import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Producer and consumer factories built from the {@code spring.kafka.*} properties (so every
+ * client setting there applies, SSL/SASL included); only the serializers are fixed here.
+ */
 @Configuration
 public class KafkaConfig {
 
-    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
-    private String bootstrapServers;
+    // ---- Serialization ----
+    @Bean
+    public LogEventSerializer logEventSerializer() {
+        return new LogEventSerializer();
+    }
+
+    @Bean
+    public LogEventDeserializer logEventDeserializer() {
+        return new LogEventDeserializer();
+    }
 
     // ---- Producer ----
     @Bean
-    public ProducerFactory<String, String> producerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        return new DefaultKafkaProducerFactory<>(props);
+    public ProducerFactory<String, LogEvent> producerFactory(KafkaProperties kafkaProperties,
+                                                             ObjectProvider<SslBundles> sslBundles,
+                                                             LogEventSerializer logEventSerializer) {
+        // acks, compression, batch size and linger come from spring.kafka.producer (see application.yml)
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
+        return new DefaultKafkaProducerFactory<>(props, new StringSerializer(), logEventSerializer);
+    }
+
+    @Bean
+    public KafkaTemplate<String, LogEvent> kafkaTemplate(ProducerFactory<String, LogEvent> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
     }
 
+    /** Raw bytes of records the consumer could not decode go to log-events.DLT. */
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, byte[]> deadLetterTemplate(ProducerFactory<String, LogEvent> producerFactory) {
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties(),
+                new StringSerializer(), new ByteArraySerializer()));
     }
 
     // ---- Consumer ----
     @Bean
-    public ConsumerFactory<String, String> consumerFactory(
-            @Value("${spring.kafka.consumer.group-id:log-monitoring}") String groupId) {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        return new DefaultKafkaConsumerFactory<>(props);
+    public ConsumerFactory<String, LogEvent> consumerFactory(KafkaProperties kafkaProperties,
+                                                             ObjectProvider<SslBundles> sslBundles,
+                                                             LogEventDeserializer logEventDeserializer) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        // Offsets are committed by the container once a batch has been indexed in ES, whatever the yml says
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // An undecodable record arrives as a null value instead of failing the whole poll
+        return new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(logEventDeserializer));
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String>
-    kafkaListenerContainerFactory(ConsumerFactory<String, String> consumerFactory) {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, LogEvent>
+    kafkaListenerContainerFactory(ConsumerFactory<String, LogEvent> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, LogEvent> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
         factory.setConcurrency(3); // adjust later
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // A failed batch is re-polled from the last committed offset until ES accepts it
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1_000L, FixedBackOff.UNLIMITED_ATTEMPTS)));
         return factory;
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,11 @@ package com.logs.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logs.metrics.RemoteCallMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -24,15 +26,18 @@ public class RedisConfig {
     }
 
     @Bean
-    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory cf) {
-        return new StringRedisTemplate(cf);
+    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory cf, RemoteCallMetrics remoteCallMetrics) {
+        return new StringRedisTemplate(remoteCallMetrics.instrument(cf));
     }
 
     @Bean
+    @Primary
     public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory cf,
-                                                       ObjectMapper springObjectMapper) {
+                                                       ObjectMapper springObjectMapper,
+                                                       RemoteCallMetrics remoteCallMetrics) {
         RedisTemplate<String, Object> tpl = new RedisTemplate<>();
-        tpl.setConnectionFactory(cf);
+        // every command is timed (remote.calls{system=redis})
+        tpl.setConnectionFactory(remoteCallMetrics.instrument(cf));
 
         tpl.setKeySerializer(new StringRedisSerializer());
         tpl.setHashKeySerializer(new StringRedisSerializer());
@@ -0,0 +1,56 @@
+package com.logs.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.concurrent.BulkheadFilter;
+import com.logs.enums.TrafficClass;
+import com.logs.search.QueryProfilingInterceptor;
+import com.logs.search.SlowQueryLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public WebConfig(@Value("${logs.slow-query.threshold-ms:1000}") long thresholdMs,
+                     @Value("${logs.slow-query.capacity:200}") int capacity) {
+        this.slowQueryLog = new SlowQueryLog(thresholdMs, capacity);
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /** Runs just after the HTTP observation filter, so rejected requests still show up in http.server.requests. */
+    @Bean
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(
+            ObjectMapper objectMapper,
+            @Value("${logs.bulkhead.ingest.max-concurrent:80}") int ingestMax,
+            @Value("${logs.bulkhead.ingest.max-wait-ms:0}") long ingestWait,
+            @Value("${logs.bulkhead.query.max-concurrent:60}") int queryMax,
+            @Value("${logs.bulkhead.query.max-wait-ms:100}") long queryWait,
+            @Value("${logs.bulkhead.admin.max-concurrent:20}") int adminMax,
+            @Value("${logs.bulkhead.admin.max-wait-ms:100}") long adminWait) {
+        BulkheadFilter filter = new BulkheadFilter(Map.of(
+                TrafficClass.INGEST, new BulkheadFilter.Limit(ingestMax, ingestWait),
+                TrafficClass.QUERY, new BulkheadFilter.Limit(queryMax, queryWait),
+                TrafficClass.ADMIN, new BulkheadFilter.Limit(adminMax, adminWait)), objectMapper);
+        FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryProfilingInterceptor(slowQueryLog)).addPathPatterns("/api/**");
+    }
+}
@@ -1,8 +1,13 @@
 package com.logs.controller;
 
 import com.logs.model.Alert;
+import com.logs.model.AlertRule;
+import com.logs.service.AlertRuleService;
 import com.logs.service.AlertService;
+import com.logs.util.ErrorUtils;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
@@ -17,6 +22,7 @@ import java.util.stream.Collectors;
 public class AlertController {
 
     private final AlertService alertService;
+    private final AlertRuleService alertRuleService;
 
 
 
@@ -37,4 +43,26 @@ public class AlertController {
         return alertService.getTrendLastNDays(days, zone);
     }
 
+    @GetMapping("/rules")
+    public List<AlertRule> getRules() {
+        return alertRuleService.getRules();
+    }
+
+    /** Create or replace a rule; the path id wins over the body. */
+    @PutMapping("/rules/{id}")
+    public ResponseEntity<?> saveRule(@PathVariable String id, @RequestBody AlertRule rule) {
+        rule.setId(id);
+        try {
+            return ResponseEntity.ok(alertRuleService.saveRule(rule));
+        } catch (IllegalArgumentException e) {
+            return ErrorUtils.buildError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable String id) {
+        alertRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+
 }
@@ -2,6 +2,7 @@ package com.logs.controller;
 
 import com.logs.dto.*;
 import com.logs.model.ApiResponse;
+import com.logs.search.ProfiledQuery;
 import com.logs.service.ErrorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +21,7 @@ public class ErrorController {
 
     /** Trend over time (date histogram) */
     @PostMapping("/trend")
+    @ProfiledQuery("errors.trend")
     public ResponseEntity<ApiResponse<TrendResponse>> trend(
             @RequestParam(defaultValue = "hour") String interval,
             @RequestBody(required = false) TimeRangeFilter filter
@@ -30,6 +32,7 @@ public class ErrorController {
 
     /** Severity distribution (ERROR/WARN/INFO) */
     @PostMapping("/severity")
+    @ProfiledQuery("errors.severity")
     public ResponseEntity<ApiResponse<SeverityCounts>> severity(
             @RequestBody(required = false) TimeRangeFilter filter
     ) {
@@ -39,6 +42,7 @@ public class ErrorController {
 
     /** Error count by service (top N) */
     @PostMapping("/byService")
+    @ProfiledQuery("errors.byService")
     public ResponseEntity<ApiResponse<List<CountByService>>> errorsByService(
             @RequestParam(name = "top", defaultValue = "5") int top,
             @RequestBody(required = false) TimeRangeFilter filter
@@ -47,14 +51,28 @@ public class ErrorController {
         return ResponseEntity.ok(ApiResponse.ok(data));
     }
 
-    /** Recent logs (paginated, sorted by timestamp desc) */
+    /** Most frequent message patterns (top N), grouped by ingest-time message template */
+    @PostMapping("/topMessages")
+    @ProfiledQuery("errors.topMessages")
+    public ResponseEntity<ApiResponse<List<TopMessageRow>>> topMessages(
+            @RequestParam(name = "top", defaultValue = "10") int top,
+            @RequestBody(required = false) TimeRangeFilter filter
+    ) {
+        List<TopMessageRow> data = errorService.topMessages(filter, top);
+        return ResponseEntity.ok(ApiResponse.ok(data));
+    }
+
+    /** Recent logs (paginated, sorted by timestamp desc); pass scroll=true, then the returned nextCursor, to page deeply */
     @PostMapping("/recent")
+    @ProfiledQuery("errors.recent")
     public ResponseEntity<ApiResponse<PagedRecentErrors>> recent(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean scroll,
             @RequestBody(required = false) TimeRangeFilter filter
     ) {
-        PagedRecentErrors data = errorService.recent(filter, page, size);
+        PagedRecentErrors data = errorService.recent(filter, page, size, cursor, scroll);
         return ResponseEntity.ok(ApiResponse.ok(data));
     }
 }
@@ -1,18 +1,34 @@
 package com.logs.controller;
 
+import com.logs.dto.BatchIngestResponse;
 import com.logs.dto.LogRequest;
 import com.logs.dto.LogSearchRequest;
+import com.logs.enums.ExportFormat;
+import com.logs.enums.LogLevel;
+import com.logs.exception.IngestRejectedException;
+import com.logs.exception.SubscriberLimitException;
 import com.logs.model.LogEvent;
+import com.logs.service.LogExportService;
 import com.logs.service.LogService;
 import com.logs.model.ApiResponse;
+import com.logs.search.ProfiledQuery;
+import com.logs.stream.LiveTailService;
 import com.logs.util.ErrorUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 
 @Slf4j
@@ -21,16 +37,27 @@ import java.util.List;
 @RequiredArgsConstructor
 public class LogController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final LogService logService;
+    private final LiveTailService liveTailService;
+    private final LogExportService logExportService;
 
     /**
-     * Ingest a new log (from Node/Python script or other services)
+     * Ingest a new log (from Node/Python script or other services).
+     * Returns 202 once the log is queued; 400 for an invalid log (e.g. a timestamp outside the accepted
+     * window); 503 when the ingest pipeline is saturated.
      */
     @PostMapping
     public ResponseEntity<ApiResponse<Object>> receiveLog(@RequestBody LogRequest logRequestDTO) {
         try {
             logService.processLog(logRequestDTO);
-            return ResponseEntity.ok(ApiResponse.ok("Log processed successfully"));
+            return ResponseEntity.accepted().body(ApiResponse.ok("Log accepted"));
+        } catch (IngestRejectedException e) {
+            log.warn("Log rejected: {}", e.getMessage());
+            return ErrorUtils.buildError(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IllegalArgumentException e) {
+            return ErrorUtils.buildError(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error("Error while processing log: {}", e.getMessage());
             return ErrorUtils.handleException(e);
@@ -38,12 +65,41 @@ public class LogController {
     }
 
     /**
-     * Fetch recent logs (from Redis cache)
+     * Ingest many logs in one call (JSON array body)
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BatchIngestResponse>> receiveBatch(@RequestBody List<LogRequest> requests) {
+        try {
+            return ResponseEntity.accepted().body(ApiResponse.ok(logService.processBatch(requests)));
+        } catch (Exception e) {
+            log.error("Error while processing log batch: {}", e.getMessage());
+            return ErrorUtils.handleException(e);
+        }
+    }
+
+    /**
+     * Ingest many logs in one call (NDJSON body, one log per line)
+     */
+    @PostMapping(value = "/batch", consumes = NDJSON_VALUE)
+    public ResponseEntity<ApiResponse<BatchIngestResponse>> receiveNdjsonBatch(@RequestBody String body) {
+        try {
+            return ResponseEntity.accepted().body(ApiResponse.ok(logService.processNdjson(body)));
+        } catch (Exception e) {
+            log.error("Error while processing NDJSON log batch: {}", e.getMessage());
+            return ErrorUtils.handleException(e);
+        }
+    }
+
+    /**
+     * Fetch recent logs (from Redis cache), newest first, optionally filtered by service and/or level
      */
     @GetMapping("/recent")
-    public ResponseEntity<ApiResponse<List<LogEvent>>> getRecentLogs() {
+    public ResponseEntity<ApiResponse<List<LogEvent>>> getRecentLogs(
+            @RequestParam(required = false) String serviceName,
+            @RequestParam(required = false) LogLevel level
+    ) {
         try {
-            List<LogEvent> logs = logService.getRecentLogs();
+            List<LogEvent> logs = logService.getRecentLogs(serviceName, level);
             return ResponseEntity.ok(ApiResponse.ok(logs));
         } catch (Exception e) {
             log.error("Error fetching recent logs: {}", e.getMessage());
@@ -51,10 +107,29 @@ public class LogController {
         }
     }
 
+    /**
+     * Live tail (Server-Sent Events), served from memory. Starts with up to {@code backfill} buffered logs.
+     * Events: "log" (one LogEvent) and "dropped" (number of logs skipped because the client fell behind).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(required = false) String serviceName,
+            @RequestParam(required = false) LogLevel level,
+            @RequestParam(required = false) String traceId,
+            @RequestParam(defaultValue = "50") int backfill
+    ) {
+        try {
+            return liveTailService.subscribe(serviceName, level, traceId, backfill);
+        } catch (SubscriberLimitException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     /**
      * Fetch all logs (from Elasticsearch)
      */
     @PostMapping("/search")
+    @ProfiledQuery("logs.search")
     public ResponseEntity<ApiResponse<Page<LogEvent>>> search(@RequestBody LogSearchRequest req) {
         try {
             Page<LogEvent> results = logService.searchLogs(req);
@@ -64,4 +139,40 @@ public class LogController {
             return ErrorUtils.handleException(e);
         }
     }
+
+    /**
+     * Stream every log matching the search filters as NDJSON or CSV (optionally gzip-encoded), with
+     * no page size limit. Pass a checkpoint cursor from an interrupted export as {@code cursor} to resume.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @ModelAttribute LogSearchRequest req,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+            logExportService.validate(req);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024, true)) {
+                    logExportService.export(req, exportFormat, gz);
+                }
+            } else {
+                logExportService.export(req, exportFormat, out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("logs." + exportFormat.extension())
+                        .build().toString());
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
 }
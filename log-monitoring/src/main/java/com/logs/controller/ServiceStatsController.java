@@ -0,0 +1,34 @@
+package com.logs.controller;
+
+import com.logs.enums.StatsWindow;
+import com.logs.metrics.ServiceStatsService;
+import com.logs.util.ErrorUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/services")
+@RequiredArgsConstructor
+public class ServiceStatsController {
+    private final ServiceStatsService serviceStatsService;
+
+    /**
+     * Error/warn/info counts per service over the last 5m, 1h or 24h, from live counters only.
+     * The oldest minute (hour for 24h) is pro-rated, so counts are estimates at bucket edges.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> stats(
+            @RequestParam(required = false, defaultValue = "5m") String window,
+            @RequestParam(required = false) String serviceName
+    ) {
+        StatsWindow w;
+        try {
+            w = StatsWindow.of(window);
+        } catch (IllegalArgumentException e) {
+            return ErrorUtils.buildError(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok(serviceStatsService.stats(w, serviceName));
+    }
+}
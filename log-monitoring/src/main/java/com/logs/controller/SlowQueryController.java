@@ -0,0 +1,23 @@
+package com.logs.controller;
+
+import com.logs.model.ApiResponse;
+import com.logs.search.SlowQueryLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/queries")
+@RequiredArgsConstructor
+public class SlowQueryController {
+
+    private final SlowQueryLog slowQueryLog;
+
+    /** Recent search/aggregation requests slower than {@code logs.slow-query.threshold-ms}, newest first. */
+    @GetMapping("/slow")
+    public ResponseEntity<ApiResponse<List<SlowQueryLog.Entry>>> slow(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.ok(slowQueryLog.recent(limit)));
+    }
+}
@@ -0,0 +1,17 @@
+package com.logs.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchIngestResponse {
+    private int received;
+    private int accepted;
+    private int failed;
+    private List<BatchItemError> errors;
+}
@@ -0,0 +1,13 @@
+package com.logs.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemError {
+    private int index;      // position of the item in the submitted batch (0-based); for NDJSON, the physical line
+    private String reason;
+}
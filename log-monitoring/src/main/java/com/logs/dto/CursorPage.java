@@ -0,0 +1,21 @@
+package com.logs.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/** A regular page that also carries the cursor for the next page (null on the last page). */
+public class CursorPage<T> extends PageImpl<T> {
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, String nextCursor) {
+        super(content, pageable, total);
+        this.nextCursor = nextCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
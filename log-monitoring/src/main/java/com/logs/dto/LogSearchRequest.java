@@ -19,6 +19,10 @@ public class LogSearchRequest {
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private Instant to;
 
+    /** nextCursor of the previous response; when set, page only labels the result. */
+    private String cursor;
+    /** Start a cursor scroll: the response carries nextCursor. Otherwise page/size use from+size. */
+    private boolean scroll;
     private Integer page = 0;
     private Integer size = 20;
     private String sortBy = "timestamp";
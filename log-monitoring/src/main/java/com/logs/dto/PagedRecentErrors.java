@@ -14,4 +14,5 @@ public class PagedRecentErrors {
     private long total;
     private int page;
     private int size;
+    private String nextCursor;          // pass back as ?cursor= for the next page; null on the last page
 }
@@ -0,0 +1,31 @@
+package com.logs.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Where the time of one profiled request went, in milliseconds. {@code esNetworkMs} is the ES
+ * round trip minus what ES reports as {@code took}; {@code hitMappingMs} is the time spent turning
+ * responses into entities and DTOs. {@code jsonWriteMs} is only known once the response has been
+ * written, so it appears in the slow-query log, not in the response itself.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryTimings {
+    private String name;
+    private double totalMs;
+    private double buildMs;
+    private double esTookMs;
+    private double esNetworkMs;
+    private double hitMappingMs;
+    private Double jsonWriteMs;
+    private double otherMs;
+    private int esRequests;
+    private List<JsonNode> esProfile;
+}
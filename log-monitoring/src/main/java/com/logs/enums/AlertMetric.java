@@ -0,0 +1,8 @@
+package com.logs.enums;
+
+public enum AlertMetric {
+    LOG_COUNT,
+    ERROR_COUNT,
+    WARN_COUNT,
+    ERROR_RATE_PERCENT
+}
@@ -0,0 +1,7 @@
+package com.logs.enums;
+
+public enum BackpressurePolicy {
+    REJECT,   // fail the request straight away when a sink queue is full
+    BLOCK,    // wait (bounded) for room in the sink queue
+    SPILL     // append to a local spill file and replay once the queue drains
+}
@@ -0,0 +1,42 @@
+package com.logs.enums;
+
+import java.time.temporal.ChronoUnit;
+
+/** Windows served by /api/services/stats, each summed from a fixed number of Redis buckets. */
+public enum StatsWindow {
+    FIVE_MINUTES("5m", ChronoUnit.MINUTES, 5),
+    ONE_HOUR("1h", ChronoUnit.MINUTES, 60),
+    ONE_DAY("24h", ChronoUnit.HOURS, 24);
+
+    private final String label;
+    private final ChronoUnit bucket;
+    private final int buckets;
+
+    StatsWindow(String label, ChronoUnit bucket, int buckets) {
+        this.label = label;
+        this.bucket = bucket;
+        this.buckets = buckets;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /** Granularity of the buckets this window is summed from. */
+    public ChronoUnit bucket() {
+        return bucket;
+    }
+
+    /** Number of buckets summed, the current (partial) one included. */
+    public int buckets() {
+        return buckets;
+    }
+
+    /** @throws IllegalArgumentException for anything but 5m, 1h or 24h */
+    public static StatsWindow of(String label) {
+        for (StatsWindow w : values()) {
+            if (w.label.equalsIgnoreCase(label)) return w;
+        }
+        throw new IllegalArgumentException("window must be one of 5m, 1h, 24h");
+    }
+}
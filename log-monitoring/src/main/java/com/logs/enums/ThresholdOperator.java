@@ -0,0 +1,17 @@
+package com.logs.enums;
+
+public enum ThresholdOperator {
+    GT,
+    GTE,
+    LT,
+    LTE;
+
+    public boolean breached(double observed, double threshold) {
+        return switch (this) {
+            case GT -> observed > threshold;
+            case GTE -> observed >= threshold;
+            case LT -> observed < threshold;
+            case LTE -> observed <= threshold;
+        };
+    }
+}
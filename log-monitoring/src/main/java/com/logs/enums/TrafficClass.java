@@ -0,0 +1,8 @@
+package com.logs.enums;
+
+/** Request classes that get their own bulkhead, so one cannot take every request thread. */
+public enum TrafficClass {
+    INGEST,
+    QUERY,
+    ADMIN
+}
@@ -0,0 +1,10 @@
+package com.logs.exception;
+
+/**
+ * Thrown when the backend calls of a {@code FanOut} scope are still running at its deadline.
+ */
+public class FanOutTimeoutException extends RuntimeException {
+    public FanOutTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.logs.exception;
+
+/**
+ * Thrown when the ingest pipeline cannot accept more logs (queues full under REJECT/BLOCK backpressure).
+ */
+public class IngestRejectedException extends RuntimeException {
+    public IngestRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.logs.exception;
+
+/**
+ * Thrown when a streaming endpoint already serves its maximum number of subscribers.
+ */
+public class SubscriberLimitException extends RuntimeException {
+    public SubscriberLimitException(String message) {
+        super(message);
+    }
+}
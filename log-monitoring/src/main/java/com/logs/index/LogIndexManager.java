@@ -0,0 +1,254 @@
+package com.logs.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.logs.model.LogEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.PutIndexTemplateRequest;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the daily log indices in shape: the index template (LogEvent mappings + search alias),
+ * the write alias on today's index, and retention by dropping whole indices.
+ * Also tells queries which indices a time range can touch.
+ */
+@Slf4j
+@Component
+public class LogIndexManager {
+
+    private final ElasticsearchOperations esOps;
+    private final ElasticsearchClient esClient;
+    private final int retentionDays;
+    private final int maxSearchDays;
+    private final int shards;
+    private final int replicas;
+    private final boolean migrateMessageMapping;
+
+    private volatile boolean legacyPresent;
+    private volatile String writeIndex;
+    private volatile Set<String> keywordMessageIndices = Set.of();
+
+    public LogIndexManager(ElasticsearchOperations esOps,
+                           ElasticsearchClient esClient,
+                           @Value("${logs.index.retention-days:30}") int retentionDays,
+                           @Value("${logs.index.max-search-days:31}") int maxSearchDays,
+                           @Value("${logs.index.shards:1}") int shards,
+                           @Value("${logs.index.replicas:1}") int replicas,
+                           @Value("${logs.index.migrate-message-mapping:false}") boolean migrateMessageMapping) {
+        this.esOps = esOps;
+        this.esClient = esClient;
+        this.retentionDays = Math.max(retentionDays, 1);
+        this.maxSearchDays = Math.max(maxSearchDays, 1);
+        this.shards = shards;
+        this.replicas = replicas;
+        this.migrateMessageMapping = migrateMessageMapping;
+    }
+
+    /** Install the template before the first bulk request can auto-create a daily index. */
+    @PostConstruct
+    void init() {
+        try {
+            ensureTemplate();
+            ensureToday();
+        } catch (RuntimeException e) {
+            log.warn("Could not prepare log indices yet, maintenance will retry: {}", e.getMessage());
+        }
+    }
+
+    /** Indices to search for [from, to]; either bound may be null. */
+    public IndexCoordinates searchIndex(Instant from, Instant to) {
+        if (from == null) return IndexCoordinates.of(LogIndices.SEARCH_ALIAS);
+        List<String> names = new ArrayList<>(LogIndices.dailyPatterns(from, to == null ? Instant.now() : to, maxSearchDays));
+        if (names.isEmpty()) return IndexCoordinates.of(LogIndices.SEARCH_ALIAS);
+        if (legacyPresent) names.add(LogIndices.LEGACY_INDEX);
+        return IndexCoordinates.of(names.toArray(String[]::new));
+    }
+
+    /** Template, today's and tomorrow's index, write alias and retention. Safe to run on every instance. */
+    public void maintain(boolean owner) {
+        ensureTemplate();
+        ensureToday();
+        if (owner) {
+            dropExpired();
+            if (migrateMessageMapping) migrateStep();
+        }
+    }
+
+    /**
+     * Indices whose {@code message} is still a plain keyword (created before the multi-field
+     * mapping). Message queries fall back to the old field for these until they are re-indexed.
+     */
+    public Set<String> keywordMessageIndices() {
+        return keywordMessageIndices;
+    }
+
+    void ensureTemplate() {
+        IndexOperations ops = esOps.indexOps(LogEvent.class);
+        Settings settings = new Settings();
+        settings.put("index.number_of_shards", shards);
+        settings.put("index.number_of_replicas", replicas);
+        ops.putIndexTemplate(PutIndexTemplateRequest.builder()
+                .withName(LogIndices.TEMPLATE)
+                .withIndexPatterns(LogIndices.PATTERN)
+                .withSettings(settings)
+                .withMapping(ops.createMapping(LogEvent.class))
+                .withAliasActions(new AliasActions(new AliasAction.Add(AliasActionParameters.builderForTemplate()
+                        .withAliases(LogIndices.SEARCH_ALIAS)
+                        .build())))
+                .build());
+
+        IndexOperations legacy = esOps.indexOps(IndexCoordinates.of(LogIndices.LEGACY_INDEX));
+        legacyPresent = legacy.exists();
+        refreshMessageMappings();
+        if (legacyPresent && !hasAlias(legacy, LogIndices.LEGACY_INDEX, LogIndices.SEARCH_ALIAS)) {
+            legacy.alias(new AliasActions(new AliasAction.Add(AliasActionParameters.builder()
+                    .withIndices(LogIndices.LEGACY_INDEX)
+                    .withAliases(LogIndices.SEARCH_ALIAS)
+                    .build())));
+        }
+    }
+
+    /** Create today's and tomorrow's indices from the template and move the write alias to today's. */
+    void ensureToday() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (LocalDate day : List.of(today, today.plusDays(1))) {
+            IndexOperations ops = esOps.indexOps(IndexCoordinates.of(LogIndices.daily(day)));
+            if (!ops.exists()) ops.create();
+        }
+
+        String todayIndex = LogIndices.daily(today);
+        if (todayIndex.equals(writeIndex)) return;
+        IndexOperations ops = esOps.indexOps(IndexCoordinates.of(LogIndices.PATTERN));
+        AliasActions actions = new AliasActions();
+        if (hasAlias(ops, LogIndices.PATTERN, LogIndices.WRITE_ALIAS)) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(LogIndices.PATTERN)
+                    .withAliases(LogIndices.WRITE_ALIAS)
+                    .build()));
+        }
+        actions.add(new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(todayIndex)
+                .withAliases(LogIndices.WRITE_ALIAS)
+                .withIsWriteIndex(true)
+                .build()));
+        ops.alias(actions);
+        writeIndex = todayIndex;
+    }
+
+    private static boolean hasAlias(IndexOperations ops, String indices, String alias) {
+        return ops.getAliasesForIndex(indices).values().stream()
+                .flatMap(Set::stream)
+                .anyMatch(a -> alias.equals(a.getAlias()));
+    }
+
+    private void refreshMessageMappings() {
+        IndexCoordinates all = legacyPresent
+                ? IndexCoordinates.of(LogIndices.PATTERN, LogIndices.LEGACY_INDEX)
+                : IndexCoordinates.of(LogIndices.PATTERN);
+        Set<String> outdated = new HashSet<>();
+        for (IndexInformation info : esOps.indexOps(all).getInformation()) {
+            if (info.getMapping() != null && "keyword".equals(messageType(info.getMapping()))) {
+                outdated.add(info.getName());
+            }
+        }
+        keywordMessageIndices = Set.copyOf(outdated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object messageType(Map<String, Object> mapping) {
+        Object props = mapping.get("properties");
+        if (!(props instanceof Map<?, ?> p) || !(p.get("message") instanceof Map<?, ?> message)) return null;
+        return ((Map<String, Object>) message).get("type");
+    }
+
+    /**
+     * Moves one outdated daily index per run onto the current mappings. The copy {@code <name>-v2}
+     * is created hidden and taken out of the search alias, so neither the alias nor the daily
+     * wildcards see it while the server-side reindex fills it. Once it holds every document it is
+     * unhidden, and one alias request adds it to the search alias and deletes the old index, so
+     * searches see exactly one of the two. Today's index is left alone because it is still being
+     * written to.
+     */
+    void migrateStep() {
+        String today = LogIndices.daily(LocalDate.now(ZoneOffset.UTC));
+        keywordMessageIndices.stream()
+                .filter(name -> LogIndices.dayOf(name).isPresent() && !name.equals(today))
+                .sorted()
+                .findFirst()
+                .ifPresent(source -> {
+                    IndexCoordinates src = IndexCoordinates.of(source);
+                    IndexCoordinates dest = IndexCoordinates.of(source + LogIndices.REINDEXED_SUFFIX);
+                    IndexOperations destOps = esOps.indexOps(dest);
+                    if (!destOps.exists()) {
+                        destOps.create(Map.of("index.hidden", true));
+                        // the template adds every logs-* index to the search alias
+                        destOps.alias(new AliasActions(new AliasAction.Remove(AliasActionParameters.builder()
+                                .withIndices(dest.getIndexName())
+                                .withAliases(LogIndices.SEARCH_ALIAS)
+                                .build())));
+                        String task = esOps.submitReindex(ReindexRequest.builder(src, dest).build());
+                        log.info("Re-indexing {} into {} (task {})", source, dest.getIndexName(), task);
+                    } else if (esOps.count(Query.findAll(), dest) >= esOps.count(Query.findAll(), src)) {
+                        // both steps are idempotent: a failed swap is retried by the next run
+                        unhide(dest.getIndexName());
+                        destOps.alias(new AliasActions(
+                                new AliasAction.Add(AliasActionParameters.builder()
+                                        .withIndices(dest.getIndexName())
+                                        .withAliases(LogIndices.SEARCH_ALIAS)
+                                        .build()),
+                                new AliasAction.RemoveIndex(AliasActionParameters.builder()
+                                        .withIndices(source)
+                                        .build())));
+                        log.info("Replaced {} with {}", source, dest.getIndexName());
+                    }
+                });
+    }
+
+    private void unhide(String index) {
+        try {
+            esClient.indices().putSettings(r -> r.index(index).settings(st -> st.hidden(false)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not unhide " + index, e);
+        }
+    }
+
+    /** Delete daily indices older than the retention period; no delete-by-query. */
+    void dropExpired() {
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        List<IndexInformation> indices = esOps.indexOps(IndexCoordinates.of(LogIndices.PATTERN)).getInformation();
+        for (IndexInformation info : indices) {
+            LogIndices.dayOf(info.getName())
+                    .filter(day -> day.isBefore(cutoff))
+                    .ifPresent(day -> {
+                        if (esOps.indexOps(IndexCoordinates.of(info.getName())).delete()) {
+                            log.info("Dropped log index {} (retention {} days)", info.getName(), retentionDays);
+                        }
+                        // a hidden copy still being filled is not matched by the pattern above
+                        IndexOperations copy = esOps.indexOps(IndexCoordinates.of(info.getName() + LogIndices.REINDEXED_SUFFIX));
+                        if (!info.getName().endsWith(LogIndices.REINDEXED_SUFFIX) && copy.exists()) copy.delete();
+                    });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.logs.index;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Naming of the daily log indices. Logs go to {@code logs-yyyy.MM.dd} by event time (UTC);
+ * {@link #SEARCH_ALIAS} spans all of them and {@link #WRITE_ALIAS} points at today's index.
+ */
+public final class LogIndices {
+
+    public static final String PREFIX = "logs-";
+    public static final String PATTERN = PREFIX + "*";
+    public static final String SEARCH_ALIAS = "logs-search";
+    public static final String WRITE_ALIAS = "logs-write";
+    public static final String TEMPLATE = "logs-daily";
+    /** The single index used before daily indices; searched as long as it exists. */
+    public static final String LEGACY_INDEX = "logs";
+    /** Appended to a daily index re-created with the current mappings (see LogIndexManager). */
+    public static final String REINDEXED_SUFFIX = "-v2";
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+
+    private LogIndices() {
+    }
+
+    public static String daily(Instant timestamp) {
+        return PREFIX + DAY.format(timestamp);
+    }
+
+    /**
+     * Index a log is written to: its event day, or the write alias when it has no timestamp or the
+     * timestamp lies outside the accepted window, so a wrong client clock cannot create indices.
+     */
+    public static String writeTarget(Instant timestamp, Instant now, Duration maxAge, Duration maxSkew) {
+        return inWriteWindow(timestamp, now, maxAge, maxSkew) ? daily(timestamp) : WRITE_ALIAS;
+    }
+
+    /** Whether {@code timestamp} lies within [now - maxAge, now + maxSkew]. */
+    public static boolean inWriteWindow(Instant timestamp, Instant now, Duration maxAge, Duration maxSkew) {
+        return timestamp != null
+                && !timestamp.isBefore(now.minus(maxAge))
+                && !timestamp.isAfter(now.plus(maxSkew));
+    }
+
+    public static String daily(LocalDate day) {
+        return PREFIX + DAY.format(day);
+    }
+
+    /** The day a daily index (or its re-indexed copy) holds, or empty for any other name. */
+    public static Optional<LocalDate> dayOf(String indexName) {
+        if (indexName == null || !indexName.startsWith(PREFIX)) return Optional.empty();
+        String rest = indexName.substring(PREFIX.length());
+        if (rest.endsWith(REINDEXED_SUFFIX)) rest = rest.substring(0, rest.length() - REINDEXED_SUFFIX.length());
+        try {
+            return Optional.of(LocalDate.parse(rest, DAY));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * One wildcard per day overlapping [from, to], so days that have no index yet match nothing
+     * instead of failing the search. Empty when the range spans more than {@code maxDays}.
+     */
+    public static List<String> dailyPatterns(Instant from, Instant to, int maxDays) {
+        LocalDate first = LocalDate.ofInstant(from, ZoneOffset.UTC);
+        LocalDate last = LocalDate.ofInstant(to, ZoneOffset.UTC);
+        List<String> patterns = new ArrayList<>();
+        for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
+            if (patterns.size() >= maxDays) return List.of();
+            patterns.add(daily(d) + "*");
+        }
+        return patterns;
+    }
+}
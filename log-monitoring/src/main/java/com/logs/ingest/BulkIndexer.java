@@ -0,0 +1,191 @@
+package com.logs.ingest;
+
+import com.logs.index.LogIndices;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.BulkFailureException.FailureDetails;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers LogEvents and writes them to Elasticsearch through the _bulk API.
+ * A batch is flushed when it reaches {@code maxActions} items or when its oldest
+ * item is older than {@code maxAgeMs}, whichever comes first.
+ * Each log goes to the daily index of its own timestamp (see {@link LogIndices}); a timestamp older
+ * than {@code logs.ingest.max-timestamp-age-days} or further ahead than
+ * {@code logs.ingest.max-timestamp-skew-seconds} goes to the write alias instead.
+ */
+@Slf4j
+@Component
+public class BulkIndexer {
+
+    private static final BulkOptions BULK_OPTIONS = BulkOptions.builder()
+            .withRefreshPolicy(RefreshPolicy.NONE)
+            .build();
+
+    private final ElasticsearchOperations esOps;
+    private final DistributionSummary bulkSize;
+    private final Counter itemFailures;
+    private final int maxActions;
+    private final long maxAgeMs;
+    private final Duration maxTimestampAge;
+    private final Duration maxTimestampSkew;
+
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private long oldestPendingAt;
+
+    private ScheduledExecutorService flusher;
+
+    public BulkIndexer(ElasticsearchOperations esOps,
+                       MeterRegistry meterRegistry,
+                       @Value("${logs.bulk.max-actions:500}") int maxActions,
+                       @Value("${logs.bulk.max-age-ms:200}") long maxAgeMs,
+                       @Value("${logs.ingest.max-timestamp-age-days:${logs.index.retention-days:30}}") int maxTimestampAgeDays,
+                       @Value("${logs.ingest.max-timestamp-skew-seconds:300}") long maxTimestampSkewSeconds) {
+        this.esOps = esOps;
+        this.bulkSize = DistributionSummary.builder("ingest.bulk.size")
+                .description("Logs per _bulk request").baseUnit("logs").register(meterRegistry);
+        this.itemFailures = Counter.builder("ingest.bulk.failures")
+                .description("Logs rejected by ES inside an otherwise successful _bulk request").register(meterRegistry);
+        this.maxActions = Math.max(maxActions, 1);
+        this.maxAgeMs = Math.max(maxAgeMs, 1);
+        this.maxTimestampAge = Duration.ofDays(maxTimestampAgeDays);
+        this.maxTimestampSkew = Duration.ofSeconds(maxTimestampSkewSeconds);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bulk-indexer-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long tick = Math.max(maxAgeMs / 2, 10);
+        flusher.scheduleWithFixedDelay(this::flushIfExpired, tick, tick, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher != null) flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Queue an event for the next bulk request. The returned future completes when
+     * ES has acknowledged the item, or exceptionally with the per-item failure reason.
+     */
+    public CompletableFuture<Void> submit(LogEvent event) {
+        if (event.getId() == null) {
+            event.setId(UUID.randomUUID().toString());
+        }
+        Pending p = new Pending(event, new CompletableFuture<>());
+        List<Pending> full = null;
+        synchronized (lock) {
+            if (pending.isEmpty()) oldestPendingAt = System.currentTimeMillis();
+            pending.add(p);
+            if (pending.size() >= maxActions) full = drain();
+        }
+        if (full != null) write(full);
+        return p.result();
+    }
+
+    /** Flush whatever is buffered right now. */
+    public void flush() {
+        List<Pending> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        write(batch);
+    }
+
+    /**
+     * Index the given events in a single _bulk request.
+     * Returns the failed items keyed by document id; an empty map means every item was indexed.
+     */
+    public Map<String, FailureDetails> indexNow(List<LogEvent> events) {
+        if (events.isEmpty()) return Map.of();
+
+        List<IndexQuery> queries = new ArrayList<>(events.size());
+        Instant now = Instant.now();
+        for (LogEvent e : events) {
+            if (e.getId() == null) e.setId(UUID.randomUUID().toString());
+            queries.add(new IndexQueryBuilder()
+                    .withId(e.getId())
+                    .withObject(e)
+                    .withIndex(LogIndices.writeTarget(e.getTimestamp(), now, maxTimestampAge, maxTimestampSkew))
+                    .build());
+        }
+
+        bulkSize.record(queries.size());
+        try {
+            esOps.bulkIndex(queries, BULK_OPTIONS, LogEvent.class);
+            return Map.of();
+        } catch (BulkFailureException e) {
+            itemFailures.increment(e.getFailedDocuments().size());
+            return e.getFailedDocuments();
+        }
+    }
+
+    private void flushIfExpired() {
+        List<Pending> batch = null;
+        synchronized (lock) {
+            if (!pending.isEmpty() && System.currentTimeMillis() - oldestPendingAt >= maxAgeMs) {
+                batch = drain();
+            }
+        }
+        if (batch != null) write(batch);
+    }
+
+    private List<Pending> drain() {
+        List<Pending> batch = pending;
+        pending = new ArrayList<>(maxActions);
+        return batch;
+    }
+
+    private void write(List<Pending> batch) {
+        if (batch.isEmpty()) return;
+
+        List<LogEvent> events = new ArrayList<>(batch.size());
+        for (Pending p : batch) events.add(p.event());
+
+        Map<String, FailureDetails> failures;
+        try {
+            failures = indexNow(events);
+        } catch (Exception e) {
+            log.error("Bulk request of {} logs failed: {}", batch.size(), e.getMessage());
+            batch.forEach(p -> p.result().completeExceptionally(e));
+            return;
+        }
+
+        for (Pending p : batch) {
+            FailureDetails failure = failures.get(p.event().getId());
+            if (failure == null) p.result().complete(null);
+            else p.result().completeExceptionally(new IllegalStateException(failure.errorMessage()));
+        }
+        if (!failures.isEmpty()) {
+            log.warn("Bulk request indexed {}/{} logs", batch.size() - failures.size(), batch.size());
+        }
+    }
+
+    private record Pending(LogEvent event, CompletableFuture<Void> result) {}
+}
@@ -0,0 +1,26 @@
+package com.logs.ingest;
+
+import com.logs.metrics.LogCounterService;
+import com.logs.model.LogEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Updates the in-memory sliding-window counters used by alert rules. */
+@Component
+@Order(5)
+@RequiredArgsConstructor
+public class CounterSink implements IngestSink {
+
+    private final LogCounterService logCounterService;
+
+    @Override
+    public String name() {
+        return "counters";
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        logCounterService.record(event);
+    }
+}
@@ -0,0 +1,41 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indexes ingested logs in Elasticsearch straight from the HTTP path through the {@link BulkIndexer}.
+ * Only active with {@code logs.ingest.index-mode=direct}; by default {@link LogEventConsumer} indexes from Kafka.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "logs.ingest", name = "index-mode", havingValue = "direct")
+@Order(2)
+@RequiredArgsConstructor
+public class ElasticsearchSink implements IngestSink {
+
+    private final BulkIndexer bulkIndexer;
+
+    @Override
+    public String name() {
+        return "elasticsearch";
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        bulkIndexer.submit(event).whenComplete((ok, e) -> {
+            if (e != null) {
+                log.error("Failed to index log {} from {}: {}", event.getId(), event.getServiceName(), e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.logs.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.enums.BackpressurePolicy;
+import com.logs.exception.IngestRejectedException;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staged ingest: the HTTP thread only enqueues the event; every {@link IngestSink} is drained
+ * asynchronously by its own worker pool. What happens when a sink queue is full is decided by
+ * {@code logs.ingest.backpressure} (see {@link BackpressurePolicy}).
+ */
+@Slf4j
+@Component
+public class IngestPipeline {
+
+    private final List<SinkStage> stages = new ArrayList<>();
+    private final BackpressurePolicy policy;
+    private final long blockTimeoutMs;
+
+    public IngestPipeline(List<IngestSink> sinks,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${logs.ingest.queue-capacity:10000}") int queueCapacity,
+                          @Value("${logs.ingest.workers:2}") int workers,
+                          @Value("${logs.ingest.backpressure:REJECT}") BackpressurePolicy policy,
+                          @Value("${logs.ingest.block-timeout-ms:500}") long blockTimeoutMs,
+                          @Value("${logs.ingest.spill-dir:./ingest-spill}") String spillDir) throws IOException {
+        this.policy = policy;
+        this.blockTimeoutMs = blockTimeoutMs;
+
+        Path spillPath = null;
+        if (policy == BackpressurePolicy.SPILL) {
+            spillPath = Files.createDirectories(Path.of(spillDir));
+        }
+        for (IngestSink sink : sinks) {
+            stages.add(new SinkStage(sink, Math.max(queueCapacity, 1), workers, objectMapper, spillPath, meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        stages.forEach(SinkStage::start);
+        log.info("Ingest pipeline started: sinks={}, backpressure={}",
+                stages.stream().map(SinkStage::name).toList(), policy);
+    }
+
+    @PreDestroy
+    void stop() {
+        stages.forEach(s -> s.stop(5_000));
+    }
+
+    /**
+     * Hand an event to every sink. Returns as soon as it is queued (or spilled).
+     * <p>
+     * A slot is reserved on every stage before the event is enqueued anywhere, so under REJECT and
+     * BLOCK a submit is all-or-nothing: either every sink gets the event or the caller gets an
+     * {@link IngestRejectedException} and no sink does. BLOCK waits at most {@code block-timeout-ms}
+     * in total, not per stage.
+     * <p>
+     * Under SPILL, stages without a free slot spill to disk, durable sinks ({@link IngestSink#durable()})
+     * last. If a spill fails the submit is rejected and nothing is enqueued, but best-effort sinks
+     * that already spilled keep their copy; a rejected submit never leaves the event in a durable
+     * sink, so a client retry cannot duplicate it there.
+     *
+     * @throws IngestRejectedException if a sink queue is full and the policy does not allow waiting it out
+     */
+    public void submit(LogEvent event) {
+        List<SinkStage> reserved = new ArrayList<>(stages.size());
+        List<SinkStage> overflow = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        try {
+            for (SinkStage stage : stages) {
+                if (reserve(stage, deadline)) {
+                    reserved.add(stage);
+                } else if (policy == BackpressurePolicy.SPILL) {
+                    overflow.add(stage);
+                } else {
+                    stage.rejected();
+                    throw new IngestRejectedException(policy == BackpressurePolicy.BLOCK
+                            ? "Timed out waiting for room in ingest queue '" + stage.name() + "'"
+                            : "Ingest queue for '" + stage.name() + "' is full");
+                }
+            }
+            overflow.sort(Comparator.comparing(SinkStage::durable));
+            for (SinkStage stage : overflow) {
+                spill(stage, event);
+            }
+        } catch (RuntimeException e) {
+            reserved.forEach(SinkStage::release);
+            throw e;
+        }
+        reserved.forEach(stage -> stage.enqueue(event));
+    }
+
+    /** Current depth of every sink queue, keyed by sink name. */
+    public Map<String, Integer> queueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        stages.forEach(s -> depths.put(s.name(), s.depth()));
+        return depths;
+    }
+
+    private boolean reserve(SinkStage stage, long deadlineNanos) {
+        if (policy != BackpressurePolicy.BLOCK) return stage.tryReserve();
+        try {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            return stage.reserve(Math.max(remainingMs, 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestRejectedException("Interrupted while waiting for ingest queue '" + stage.name() + "'");
+        }
+    }
+
+    private void spill(SinkStage stage, LogEvent event) {
+        try {
+            stage.spill(event);
+        } catch (IOException e) {
+            stage.rejected();
+            throw new IngestRejectedException("Ingest queue '" + stage.name() + "' is full and spilling failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+
+/**
+ * A downstream destination of the ingest pipeline (Kafka, Elasticsearch, Redis, ...).
+ * Each sink is drained by its own worker pool, so a slow sink never delays the others.
+ */
+public interface IngestSink {
+
+    /** Short name used for thread names, spill files and logging. */
+    String name();
+
+    void write(LogEvent event) throws Exception;
+
+    /**
+     * Whether this sink is the durable record of an ingested log. The pipeline commits to durable
+     * sinks last, so a submit that fails never leaves the log behind in one of them.
+     */
+    default boolean durable() {
+        return false;
+    }
+}
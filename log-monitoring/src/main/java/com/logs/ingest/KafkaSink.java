@@ -0,0 +1,49 @@
+package com.logs.ingest;
+
+import com.logs.metrics.RemoteCallMetrics;
+import com.logs.model.LogEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes ingested logs to the {@code log-events} topic (binary {@link com.logs.kafka.LogEventCodec} payload),
+ * keyed by service name so a service's logs stay ordered within one partition.
+ * Sends are fire-and-forget; failures are only logged. Send-to-ack time is recorded as
+ * {@code remote.calls{system=kafka,operation=send}}.
+ */
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class KafkaSink implements IngestSink {
+
+    public static final String TOPIC_NAME = "log-events";
+
+    private final KafkaTemplate<String, LogEvent> kafkaTemplate;
+    private final RemoteCallMetrics remoteCallMetrics;
+
+    @Override
+    public String name() {
+        return "kafka";
+    }
+
+    @Override
+    public boolean durable() {
+        return true;
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        long start = System.nanoTime();
+        kafkaTemplate.send(TOPIC_NAME, event.getServiceName(), event)
+                .whenComplete((result, e) -> {
+                    remoteCallMetrics.record("kafka", "send", start, e);
+                    if (e != null) {
+                        log.error("Failed to publish log {} to Kafka: {}", event.getId(), e.getMessage());
+                    }
+                });
+    }
+}
@@ -0,0 +1,28 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import com.logs.stream.LiveTailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the in-memory live tail (SSE). Viewers see the logs ingested by this instance.
+ */
+@Component
+@Order(4)
+@RequiredArgsConstructor
+public class LiveTailSink implements IngestSink {
+
+    private final LiveTailService liveTailService;
+
+    @Override
+    public String name() {
+        return "live-tail";
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        liveTailService.publish(event);
+    }
+}
@@ -0,0 +1,120 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.data.elasticsearch.BulkFailureException.FailureDetails;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Indexes the {@code log-events} topic into Elasticsearch, one _bulk request per polled batch.
+ * The listener container commits offsets only after this method returns, i.e. after ES has
+ * acknowledged the batch; throwing makes the container re-deliver the batch.
+ * <p>
+ * Records that cannot be decoded are copied, as raw bytes, to {@value #DLT_NAME} before their
+ * offsets are committed, so nothing is lost and they can be replayed once a consumer can read them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "logs.ingest", name = "index-mode", havingValue = "kafka", matchIfMissing = true)
+public class LogEventConsumer {
+
+    public static final String DLT_NAME = KafkaSink.TOPIC_NAME + ".DLT";
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(LogEventConsumer.class);
+
+    private final BulkIndexer bulkIndexer;
+    private final KafkaTemplate<String, byte[]> deadLetters;
+
+    public LogEventConsumer(BulkIndexer bulkIndexer,
+                            @Qualifier("deadLetterTemplate") KafkaTemplate<String, byte[]> deadLetters) {
+        this.bulkIndexer = bulkIndexer;
+        this.deadLetters = deadLetters;
+    }
+
+    @KafkaListener(topics = KafkaSink.TOPIC_NAME, containerFactory = "kafkaListenerContainerFactory")
+    public void onBatch(List<ConsumerRecord<String, LogEvent>> records) {
+        List<LogEvent> events = new ArrayList<>(records.size());
+        List<CompletableFuture<?>> deadLettered = new ArrayList<>();
+        for (ConsumerRecord<String, LogEvent> record : records) {
+            if (record.value() == null) {
+                // ErrorHandlingDeserializer hands us null for a payload it could not decode;
+                // retrying will not help, so park it in the DLT rather than block the partition
+                DeserializationException failure = SerializationUtils.getExceptionFromHeader(
+                        record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+                if (failure == null || failure.getData() == null) continue; // tombstone
+                log.error("Dead-lettering unreadable record {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), failure.getMessage());
+                deadLettered.add(deadLetters.send(deadLetter(record, failure)));
+                continue;
+            }
+            // payloads from producers older than codec v2 carry no template yet
+            MessageFingerprint.fill(record.value());
+            events.add(record.value());
+        }
+
+        awaitDeadLetters(deadLettered);
+        Map<String, FailureDetails> failures = bulkIndexer.indexNow(events);
+
+        int retryable = 0;
+        for (Map.Entry<String, FailureDetails> f : failures.entrySet()) {
+            if (isRetryable(f.getValue())) {
+                retryable++;
+            } else {
+                log.error("Dropping log {} rejected by ES: {}", f.getKey(), f.getValue().errorMessage());
+            }
+        }
+        if (retryable > 0) {
+            // Documents carry stable ids, so re-indexing the whole batch does not create duplicates
+            throw new IllegalStateException(retryable + " of " + events.size() + " logs were not indexed; retrying batch");
+        }
+        log.debug("Indexed {} logs from Kafka", events.size() - failures.size());
+    }
+
+    /** Offsets must not be committed before the DLT has the unreadable records; failing re-delivers the batch. */
+    private static void awaitDeadLetters(List<CompletableFuture<?>> sends) {
+        if (sends.isEmpty()) return;
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while dead-lettering records", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not dead-letter " + sends.size() + " unreadable records; retrying batch", e);
+        }
+    }
+
+    /** Same headers as spring-kafka's DeadLetterPublishingRecoverer, so standard replay tooling works. */
+    static ProducerRecord<String, byte[]> deadLetter(ConsumerRecord<String, ?> record, DeserializationException failure) {
+        ProducerRecord<String, byte[]> out = new ProducerRecord<>(DLT_NAME, record.key(), failure.getData());
+        out.headers()
+                .add(KafkaHeaders.DLT_ORIGINAL_TOPIC, record.topic().getBytes(StandardCharsets.UTF_8))
+                .add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(record.partition()).array())
+                .add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(record.offset()).array())
+                .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(failure.getMessage()).getBytes(StandardCharsets.UTF_8));
+        return out;
+    }
+
+    private static boolean isRetryable(FailureDetails details) {
+        Integer status = details.status();
+        return status == null || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,145 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+
+/**
+ * Reduces a log message to its template so that repeats of the same statement group together:
+ * quoted values become {@code <STR>}, UUIDs {@code <UUID>}, hex values {@code <HEX>} and numbers
+ * {@code <NUM>}. The template and a 64-bit hash of it are stored on the event at ingest, which turns
+ * "top error patterns" into a plain terms aggregation on {@code templateHash}.
+ * <p>
+ * Single pass, no regex: this runs on the request thread for every accepted log.
+ */
+public final class MessageFingerprint {
+
+    /** Longest template kept; the hash covers only what is kept. */
+    static final int MAX_TEMPLATE_LENGTH = 1024;
+
+    private MessageFingerprint() {
+    }
+
+    /** Set messageTemplate/templateHash from the message unless already present. */
+    public static void fill(LogEvent event) {
+        if (event.getTemplateHash() != null || event.getMessage() == null) return;
+        String template = template(event.getMessage());
+        event.setMessageTemplate(template);
+        event.setTemplateHash(hash(template));
+    }
+
+    public static String template(String message) {
+        int n = message.length();
+        StringBuilder out = new StringBuilder(Math.min(n, MAX_TEMPLATE_LENGTH) + 16);
+        int i = 0;
+        while (i < n && out.length() < MAX_TEMPLATE_LENGTH) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\'') {
+                int close = message.indexOf(c, i + 1);
+                // an apostrophe inside a word ("can't") is not a quote
+                boolean word = c == '\'' && i > 0 && Character.isLetterOrDigit(message.charAt(i - 1));
+                if (close > i && !word) {
+                    out.append(c).append("<STR>").append(c);
+                    i = close + 1;
+                    continue;
+                }
+                out.append(c);
+                i++;
+            } else if (isAlnum(c)) {
+                if (isUuidAt(message, i)) {
+                    out.append("<UUID>");
+                    i += 36;
+                    continue;
+                }
+                int end = i;
+                while (end < n && isAlnum(message.charAt(end))) end++;
+                appendToken(out, message, i, end);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        if (out.length() > MAX_TEMPLATE_LENGTH) out.setLength(MAX_TEMPLATE_LENGTH);
+        return out.toString();
+    }
+
+    private static void appendToken(StringBuilder out, String s, int start, int end) {
+        int len = end - start;
+        boolean digits = true, hex = true, anyDigit = false;
+        for (int k = start; k < end; k++) {
+            char c = s.charAt(k);
+            boolean d = c >= '0' && c <= '9';
+            anyDigit |= d;
+            digits &= d;
+            hex &= d || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+        }
+        if (digits) {
+            out.append("<NUM>");
+            return;
+        }
+        if (len > 2 && s.charAt(start) == '0' && (s.charAt(start + 1) == 'x' || s.charAt(start + 1) == 'X')
+                && isHex(s, start + 2, end)) {
+            out.append("<HEX>");
+            return;
+        }
+        if (hex && anyDigit && len >= 8) {
+            out.append("<HEX>");
+            return;
+        }
+        if (!anyDigit) {
+            out.append(s, start, end);
+            return;
+        }
+        // word with digits inside (user42, v2beta): keep the letters, mask digit runs
+        int k = start;
+        while (k < end) {
+            char c = s.charAt(k);
+            if (c >= '0' && c <= '9') {
+                while (k < end && s.charAt(k) >= '0' && s.charAt(k) <= '9') k++;
+                out.append("<NUM>");
+            } else {
+                out.append(c);
+                k++;
+            }
+        }
+    }
+
+    private static boolean isUuidAt(String s, int i) {
+        if (i + 36 > s.length()) return false;
+        if (i > 0 && isAlnum(s.charAt(i - 1))) return false;
+        if (i + 36 < s.length() && isAlnum(s.charAt(i + 36))) return false;
+        for (int k = 0; k < 36; k++) {
+            char c = s.charAt(i + k);
+            if (k == 8 || k == 13 || k == 18 || k == 23) {
+                if (c != '-') return false;
+            } else if (!isHexChar(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHex(String s, int start, int end) {
+        for (int k = start; k < end; k++) {
+            if (!isHexChar(s.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isHexChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isAlnum(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    /** FNV-1a 64-bit, as 16 hex chars. */
+    public static String hash(String template) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < template.length(); i++) {
+            h ^= template.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return String.format("%016x", h);
+    }
+}
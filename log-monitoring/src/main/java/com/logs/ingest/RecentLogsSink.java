@@ -0,0 +1,26 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import com.logs.repository.CacheRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Keeps the last few logs in Redis for the dashboard. */
+@Component
+@Order(3)
+@RequiredArgsConstructor
+public class RecentLogsSink implements IngestSink {
+
+    private final CacheRepository cacheRepository;
+
+    @Override
+    public String name() {
+        return "recent-logs";
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        cacheRepository.pushRecentLog(event);
+    }
+}
@@ -0,0 +1,26 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import com.logs.service.ServiceRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Marks the log's service as active for alert evaluation. */
+@Component
+@Order(6)
+@RequiredArgsConstructor
+public class ServiceRegistrySink implements IngestSink {
+
+    private final ServiceRegistry serviceRegistry;
+
+    @Override
+    public String name() {
+        return "service-registry";
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        serviceRegistry.record(event);
+    }
+}
@@ -0,0 +1,26 @@
+package com.logs.ingest;
+
+import com.logs.metrics.ServiceStatsService;
+import com.logs.model.LogEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/** Updates the per-service counters behind /api/services/stats. */
+@Component
+@Order(7)
+@RequiredArgsConstructor
+public class ServiceStatsSink implements IngestSink {
+
+    private final ServiceStatsService serviceStatsService;
+
+    @Override
+    public String name() {
+        return "service-stats";
+    }
+
+    @Override
+    public void write(LogEvent event) {
+        serviceStatsService.record(event);
+    }
+}
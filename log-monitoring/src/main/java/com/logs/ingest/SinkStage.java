@@ -0,0 +1,306 @@
+package com.logs.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+
+/**
+ * One pipeline stage: a bounded queue in front of a single sink, drained by a dedicated worker pool.
+ * When spilling is enabled, overflow is appended to {@code <spillDir>/<sink>.ndjson} and fed back
+ * into the queue once it has drained below half its capacity. Replay records its byte offset in
+ * {@code <sink>.replaying.offset}, so a restart resumes after the last line it enqueued, and lines
+ * that do not decode are moved to {@code <sink>.quarantine.ndjson} instead of blocking the file.
+ * <p>
+ * Queue capacity is handed out as reservations ({@link #tryReserve()} / {@link #reserve(long)}) so
+ * the pipeline can secure a slot on every stage before it enqueues anywhere; a reserved slot is
+ * only given back once a worker has taken the event off the queue.
+ * <p>
+ * Metrics, tagged by sink: {@code ingest.queue.depth}, {@code ingest.sink.write} (per log, by
+ * outcome) and {@code ingest.rejected} (logs refused or dropped because the queue was full).
+ */
+@Slf4j
+class SinkStage {
+
+    /** Persist the replay offset after this many lines, so a crash re-sends at most that many. */
+    private static final int CHECKPOINT_EVERY = 100;
+
+    private final IngestSink sink;
+    private final BlockingQueue<LogEvent> queue;
+    private final Semaphore slots;
+    private final int capacity;
+    private final int workers;
+    private final ObjectMapper mapper;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path replayOffsetFile;
+    private final Path quarantineFile;
+    private final Timer writeOk;
+    private final Timer writeFailed;
+    private final Counter rejected;
+
+    private final Object spillLock = new Object();
+    private ExecutorService workerPool;
+    private ScheduledExecutorService replayer;
+    private volatile boolean running;
+
+    SinkStage(IngestSink sink, int capacity, int workers, ObjectMapper mapper, Path spillDir, MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.slots = new Semaphore(capacity);
+        this.workers = Math.max(workers, 1);
+        this.mapper = mapper;
+        this.spillFile = spillDir != null ? spillDir.resolve(sink.name() + ".ndjson") : null;
+        this.replayFile = spillDir != null ? spillDir.resolve(sink.name() + ".replaying.ndjson") : null;
+        this.replayOffsetFile = spillDir != null ? spillDir.resolve(sink.name() + ".replaying.offset") : null;
+        this.quarantineFile = spillDir != null ? spillDir.resolve(sink.name() + ".quarantine.ndjson") : null;
+        this.writeOk = Timer.builder("ingest.sink.write").tag("sink", sink.name()).tag("outcome", "success").register(meterRegistry);
+        this.writeFailed = Timer.builder("ingest.sink.write").tag("sink", sink.name()).tag("outcome", "error").register(meterRegistry);
+        this.rejected = Counter.builder("ingest.rejected").tag("sink", sink.name()).register(meterRegistry);
+        Gauge.builder("ingest.queue.depth", queue, BlockingQueue::size).tag("sink", sink.name()).register(meterRegistry);
+    }
+
+    String name() {
+        return sink.name();
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    boolean durable() {
+        return sink.durable();
+    }
+
+    /** Count a log this stage could not take. */
+    void rejected() {
+        rejected.increment();
+    }
+
+    void start() {
+        running = true;
+        workerPool = Executors.newFixedThreadPool(workers, named("ingest-" + sink.name()));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::drainLoop);
+        }
+        if (spillFile != null) {
+            replayer = Executors.newSingleThreadScheduledExecutor(named("ingest-" + sink.name() + "-replay"));
+            replayer.scheduleWithFixedDelay(this::replaySpill, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Stop the workers, giving queued events up to {@code timeoutMs} to drain. */
+    void stop(long timeoutMs) {
+        running = false;
+        if (replayer != null) replayer.shutdownNow();
+        if (workerPool == null) return;
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Ingest stage '{}' stopped with {} undelivered logs", sink.name(), queue.size());
+        }
+    }
+
+    /** Reserve a queue slot without waiting. */
+    boolean tryReserve() {
+        return slots.tryAcquire();
+    }
+
+    /** Reserve a queue slot, waiting up to {@code timeoutMs} for one to free up. */
+    boolean reserve(long timeoutMs) throws InterruptedException {
+        return slots.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Give back a slot reserved but not used. */
+    void release() {
+        slots.release();
+    }
+
+    /** Enqueue into a previously reserved slot; never blocks. */
+    void enqueue(LogEvent event) {
+        queue.add(event);
+    }
+
+    /** Append the event to this stage's spill file. */
+    void spill(LogEvent event) throws IOException {
+        String line = mapper.writeValueAsString(event);
+        synchronized (spillLock) {
+            try (BufferedWriter w = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                w.write(line);
+                w.newLine();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            LogEvent event;
+            try {
+                event = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event == null) continue;
+            slots.release();
+            long start = System.nanoTime();
+            try {
+                sink.write(event);
+                writeOk.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                writeFailed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.error("Ingest sink '{}' failed for log from {}: {}", sink.name(), event.getServiceName(), e.getMessage());
+            }
+        }
+    }
+
+    private void replaySpill() {
+        if (queue.size() > capacity / 2) return;
+        long offset;
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) return;
+                    Files.deleteIfExists(replayOffsetFile);
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            offset = readReplayOffset();
+        } catch (IOException e) {
+            log.error("Replaying spill file for ingest stage '{}' failed: {}", sink.name(), e.getMessage());
+            return;
+        }
+
+        int replayed = 0;
+        int quarantined = 0;
+        int lines = 0;
+        boolean finished = false;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(replayFile))) {
+            in.skipNBytes(offset);
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            int read;
+            while (running && (read = readLine(in, buf)) >= 0) {
+                String line = buf.toString(StandardCharsets.UTF_8);
+                if (!line.isBlank()) {
+                    LogEvent event = decode(line);
+                    if (event == null) {
+                        quarantine(line);
+                        quarantined++;
+                    } else {
+                        slots.acquire();
+                        queue.add(event);
+                        replayed++;
+                    }
+                }
+                offset += read;
+                if (++lines % CHECKPOINT_EVERY == 0) writeReplayOffset(offset);
+            }
+            finished = running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Replaying spill file for ingest stage '{}' failed: {}", sink.name(), e.getMessage());
+        }
+
+        try {
+            if (finished) {
+                Files.deleteIfExists(replayFile);
+                Files.deleteIfExists(replayOffsetFile);
+            } else {
+                writeReplayOffset(offset);
+            }
+        } catch (IOException e) {
+            log.error("Recording replay progress for ingest stage '{}' failed: {}", sink.name(), e.getMessage());
+        }
+        if (replayed > 0 || quarantined > 0) {
+            log.info("Replayed {} spilled logs into ingest stage '{}' ({} quarantined)", replayed, sink.name(), quarantined);
+        }
+    }
+
+    private LogEvent decode(String line) {
+        try {
+            return mapper.readValue(line, LogEvent.class);
+        } catch (IOException e) {
+            log.warn("Quarantining undecodable spilled log for ingest stage '{}': {}", sink.name(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void quarantine(String line) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(quarantineFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(line);
+            w.newLine();
+        }
+    }
+
+    private long readReplayOffset() throws IOException {
+        if (!Files.exists(replayOffsetFile)) return 0;
+        try {
+            return Long.parseLong(Files.readString(replayOffsetFile, StandardCharsets.UTF_8).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring unreadable replay offset for ingest stage '{}'", sink.name());
+            return 0;
+        }
+    }
+
+    private void writeReplayOffset(long offset) throws IOException {
+        Path tmp = replayOffsetFile.resolveSibling(replayOffsetFile.getFileName() + ".tmp");
+        Files.writeString(tmp, Long.toString(offset), StandardCharsets.UTF_8);
+        Files.move(tmp, replayOffsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read one line into {@code buf}, without its terminator.
+     *
+     * @return bytes consumed including the newline, or -1 at end of input
+     */
+    private static int readLine(InputStream in, ByteArrayOutputStream buf) throws IOException {
+        buf.reset();
+        int consumed = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            consumed++;
+            if (b == '\n') return consumed;
+            if (b != '\r') buf.write(b);
+        }
+        return consumed == 0 ? -1 : consumed;
+    }
+
+    private static ThreadFactory named(String prefix) {
+        return new ThreadFactory() {
+            private int n;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + "-" + (n++));
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+}
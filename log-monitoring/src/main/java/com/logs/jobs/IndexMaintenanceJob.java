@@ -0,0 +1,29 @@
+package com.logs.jobs;
+
+import com.logs.alerting.ClusterMembership;
+import com.logs.index.LogIndexManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexMaintenanceJob {
+
+    /** Only the instance owning this key on the cluster ring drops expired indices. */
+    static final String OWNER_KEY = "__index-retention";
+
+    private final LogIndexManager indexManager;
+    private final ClusterMembership cluster;
+
+    @Scheduled(fixedDelayString = "${logs.index.maintenance-ms:3600000}", initialDelay = 60_000L)
+    public void run() {
+        try {
+            indexManager.maintain(cluster.owns(OWNER_KEY));
+        } catch (RuntimeException e) {
+            log.warn("Log index maintenance failed, will retry next run: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.logs.jobs;
+
+import com.logs.alerting.ClusterMembership;
+import com.logs.rollup.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "logs.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RollupJob {
+
+    /** Hashed onto the instance ring like a service name, so exactly one instance rolls up. */
+    static final String OWNER_KEY = "__rollup";
+
+    private final RollupService rollupService;
+    private final ClusterMembership cluster;
+
+    @Scheduled(fixedDelayString = "${logs.rollup.interval-ms:60000}", initialDelay = 15_000L)
+    public void run() {
+        if (!cluster.owns(OWNER_KEY)) return;
+        try {
+            rollupService.rollUp();
+        } catch (RuntimeException e) {
+            log.warn("Rollup failed, will retry next run: {}", e.getMessage());
+        }
+    }
+}
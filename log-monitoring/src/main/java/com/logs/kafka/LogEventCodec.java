@@ -0,0 +1,287 @@
+package com.logs.kafka;
+
+import com.logs.enums.Environment;
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Compact binary wire format for {@link LogEvent} on the {@code log-events} topic.
+ *
+ * <pre>
+ * magic    : 1 byte  'L'
+ * version  : 1 byte  (currently 2; 2 added messageTemplate and templateHash)
+ * presence : varint  bit per field below, set when the field is non-null
+ * fields   : in bit order, only those present
+ *            strings  -> varint byte length + UTF-8 bytes
+ *            enums    -> 1 byte code (tables below are append-only)
+ *            latency  -> varint
+ *            timestamp-> zig-zag varlong epoch seconds + varint nanos
+ * </pre>
+ *
+ * Evolution is append-only: a new field gets the next presence bit, is written after all
+ * existing ones, and bumps the version. Old payloads stay readable, and a reader meeting a newer
+ * version reads the fields it knows and ignores the unknown trailing ones, so consumers that are
+ * not yet upgraded keep working during a rolling deploy. A change that cannot be expressed this
+ * way needs a new magic byte.
+ */
+public final class LogEventCodec {
+
+    static final byte MAGIC = 'L';
+    static final byte VERSION = 2;
+
+    private static final int F_ID = 1;
+    private static final int F_SERVICE = 1 << 1;
+    private static final int F_ENV = 1 << 2;
+    private static final int F_TENANT = 1 << 3;
+    private static final int F_LEVEL = 1 << 4;
+    private static final int F_MESSAGE = 1 << 5;
+    private static final int F_TRACE = 1 << 6;
+    private static final int F_LATENCY = 1 << 7;
+    private static final int F_STACK = 1 << 8;
+    private static final int F_TIMESTAMP = 1 << 9;
+    private static final int F_TEMPLATE = 1 << 10;
+    private static final int F_TEMPLATE_HASH = 1 << 11;
+
+    // Wire codes; never reorder, only append
+    private static final LogLevel[] LEVELS = {LogLevel.INFO, LogLevel.WARN, LogLevel.ERROR, LogLevel.DEBUG};
+    private static final Environment[] ENVS = {Environment.STAGE, Environment.PROD, Environment.DEV};
+
+    private LogEventCodec() {
+    }
+
+    /** Encode into {@code out}, which is reset first. */
+    public static void encode(LogEvent e, Buffer out) {
+        out.reset();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+
+        int presence = 0;
+        if (e.getId() != null) presence |= F_ID;
+        if (e.getServiceName() != null) presence |= F_SERVICE;
+        if (e.getEnv() != null) presence |= F_ENV;
+        if (e.getTenant() != null) presence |= F_TENANT;
+        if (e.getLevel() != null) presence |= F_LEVEL;
+        if (e.getMessage() != null) presence |= F_MESSAGE;
+        if (e.getTraceId() != null) presence |= F_TRACE;
+        if (e.getLatencyMs() != null) presence |= F_LATENCY;
+        if (e.getStack() != null) presence |= F_STACK;
+        if (e.getTimestamp() != null) presence |= F_TIMESTAMP;
+        if (e.getMessageTemplate() != null) presence |= F_TEMPLATE;
+        if (e.getTemplateHash() != null) presence |= F_TEMPLATE_HASH;
+        out.writeVarInt(presence);
+
+        if ((presence & F_ID) != 0) out.writeString(e.getId());
+        if ((presence & F_SERVICE) != 0) out.writeString(e.getServiceName());
+        if ((presence & F_ENV) != 0) out.writeByte(code(ENVS, e.getEnv()));
+        if ((presence & F_TENANT) != 0) out.writeString(e.getTenant());
+        if ((presence & F_LEVEL) != 0) out.writeByte(code(LEVELS, e.getLevel()));
+        if ((presence & F_MESSAGE) != 0) out.writeString(e.getMessage());
+        if ((presence & F_TRACE) != 0) out.writeString(e.getTraceId());
+        if ((presence & F_LATENCY) != 0) out.writeVarInt(e.getLatencyMs());
+        if ((presence & F_STACK) != 0) out.writeString(e.getStack());
+        if ((presence & F_TIMESTAMP) != 0) {
+            out.writeVarLong(zigZag(e.getTimestamp().getEpochSecond()));
+            out.writeVarInt(e.getTimestamp().getNano());
+        }
+        if ((presence & F_TEMPLATE) != 0) out.writeString(e.getMessageTemplate());
+        if ((presence & F_TEMPLATE_HASH) != 0) out.writeString(e.getTemplateHash());
+    }
+
+    public static LogEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new SerializationException("Not a LogEvent payload (bad magic byte)");
+        }
+        int version = in.readByte();
+        if (version < 1) {
+            throw new SerializationException("Unsupported LogEvent payload version " + version);
+        }
+
+        int presence = in.readVarInt();
+        LogEvent e = new LogEvent();
+        if ((presence & F_ID) != 0) e.setId(in.readString());
+        if ((presence & F_SERVICE) != 0) e.setServiceName(in.readString());
+        if ((presence & F_ENV) != 0) e.setEnv(lookup(ENVS, in.readByte()));
+        if ((presence & F_TENANT) != 0) e.setTenant(in.readString());
+        if ((presence & F_LEVEL) != 0) e.setLevel(lookup(LEVELS, in.readByte()));
+        if ((presence & F_MESSAGE) != 0) e.setMessage(in.readString());
+        if ((presence & F_TRACE) != 0) e.setTraceId(in.readString());
+        if ((presence & F_LATENCY) != 0) e.setLatencyMs(in.readVarInt());
+        if ((presence & F_STACK) != 0) e.setStack(in.readString());
+        if ((presence & F_TIMESTAMP) != 0) {
+            long seconds = unZigZag(in.readVarLong());
+            e.setTimestamp(Instant.ofEpochSecond(seconds, in.readVarInt()));
+        }
+        if ((presence & F_TEMPLATE) != 0) e.setMessageTemplate(in.readString());
+        if ((presence & F_TEMPLATE_HASH) != 0) e.setTemplateHash(in.readString());
+        // bits above F_TEMPLATE_HASH belong to newer versions; their bytes follow and are skipped
+        return e;
+    }
+
+    private static <T> int code(T[] table, T value) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == value) return i;
+        }
+        throw new SerializationException("No wire code for " + value);
+    }
+
+    private static <T> T lookup(T[] table, int code) {
+        if (code < 0 || code >= table.length) {
+            throw new SerializationException("Unknown wire code " + code);
+        }
+        return table[code];
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Growable byte buffer meant to be reused across records (one per thread).
+     * Strings are UTF-8 encoded straight into the backing array.
+     */
+    public static final class Buffer {
+        private byte[] buf;
+        private int len;
+
+        public Buffer(int initialCapacity) {
+            this.buf = new byte[Math.max(initialCapacity, 16)];
+        }
+
+        public void reset() {
+            len = 0;
+        }
+
+        public int length() {
+            return len;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, len);
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+        }
+
+        void writeVarInt(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void writeString(String s) {
+            int utf8Len = utf8Length(s);
+            writeVarInt(utf8Len);
+            ensure(utf8Len);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buf[len++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[len++] = (byte) (0xC0 | (c >> 6));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[len++] = (byte) (0xF0 | (cp >> 18));
+                    buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buf[len++] = (byte) '?'; // unpaired surrogate, same as String.getBytes(UTF_8)
+                } else {
+                    buf[len++] = (byte) (0xE0 | (c >> 12));
+                    buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private static int utf8Length(String s) {
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) n += 1;
+                else if (c < 0x800) n += 2;
+                else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    n += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) n += 1;
+                else n += 3;
+            }
+            return n;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (pos >= data.length) throw new SerializationException("Truncated LogEvent payload");
+            return data[pos++];
+        }
+
+        int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new SerializationException("Malformed varint in LogEvent payload");
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new SerializationException("Malformed varlong in LogEvent payload");
+        }
+
+        String readString() {
+            int n = readVarInt();
+            if (n < 0 || pos + n > data.length) throw new SerializationException("Truncated LogEvent payload");
+            String s = new String(data, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
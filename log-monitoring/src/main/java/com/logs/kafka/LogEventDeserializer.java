@@ -0,0 +1,13 @@
+package com.logs.kafka;
+
+import com.logs.model.LogEvent;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/** Kafka deserializer for {@link LogEvent} payloads written by {@link LogEventSerializer}. */
+public class LogEventDeserializer implements Deserializer<LogEvent> {
+
+    @Override
+    public LogEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : LogEventCodec.decode(data);
+    }
+}
@@ -0,0 +1,22 @@
+package com.logs.kafka;
+
+import com.logs.model.LogEvent;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer for {@link LogEvent} using {@link LogEventCodec}.
+ * Encoding happens in a per-thread reusable buffer; the only allocation per record is the returned array.
+ */
+public class LogEventSerializer implements Serializer<LogEvent> {
+
+    private static final ThreadLocal<LogEventCodec.Buffer> BUFFER =
+            ThreadLocal.withInitial(() -> new LogEventCodec.Buffer(512));
+
+    @Override
+    public byte[] serialize(String topic, LogEvent event) {
+        if (event == null) return null;
+        LogEventCodec.Buffer buf = BUFFER.get();
+        LogEventCodec.encode(event, buf);
+        return buf.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.logs.metrics;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Hands out connections that time each Redis command, tagged with the command name
+ * ({@code lpush}, {@code hincrby}, ...), whether it is called on the connection itself or on one of
+ * its command interfaces ({@code stringCommands()}, {@code listCommands()}, ..., which is the path
+ * {@code RedisTemplate} takes). Commands queued in a pipeline or transaction are not
+ * timed one by one; the round trip is recorded as {@code pipeline} when the pipeline is closed.
+ */
+class InstrumentedRedisConnectionFactory implements RedisConnectionFactory {
+
+    static final String SYSTEM = "redis";
+
+    // connection housekeeping, no round trip to Redis
+    private static final Set<String> NOT_TIMED = Set.of(
+            "close", "isClosed", "getNativeConnection", "isQueueing", "isPipelined", "openPipeline",
+            "getSentinelConnection", "multi", "discard", "watch", "unwatch");
+
+    private final RedisConnectionFactory delegate;
+    private final RemoteCallMetrics metrics;
+
+    InstrumentedRedisConnectionFactory(RedisConnectionFactory delegate, RemoteCallMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        RedisConnection target = delegate.getConnection();
+        return (RedisConnection) Proxy.newProxyInstance(RedisConnection.class.getClassLoader(),
+                new Class<?>[]{RedisConnection.class}, (proxy, method, args) -> invoke(target, method, args));
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        return delegate.getClusterConnection();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return delegate.getConvertPipelineAndTxResults();
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        return delegate.getSentinelConnection();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return delegate.translateExceptionIfPossible(ex);
+    }
+
+    private Object invoke(RedisConnection target, Method method, Object[] args) throws Throwable {
+        if (isCommandsAccessor(method)) {
+            Object commands = call(target, method, args);
+            return commands == null ? null : timedCommands(target, method.getReturnType(), commands);
+        }
+        return timed(target, method, target, args);
+    }
+
+    /** Wrap a command interface so its calls are timed like calls on the connection. */
+    private Object timedCommands(RedisConnection connection, Class<?> type, Object commands) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> timed(connection, method, commands, args));
+    }
+
+    private Object timed(RedisConnection connection, Method method, Object target, Object[] args) throws Throwable {
+        String operation = operation(connection, method);
+        if (operation == null) return call(target, method, args);
+        long start = System.nanoTime();
+        try {
+            Object result = call(target, method, args);
+            metrics.record(SYSTEM, operation, start, null);
+            return result;
+        } catch (Throwable e) {
+            metrics.record(SYSTEM, operation, start, e);
+            throw e;
+        }
+    }
+
+    /** {@code stringCommands()}, {@code listCommands()}, ... and {@code commands()}. */
+    static boolean isCommandsAccessor(Method method) {
+        String name = method.getName();
+        return (name.endsWith("Commands") || name.equals("commands"))
+                && method.getParameterCount() == 0
+                && method.getReturnType().isInterface();
+    }
+
+    /** Tag for a timed call, or null if the call is not timed. */
+    static String operation(RedisConnection target, Method method) {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class || NOT_TIMED.contains(name) || isCommandsAccessor(method)) {
+            return null;
+        }
+        if (name.equals("closePipeline")) return "pipeline";
+        if (target.isPipelined() || target.isQueueing()) return null;
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
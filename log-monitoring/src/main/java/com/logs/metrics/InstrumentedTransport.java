@@ -0,0 +1,71 @@
+package com.logs.metrics;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+import com.logs.search.QueryProfile;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Times every Elasticsearch request, tagged with the API it calls ({@code search}, {@code bulk}, ...),
+ * and reports it to the {@link QueryProfile} of the calling request, if any.
+ */
+class InstrumentedTransport implements ElasticsearchTransport {
+
+    static final String SYSTEM = "elasticsearch";
+
+    private final ElasticsearchTransport delegate;
+    private final RemoteCallMetrics metrics;
+
+    InstrumentedTransport(ElasticsearchTransport delegate, RemoteCallMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) throws IOException {
+        long start = System.nanoTime();
+        try {
+            ResponseT response = delegate.performRequest(request, endpoint, options);
+            metrics.record(SYSTEM, operation(endpoint), start, null);
+            QueryProfile.recordEsCall(System.nanoTime() - start, response, delegate.jsonpMapper());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            metrics.record(SYSTEM, operation(endpoint), start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) {
+        long start = System.nanoTime();
+        return delegate.performRequestAsync(request, endpoint, options)
+                .whenComplete((r, e) -> metrics.record(SYSTEM, operation(endpoint), start, e));
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return delegate.jsonpMapper();
+    }
+
+    @Override
+    public TransportOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /** "es/indices.exists_alias" -> "indices.exists_alias" */
+    static String operation(Endpoint<?, ?, ?> endpoint) {
+        String id = endpoint.id();
+        return id.startsWith("es/") ? id.substring(3) : id;
+    }
+}
@@ -0,0 +1,96 @@
+package com.logs.metrics;
+
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory per service/level log counts, fed from the ingest path, so alert rules can read
+ * "how many ERRORs in the last N minutes" without querying Elasticsearch.
+ * <p>
+ * Only logs ingested by this instance are counted. A count is returned only once the counters
+ * have been running for the whole window; before that (cold start), for windows longer than
+ * {@code logs.counters.window-seconds}, or when disabled, callers fall back to an ES count.
+ * <p>
+ * A service/level that has not logged for a whole window is dropped, so service names that come
+ * and go do not keep a ring each forever.
+ */
+@Service
+public class LogCounterService {
+
+    private final ConcurrentMap<Key, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int windowSeconds;
+    private final Clock clock;
+    private final Instant startedAt;
+
+    public LogCounterService(@Value("${logs.counters.enabled:true}") boolean enabled,
+                             @Value("${logs.counters.window-seconds:900}") int windowSeconds) {
+        this(enabled, windowSeconds, Clock.systemUTC());
+    }
+
+    LogCounterService(boolean enabled, int windowSeconds, Clock clock) {
+        this.enabled = enabled;
+        this.windowSeconds = Math.max(windowSeconds, 1);
+        this.clock = clock;
+        this.startedAt = clock.instant();
+    }
+
+    public void record(LogEvent event) {
+        if (!enabled || event.getServiceName() == null || event.getLevel() == null) return;
+        long now = clock.instant().getEpochSecond();
+        // Count by log time, but never ahead of the wall clock
+        long second = event.getTimestamp() == null ? now : Math.min(event.getTimestamp().getEpochSecond(), now);
+        Key key = new Key(event.getServiceName(), event.getLevel());
+        SlidingWindowCounter counter = counters.computeIfAbsent(key, k -> new SlidingWindowCounter(windowSeconds));
+        counter.increment(second);
+        // evicted while we were counting: carry the count over to the counter that replaced it
+        if (counters.get(key) != counter) handOver(key, counter, now);
+    }
+
+    /** Drop the counters of service/levels that have not logged for a whole window. */
+    @Scheduled(fixedDelayString = "${logs.counters.evict-ms:60000}")
+    public void evictIdle() {
+        long now = clock.instant().getEpochSecond();
+        for (Map.Entry<Key, SlidingWindowCounter> e : counters.entrySet()) {
+            SlidingWindowCounter counter = e.getValue();
+            if (counter.newestSecond() <= now - windowSeconds && counters.remove(e.getKey(), counter)) {
+                // a log may have landed between the check and the removal
+                handOver(e.getKey(), counter, now);
+            }
+        }
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    private void handOver(Key key, SlidingWindowCounter evicted, long now) {
+        long after = now - windowSeconds;
+        if (evicted.newestSecond() <= after) return;
+        evicted.transferTo(counters.computeIfAbsent(key, k -> new SlidingWindowCounter(windowSeconds)), after);
+    }
+
+    /** Logs of {@code level} for {@code serviceName} in the last {@code window}, if the counters can answer. */
+    public OptionalLong count(String serviceName, LogLevel level, Duration window) {
+        Instant now = clock.instant();
+        if (!enabled || window.getSeconds() > windowSeconds || startedAt.plus(window).isAfter(now)) {
+            return OptionalLong.empty();
+        }
+        SlidingWindowCounter counter = counters.get(new Key(serviceName, level));
+        return OptionalLong.of(counter == null ? 0 : counter.sum((int) window.getSeconds(), now.getEpochSecond()));
+    }
+
+    private record Key(String serviceName, LogLevel level) {
+    }
+}
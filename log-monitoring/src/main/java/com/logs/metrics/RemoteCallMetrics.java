@@ -0,0 +1,54 @@
+package com.logs.metrics;
+
+import co.elastic.clients.transport.ElasticsearchTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One timer family, {@code remote.calls}, for every call that leaves the process, tagged with
+ * {@code system} (elasticsearch, redis, kafka), {@code operation} and {@code outcome}
+ * (success, error). The clients are instrumented where they are built, so every caller is
+ * covered: the ES transport, the Redis connection factory behind each template, and the Kafka sink.
+ * Percentile histograms are switched on in {@code management.metrics.distribution}.
+ */
+@Component
+public class RemoteCallMetrics {
+
+    public static final String METRIC = "remote.calls";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public RemoteCallMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Record a call that started at {@code startNanos} ({@link System#nanoTime()}); {@code error} is null on success. */
+    public void record(String system, String operation, long startNanos, Throwable error) {
+        timer(system, operation, error == null).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    Timer timer(String system, String operation, boolean success) {
+        String outcome = success ? "success" : "error";
+        return timers.computeIfAbsent(system + '/' + operation + '/' + outcome, k -> Timer.builder(METRIC)
+                .description("Latency of calls to Elasticsearch, Redis and Kafka")
+                .tag("system", system)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    public ElasticsearchTransport instrument(ElasticsearchTransport transport) {
+        return new InstrumentedTransport(transport, this);
+    }
+
+    public RedisConnectionFactory instrument(RedisConnectionFactory connectionFactory) {
+        return new InstrumentedRedisConnectionFactory(connectionFactory, this);
+    }
+}
@@ -0,0 +1,264 @@
+package com.logs.metrics;
+
+import com.logs.cache.SingleFlightCache;
+import com.logs.dto.AggregatedLogStatsDTO;
+import com.logs.enums.LogLevel;
+import com.logs.enums.StatsWindow;
+import com.logs.model.LogEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per service/level log counts for /api/services/stats, merged across instances in Redis.
+ * <p>
+ * Ingest only bumps a local {@link LongAdder}. Every few seconds the deltas are added to a
+ * per-minute and a per-hour Redis hash by one Lua script, so every instance contributes to the
+ * same buckets. The script runs at most once per batch: a batch whose flush failed is retried
+ * with the same id, and a retry of a batch Redis did apply is a no-op instead of a double count.
+ * <p>
+ * Reads sum the buckets of the window and never query Elasticsearch. The current bucket is
+ * partial, so the bucket just before the window is added pro rata (e.g. at 10:17:42 the 5m
+ * window is 10:13–10:17 plus 30% of 10:12), assuming logs are spread evenly within it.
+ * Logs are counted by the time they were first flushed, not by log time.
+ */
+@Slf4j
+@Service
+public class ServiceStatsService {
+
+    static final String MINUTE_KEY = "svcstats:m:";
+    static final String HOUR_KEY = "svcstats:h:";
+
+    static final String BATCH_KEY = "svcstats:batch:";
+
+    // kept a little longer than the longest window they serve (plus its pro-rated bucket)
+    private static final Duration MINUTE_TTL = Duration.ofMinutes(65);
+    private static final Duration HOUR_TTL = Duration.ofHours(26);
+    // how long an applied batch id is remembered; longer than failed batches are retried
+    private static final Duration BATCH_TTL = Duration.ofHours(2);
+    private static final int MAX_RETRY_BATCHES = 720;
+    // a local counter that saw nothing for the shortest stats window is dropped
+    private static final Duration IDLE_EVICT = Duration.ofMinutes(5);
+
+    /** KEYS: minute hash, hour hash, batch marker. ARGV: TTLs (s) of those three, then field/delta pairs. */
+    private static final RedisScript<Long> APPLY_BATCH = RedisScript.of("""
+            if not redis.call('SET', KEYS[3], '1', 'NX', 'EX', ARGV[3]) then return 0 end
+            for i = 4, #ARGV, 2 do
+              redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+              redis.call('HINCRBY', KEYS[2], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /** One flush: its deltas, bucketed when it was first attempted, under a stable id. */
+    record Batch(String id, String minuteKey, String hourKey, Map<String, Long> deltas) {
+    }
+
+    private final StringRedisTemplate redis;
+    private final ConcurrentMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Map<String, Instant> idleSince = new HashMap<>();   // guarded by flush()
+    private final Deque<Batch> unacked = new ArrayDeque<>();
+    private final SingleFlightCache<StatsWindow, List<AggregatedLogStatsDTO>> reads;
+    private final Clock clock;
+
+    @Autowired
+    public ServiceStatsService(StringRedisTemplate redis,
+                               @Value("${logs.service-stats.read-ttl-ms:2000}") long readTtlMs) {
+        this(redis, readTtlMs, Clock.systemUTC());
+    }
+
+    ServiceStatsService(StringRedisTemplate redis, long readTtlMs, Clock clock) {
+        this.redis = redis;
+        this.reads = new SingleFlightCache<>(Duration.ofMillis(readTtlMs));
+        this.clock = clock;
+    }
+
+    /** Called from the ingest path; no I/O, no locks once the service/level has been seen. */
+    public void record(LogEvent event) {
+        String svc = event.getServiceName();
+        if (svc == null || svc.isBlank() || event.getLevel() == null) return;
+        String field = field(svc, event.getLevel());
+        LongAdder count = pending.computeIfAbsent(field, k -> new LongAdder());
+        count.increment();
+        if (pending.get(field) != count) {
+            // dropped as idle while we counted: whatever the flush did not take moves to the live counter
+            long late = count.sumThenReset();
+            if (late != 0) pending.computeIfAbsent(field, k -> new LongAdder()).add(late);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${logs.service-stats.flush-ms:5000}")
+    public synchronized void flush() {
+        Instant now = clock.instant();
+        Map<String, Long> deltas = drain(now);
+        if (!deltas.isEmpty()) {
+            unacked.addLast(new Batch(UUID.randomUUID().toString(),
+                    bucketKey(ChronoUnit.MINUTES, now), bucketKey(ChronoUnit.HOURS, now), deltas));
+            while (unacked.size() > MAX_RETRY_BATCHES) {
+                log.warn("Dropping unflushed service stats batch {}", unacked.removeFirst().id());
+            }
+        }
+        // oldest first, stop at the first failure and retry the rest (same ids) next time
+        while (!unacked.isEmpty()) {
+            try {
+                apply(unacked.peekFirst());
+            } catch (RuntimeException e) {
+                log.warn("Could not flush service stats ({} batches pending): {}", unacked.size(), e.getMessage());
+                return;
+            }
+            unacked.removeFirst();
+        }
+    }
+
+    /** Apply one batch; a no-op if Redis already applied a batch with this id. */
+    void apply(Batch batch) {
+        List<String> args = new ArrayList<>(3 + batch.deltas().size() * 2);
+        args.add(String.valueOf(MINUTE_TTL.toSeconds()));
+        args.add(String.valueOf(HOUR_TTL.toSeconds()));
+        args.add(String.valueOf(BATCH_TTL.toSeconds()));
+        batch.deltas().forEach((field, delta) -> {
+            args.add(field);
+            args.add(String.valueOf(delta));
+        });
+        redis.execute(APPLY_BATCH, List.of(batch.minuteKey(), batch.hourKey(), BATCH_KEY + batch.id()), args.toArray());
+    }
+
+    /** Counts per service over {@code window}, most errors first; {@code serviceName} may be null. */
+    public List<AggregatedLogStatsDTO> stats(StatsWindow window, String serviceName) {
+        List<AggregatedLogStatsDTO> all = reads.get(window, () -> load(window));
+        if (serviceName == null || serviceName.isBlank()) return all;
+        return all.stream().filter(s -> s.getServiceName().equals(serviceName)).toList();
+    }
+
+    private List<AggregatedLogStatsDTO> load(StatsWindow window) {
+        Instant now = clock.instant();
+        List<String> keys = bucketKeys(window, now);
+        List<Object> hashes = redis.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (String key : keys) operations.opsForHash().entries(key);
+                return null;
+            }
+        });
+        return merge(hashes, weights(window, now), now.toString());
+    }
+
+    /**
+     * Take and reset the local deltas; counters that saw nothing since the last flush are skipped,
+     * and dropped once they have been idle for {@link #IDLE_EVICT}.
+     */
+    Map<String, Long> drain(Instant now) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (Map.Entry<String, LongAdder> e : pending.entrySet()) {
+            String field = e.getKey();
+            long n = e.getValue().sumThenReset();
+            if (n != 0) {
+                deltas.put(field, n);
+                idleSince.remove(field);
+                continue;
+            }
+            Instant since = idleSince.computeIfAbsent(field, f -> now);
+            if (!since.plus(IDLE_EVICT).isAfter(now) && pending.remove(field, e.getValue())) {
+                idleSince.remove(field);
+                // removed first, then drained: a log that raced the removal is counted here or by record()
+                long late = e.getValue().sumThenReset();
+                if (late != 0) deltas.merge(field, late, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    int pendingSize() {
+        return pending.size();
+    }
+
+    /** Sum HGETALL results of several buckets, each scaled by its weight, into one row per service. */
+    static List<AggregatedLogStatsDTO> merge(List<?> hashes, List<Double> weights, String lastUpdated) {
+        Map<String, double[]> byService = new HashMap<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            if (!(hashes.get(i) instanceof Map<?, ?> fields)) continue;
+            double weight = i < weights.size() ? weights.get(i) : 1.0;
+            for (Map.Entry<?, ?> f : fields.entrySet()) {
+                String field = String.valueOf(f.getKey());
+                int sep = field.lastIndexOf('|');
+                if (sep <= 0) continue;
+                LogLevel level;
+                long count;
+                try {
+                    level = LogLevel.valueOf(field.substring(sep + 1));
+                    count = Long.parseLong(String.valueOf(f.getValue()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                double[] sums = byService.computeIfAbsent(field.substring(0, sep), svc -> new double[3]);
+                switch (level) {
+                    case ERROR -> sums[0] += count * weight;
+                    case WARN -> sums[1] += count * weight;
+                    case INFO -> sums[2] += count * weight;
+                    default -> { }
+                }
+            }
+        }
+        List<AggregatedLogStatsDTO> rows = new ArrayList<>(byService.size());
+        byService.forEach((svc, sums) -> rows.add(new AggregatedLogStatsDTO(
+                svc, Math.round(sums[0]), Math.round(sums[1]), Math.round(sums[2]), lastUpdated)));
+        rows.sort(Comparator.comparingLong(AggregatedLogStatsDTO::getErrorCount).reversed()
+                .thenComparing(Comparator.comparingLong(AggregatedLogStatsDTO::getWarnCount).reversed())
+                .thenComparing(AggregatedLogStatsDTO::getServiceName));
+        return rows;
+    }
+
+    /**
+     * Bucket keys of {@code window}, newest (partial) bucket first, followed by the bucket just
+     * before the window, which {@link #weights} only counts in part.
+     */
+    static List<String> bucketKeys(StatsWindow window, Instant now) {
+        List<String> keys = new ArrayList<>(window.buckets() + 1);
+        Instant bucket = now.truncatedTo(window.bucket());
+        for (int i = 0; i <= window.buckets(); i++) {
+            keys.add(bucketKey(window.bucket(), bucket.minus(i, window.bucket())));
+        }
+        return keys;
+    }
+
+    /**
+     * Weight of each of {@link #bucketKeys}: 1 for the buckets inside the window, and for the
+     * oldest one the share of it that still falls inside the window, so the sum spans exactly
+     * the window instead of one partial bucket less.
+     */
+    static List<Double> weights(StatsWindow window, Instant now) {
+        long bucketNanos = window.bucket().getDuration().toNanos();
+        long elapsed = Duration.between(now.truncatedTo(window.bucket()), now).toNanos();
+        List<Double> weights = new ArrayList<>(Collections.nCopies(window.buckets(), 1.0));
+        weights.add(1.0 - (double) elapsed / bucketNanos);
+        return weights;
+    }
+
+    static String bucketKey(ChronoUnit unit, Instant t) {
+        long epochSecond = t.truncatedTo(unit).getEpochSecond();
+        return unit == ChronoUnit.HOURS ? HOUR_KEY + epochSecond : MINUTE_KEY + epochSecond;
+    }
+
+    private static String field(String serviceName, LogLevel level) {
+        return serviceName + '|' + level.name();
+    }
+}
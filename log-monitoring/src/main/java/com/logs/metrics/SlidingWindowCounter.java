@@ -0,0 +1,94 @@
+package com.logs.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Event counter over a sliding window of one-second buckets. Buckets live in a fixed ring indexed
+ * by epoch second; a bucket left over from an earlier lap is swapped out with a CAS, so writers
+ * never lock and an increment always lands in the bucket of its own second.
+ */
+public class SlidingWindowCounter {
+
+    private final AtomicReferenceArray<Bucket> ring;
+    private final int seconds;
+
+    public SlidingWindowCounter(int seconds) {
+        this.seconds = Math.max(seconds, 1);
+        this.ring = new AtomicReferenceArray<>(this.seconds);
+    }
+
+    /** Longest window this counter can answer. */
+    public int seconds() {
+        return seconds;
+    }
+
+    /** Count one event at {@code epochSecond}. Events older than the ring are ignored. */
+    public void increment(long epochSecond) {
+        add(epochSecond, 1);
+    }
+
+    /** Count {@code n} events at {@code epochSecond}. Events older than the ring are ignored. */
+    public void add(long epochSecond, long n) {
+        int idx = (int) Math.floorMod(epochSecond, (long) seconds);
+        while (true) {
+            Bucket b = ring.get(idx);
+            if (b != null && b.second == epochSecond) {
+                b.count.add(n);
+                return;
+            }
+            if (b != null && b.second > epochSecond) {
+                return; // the slot already holds a newer second
+            }
+            Bucket fresh = new Bucket(epochSecond);
+            fresh.count.add(n);
+            if (ring.compareAndSet(idx, b, fresh)) return;
+        }
+    }
+
+    /** Latest second that has a bucket, or {@link Long#MIN_VALUE} if nothing was ever counted. */
+    public long newestSecond() {
+        long newest = Long.MIN_VALUE;
+        for (int i = 0; i < seconds; i++) {
+            Bucket b = ring.get(i);
+            if (b != null && b.second > newest) newest = b.second;
+        }
+        return newest;
+    }
+
+    /**
+     * Move the counts of seconds after {@code afterSecond} into {@code target}, leaving them at zero
+     * here. Each count is moved once even if several threads transfer concurrently.
+     */
+    public void transferTo(SlidingWindowCounter target, long afterSecond) {
+        for (int i = 0; i < seconds; i++) {
+            Bucket b = ring.get(i);
+            if (b == null || b.second <= afterSecond) continue;
+            long n = b.count.sumThenReset();
+            if (n != 0) target.add(b.second, n);
+        }
+    }
+
+    /** Events in the {@code windowSeconds} seconds ending at {@code nowEpochSecond} (inclusive). */
+    public long sum(int windowSeconds, long nowEpochSecond) {
+        int window = Math.min(Math.max(windowSeconds, 0), seconds);
+        long from = nowEpochSecond - window;
+        long total = 0;
+        for (int i = 0; i < seconds; i++) {
+            Bucket b = ring.get(i);
+            if (b != null && b.second > from && b.second <= nowEpochSecond) {
+                total += b.count.sum();
+            }
+        }
+        return total;
+    }
+
+    private static final class Bucket {
+        final long second;
+        final LongAdder count = new LongAdder();
+
+        Bucket(long second) {
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.logs.model;
+
+import com.logs.enums.AlertMetric;
+import com.logs.enums.AlertSeverity;
+import com.logs.enums.ThresholdOperator;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(indexName = "alert-rules")
+public class AlertRule {
+    @Id
+    private String id;                   // also the Alert.ruleId, e.g., error.rate.high
+
+    @Field(type = FieldType.Boolean)
+    @Builder.Default
+    private boolean enabled = true;
+
+    @Field(type = FieldType.Keyword)
+    private AlertMetric metric;          // what is measured over the window
+
+    @Field(type = FieldType.Integer)
+    private Integer windowMinutes;
+
+    @Field(type = FieldType.Keyword)
+    private ThresholdOperator operator;  // observed <op> threshold fires the alert
+
+    @Field(type = FieldType.Double)
+    private Double threshold;
+
+    @Field(type = FieldType.Keyword)
+    private AlertSeverity severity;
+
+    @Field(type = FieldType.Text)
+    private String note;
+
+    @Field(type = FieldType.Nested)
+    @Builder.Default
+    private List<ServiceOverride> overrides = new ArrayList<>();
+
+    /** Threshold for {@code serviceName}, or null when the rule is disabled for it. */
+    public Double effectiveThreshold(String serviceName) {
+        if (!enabled) return null;
+        if (overrides != null) {
+            for (ServiceOverride o : overrides) {
+                if (serviceName.equals(o.getServiceName())) {
+                    if (Boolean.FALSE.equals(o.getEnabled())) return null;
+                    if (o.getThreshold() != null) return o.getThreshold();
+                }
+            }
+        }
+        return threshold;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ServiceOverride {
+        @Field(type = FieldType.Keyword)
+        private String serviceName;
+
+        @Field(type = FieldType.Double)
+        private Double threshold;         // null keeps the rule threshold
+
+        @Field(type = FieldType.Boolean)
+        private Boolean enabled;          // false mutes the rule for this service
+    }
+}
@@ -1,4 +1,6 @@
 package com.logs.model;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.logs.dto.QueryTimings;
 import lombok.*;
 import org.springframework.data.elasticsearch.annotations.Document;
 
@@ -13,6 +15,9 @@ public class ApiResponse<T> {
     private T data;
     @Builder.Default
     private Instant timestamp = Instant.now();
+    /** Set only when the request asked for {@code profile=true}. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private QueryTimings profile;
 
     public static <T> ApiResponse<T> ok(T data) {
         return ApiResponse.<T>builder()
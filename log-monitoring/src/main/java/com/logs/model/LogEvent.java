@@ -2,12 +2,15 @@ package com.logs.model;
 
 import com.logs.enums.LogLevel;
 import com.logs.enums.Environment;
+import com.logs.index.LogIndices;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
 
 import javax.xml.stream.events.EndDocument;
 import java.time.Instant;
@@ -16,7 +19,7 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Document(indexName = "logs")
+@Document(indexName = LogIndices.SEARCH_ALIAS, createIndex = false)
 public class LogEvent {
     @Id
     private String id;
@@ -33,9 +36,22 @@ public class LogEvent {
     @Field(type = FieldType.Keyword)
     private LogLevel level;
 
-    @Field(type = FieldType.Keyword)
+    // text for word matches, keyword for exact/prefix, wildcard (n-gram backed) for substrings
+    @MultiField(
+            mainField = @Field(type = FieldType.Text, analyzer = "standard"),
+            otherFields = {
+                    @InnerField(suffix = "keyword", type = FieldType.Keyword, ignoreAbove = 8191),
+                    @InnerField(suffix = "wildcard", type = FieldType.Wildcard)
+            })
     private String message;
 
+    // message with numbers, ids and quoted values masked, see MessageFingerprint
+    @Field(type = FieldType.Keyword, ignoreAbove = 1024)
+    private String messageTemplate;
+
+    @Field(type = FieldType.Keyword)
+    private String templateHash;
+
     @Field(type = FieldType.Keyword)
     private String traceId;
 
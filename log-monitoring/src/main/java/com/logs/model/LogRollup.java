@@ -0,0 +1,39 @@
+package com.logs.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.Instant;
+
+/**
+ * Log count for one time bucket and one serviceName/level/env combination.
+ * Stored in the {@code log-rollups-1m} and {@code log-rollups-1h} indices (see RollupResolution).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(indexName = "log-rollups-1m", createIndex = false)
+public class LogRollup {
+    @Id
+    private String id;                   // resolution|bucketStart|service|level|env, so re-rolling overwrites
+
+    @Field(type = FieldType.Date, format = DateFormat.date_optional_time)
+    private Instant bucketStart;
+
+    @Field(type = FieldType.Keyword)
+    private String serviceName;
+
+    @Field(type = FieldType.Keyword)
+    private String level;
+
+    @Field(type = FieldType.Keyword)
+    private String env;
+
+    @Field(type = FieldType.Long)
+    private Long count;
+}
@@ -13,6 +13,8 @@ public interface AlertRepository extends ElasticsearchRepository<Alert, String>
 
     List<Alert> findByStatus(AlertStatus status);
 
+    List<Alert> findByServiceNameAndStatus(String serviceName, AlertStatus status);
+
     Optional<Alert> findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(
             String serviceName, String ruleId, AlertStatus status);
 
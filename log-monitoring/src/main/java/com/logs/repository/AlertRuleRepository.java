@@ -0,0 +1,7 @@
+package com.logs.repository;
+
+import com.logs.model.AlertRule;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+public interface AlertRuleRepository extends ElasticsearchRepository<AlertRule, String> {
+}
@@ -1,33 +1,115 @@
 package com.logs.repository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.enums.LogLevel;
 import com.logs.model.LogEvent;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Recent logs are kept as Redis lists capped server-side (LPUSH + LTRIM), newest first.
+ * Every log is pushed to four windows so /api/logs/recent can be filtered without scanning:
+ * all logs, per service, per level, and per service+level.
+ * Each push also refreshes a {@code logs.recent.idle-ttl-hours} expiry, so the windows of services
+ * or levels that stop logging do not stay in Redis forever.
+ */
+@Slf4j
 @Repository
 @RequiredArgsConstructor
 public class CacheRepository {
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
 
     private static final String RECENT_LOGS_KEY = "recent_logs";
+    /** Global window; not the bare prefix, which older versions used for a plain string value. */
+    private static final String ALL_SUFFIX = ":all";
 
-    public void saveRecentLogs(List<LogEvent> logs) {
-        ValueOperations<String, Object> ops = redisTemplate.opsForValue();
-        ops.set(RECENT_LOGS_KEY, logs, 5, TimeUnit.MINUTES); // auto-expire after 5 min
+    @Value("${logs.recent.window:10}")
+    private int window;
+
+    @Value("${logs.recent.idle-ttl-hours:24}")
+    private long idleTtlHours;
+
+    /** Drop the string key older versions kept under the bare prefix; nothing reads it any more. */
+    @PostConstruct
+    void removeLegacyKey() {
+        try {
+            redisTemplate.delete(RECENT_LOGS_KEY);
+        } catch (DataAccessException e) {
+            log.warn("Could not remove legacy key '{}': {}", RECENT_LOGS_KEY, e.getMessage());
+        }
     }
 
+    /** Push one log onto every matching window in a single pipelined round trip. */
+    public void pushRecentLog(LogEvent event) {
+        List<String> keys = keysFor(event);
+        int size = windowSize();
+        Duration ttl = Duration.ofHours(Math.max(idleTtlHours, 1));
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (String key : keys) {
+                    operations.opsForList().leftPush(key, event);
+                    operations.opsForList().trim(key, 0, size - 1);
+                    operations.expire(key, ttl);
+                }
+                return null;
+            }
+        });
+    }
+
+    /** Most recent logs, newest first. Either filter may be null. */
     @SuppressWarnings("unchecked")
+    public List<LogEvent> getRecentLogs(String serviceName, LogLevel level) {
+        List<Object> cached = redisTemplate.opsForList().range(recentKey(serviceName, level), 0, windowSize() - 1);
+        if (cached == null) return List.of();
+        List<LogEvent> logs = new ArrayList<>(cached.size());
+        // The template's JSON serializer stores no type hints, so entries come back as maps
+        for (Object o : cached) logs.add(o instanceof LogEvent e ? e : objectMapper.convertValue(o, LogEvent.class));
+        return logs;
+    }
+
     public List<LogEvent> getRecentLogs() {
-        ValueOperations<String, Object> ops = redisTemplate.opsForValue();
-        Object cached = ops.get(RECENT_LOGS_KEY);
-        return cached != null ? (List<LogEvent>) cached : null;
+        return getRecentLogs(null, null);
+    }
+
+    private int windowSize() {
+        return Math.max(window, 1);
+    }
+
+    static List<String> keysFor(LogEvent event) {
+        String svc = event.getServiceName() == null || event.getServiceName().isBlank() ? null : event.getServiceName();
+        LogLevel level = event.getLevel();
+        List<String> keys = new ArrayList<>(4);
+        keys.add(recentKey(null, null));
+        if (svc != null) keys.add(recentKey(svc, null));
+        if (level != null) keys.add(recentKey(null, level));
+        if (svc != null && level != null) keys.add(recentKey(svc, level));
+        return keys;
     }
 
-    public void clearCache() {
-        redisTemplate.delete(RECENT_LOGS_KEY);
+    static String recentKey(String serviceName, LogLevel level) {
+        StringBuilder key = new StringBuilder(RECENT_LOGS_KEY);
+        boolean filtered = false;
+        if (serviceName != null && !serviceName.isBlank()) {
+            key.append(":svc:").append(serviceName);
+            filtered = true;
+        }
+        if (level != null) {
+            key.append(":lvl:").append(level.name());
+            filtered = true;
+        }
+        return filtered ? key.toString() : key.append(ALL_SUFFIX).toString();
     }
 }
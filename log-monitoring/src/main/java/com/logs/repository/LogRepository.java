@@ -3,7 +3,6 @@ package com.logs.repository;
 import com.logs.model.LogEvent;
 import com.logs.enums.LogLevel;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
-import org.springframework.data.elasticsearch.annotations.Query;
 
 import java.time.Instant;
 import java.util.List;
@@ -16,14 +15,4 @@ public interface LogRepository extends ElasticsearchRepository<LogEvent, String>
             String serviceName,
             LogLevel level,
             Instant timestamp);
-
-
-    @Query("""
-      { "size": 0,
-        "aggs": {
-          "services": { "terms": { "field": "serviceName", "size": 1000 } }
-        }
-      }
-    """)
-    List<LogEvent> listDistinctServicesAgg();
 }
@@ -0,0 +1,84 @@
+package com.logs.rollup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a time range into pieces answered by the coarsest source that covers them:
+ * whole hours from the hourly rollup, whole minutes from the minute rollup, and whatever is left
+ * (sub-minute edges, data older or newer than the rollups) from the raw logs.
+ */
+public final class RollupPlan {
+
+    /** A piece of the range: [from, to), or [from, to] for the final raw piece. Null resolution = raw logs. */
+    public record Segment(RollupResolution resolution, Instant from, Instant to, boolean inclusiveEnd) {
+        public boolean isRaw() {
+            return resolution == null;
+        }
+    }
+
+    private RollupPlan() {
+    }
+
+    /**
+     * @param low             rollups only exist from this (minute-aligned) instant on (null = none)
+     * @param minuteWatermark minute rollups are complete before this instant (null = none)
+     * @param hourWatermark   hour rollups are complete before this instant (null = none)
+     */
+    public static List<Segment> plan(Instant from, Instant to, Instant low, Instant minuteWatermark, Instant hourWatermark) {
+        List<Segment> out = new ArrayList<>();
+        if (low == null) {
+            out.add(new Segment(null, from, to, true));
+            return out;
+        }
+        Instant cursor = from;
+        if (from.isBefore(low)) {
+            // history from before the first rollup run (or not yet backfilled)
+            if (!to.isAfter(low)) {
+                out.add(new Segment(null, from, to, true));
+                return out;
+            }
+            out.add(new Segment(null, from, low, false));
+            cursor = low;
+        }
+        // the hour holding low was rolled from a partial set of minutes, so start at the next one
+        Instant hStart = ceil(cursor, RollupResolution.HOUR);
+        Instant hEnd = min(floor(to, RollupResolution.HOUR), hourWatermark);
+        if (hEnd != null && hStart.isBefore(hEnd)) {
+            fine(out, cursor, hStart, minuteWatermark, false);
+            out.add(new Segment(RollupResolution.HOUR, hStart, hEnd, false));
+            cursor = hEnd;
+        }
+        fine(out, cursor, to, minuteWatermark, true);
+        return out;
+    }
+
+    /** Minute rollup for the aligned, covered middle of [a, b); raw logs for the rest. */
+    private static void fine(List<Segment> out, Instant a, Instant b, Instant minuteWatermark, boolean last) {
+        Instant mStart = ceil(a, RollupResolution.MINUTE);
+        Instant mEnd = min(floor(b, RollupResolution.MINUTE), minuteWatermark);
+        if (mEnd != null && mStart.isBefore(mEnd)) {
+            if (a.isBefore(mStart)) out.add(new Segment(null, a, mStart, false));
+            out.add(new Segment(RollupResolution.MINUTE, mStart, mEnd, false));
+            a = mEnd;
+        }
+        if (a.isBefore(b) || (last && a.equals(b))) {
+            out.add(new Segment(null, a, b, last));
+        }
+    }
+
+    static Instant floor(Instant t, RollupResolution r) {
+        return Instant.ofEpochSecond(Math.floorDiv(t.getEpochSecond(), r.seconds()) * r.seconds());
+    }
+
+    static Instant ceil(Instant t, RollupResolution r) {
+        Instant f = floor(t, r);
+        return f.equals(t) ? f : f.plusSeconds(r.seconds());
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        if (a == null || b == null) return null;
+        return a.isBefore(b) ? a : b;
+    }
+}
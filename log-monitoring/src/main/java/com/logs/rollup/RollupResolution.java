@@ -0,0 +1,31 @@
+package com.logs.rollup;
+
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+public enum RollupResolution {
+    MINUTE("log-rollups-1m", 60, "1m"),
+    HOUR("log-rollups-1h", 3_600, "1h");
+
+    private final IndexCoordinates index;
+    private final long seconds;
+    private final String interval;
+
+    RollupResolution(String index, long seconds, String interval) {
+        this.index = IndexCoordinates.of(index);
+        this.seconds = seconds;
+        this.interval = interval;
+    }
+
+    public IndexCoordinates index() {
+        return index;
+    }
+
+    public long seconds() {
+        return seconds;
+    }
+
+    /** ES fixed_interval for this resolution. */
+    public String interval() {
+        return interval;
+    }
+}
@@ -0,0 +1,398 @@
+package com.logs.rollup;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.logs.concurrent.FanOut;
+import com.logs.dto.TimeRangeFilter;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogEvent;
+import com.logs.model.LogRollup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.DeleteQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Maintains per-minute and per-hour log counts by serviceName/level/env in the rollup indices,
+ * and answers count-by-field queries from them.
+ * <p>
+ * {@link #rollUp()} re-aggregates raw logs from a little before the minute watermark up to the
+ * last closed minute (composite aggregation, paged), then rebuilds the affected hours from the
+ * minute rollup. Rollup ids are deterministic, so re-rolling a bucket overwrites it. Watermarks
+ * are kept in Redis so every instance can route queries:
+ * <ul>
+ *   <li>the minute/hour watermarks: rollups are complete before them;</li>
+ *   <li>the low watermark: rollups exist from it on. Each run walks it back by one catch-up step
+ *       until it reaches the raw log retention, and moves it forward (deleting older rollups)
+ *       when retention drops a day, so rollups never count logs that are gone.</li>
+ * </ul>
+ * Logs arriving later than the lookback (Kafka lag, client timestamps) are picked up by a sweep
+ * that re-rolls one older hour per run, walking back over {@code late-window-hours}.
+ */
+@Slf4j
+@Service
+public class RollupService {
+
+    static final String WATERMARK_KEY = "rollup:watermark:";
+    static final String LOW_WATERMARK_KEY = WATERMARK_KEY + "low";
+    static final String SWEEP_KEY = "rollup:sweep";
+    private static final int PAGE_SIZE = 1000;
+    private static final String MISSING = "";
+
+    private final ElasticsearchOperations esOps;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final LogIndexManager logIndices;
+    private final FanOut fanOut;
+    private final Duration grace;
+    private final Duration lookback;
+    private final Duration backfill;
+    private final Duration maxCatchUp;
+    private final Duration minRange;
+    private final Duration lateWindow;
+    private final int retentionDays;
+
+    public RollupService(ElasticsearchOperations esOps,
+                         RedisTemplate<String, Object> redisTemplate,
+                         LogIndexManager logIndices,
+                         FanOut fanOut,
+                         @Value("${logs.rollup.grace-seconds:60}") long graceSeconds,
+                         @Value("${logs.rollup.lookback-minutes:5}") long lookbackMinutes,
+                         @Value("${logs.rollup.backfill-hours:24}") long backfillHours,
+                         @Value("${logs.rollup.max-catch-up-hours:6}") long maxCatchUpHours,
+                         @Value("${logs.rollup.min-range-minutes:120}") long minRangeMinutes,
+                         @Value("${logs.rollup.late-window-hours:24}") long lateWindowHours,
+                         @Value("${logs.index.retention-days:30}") int retentionDays) {
+        this.esOps = esOps;
+        this.redisTemplate = redisTemplate;
+        this.logIndices = logIndices;
+        this.fanOut = fanOut;
+        this.grace = Duration.ofSeconds(graceSeconds);
+        this.lookback = Duration.ofMinutes(lookbackMinutes);
+        this.backfill = Duration.ofHours(backfillHours);
+        this.maxCatchUp = Duration.ofHours(maxCatchUpHours);
+        this.minRange = Duration.ofMinutes(minRangeMinutes);
+        this.lateWindow = Duration.ofHours(lateWindowHours);
+        this.retentionDays = Math.max(retentionDays, 1);
+    }
+
+    // ---- Maintenance ----
+
+    public void rollUp() {
+        ensureIndex(RollupResolution.MINUTE);
+        ensureIndex(RollupResolution.HOUR);
+
+        Instant closed = RollupPlan.floor(Instant.now().minus(grace), RollupResolution.MINUTE);
+        Instant cutoff = retentionCutoff();
+        Instant watermark = watermark(RollupResolution.MINUTE);
+        Instant low = lowWatermark();
+        Instant from = watermark == null ? closed.minus(backfill) : watermark.minus(lookback);
+        if (from.isBefore(cutoff)) from = cutoff;
+        Instant to = from.plus(maxCatchUp).isBefore(closed) ? from.plus(maxCatchUp) : closed;
+
+        if (from.isBefore(to)) {
+            int minutes = roll(RollupResolution.MINUTE, LogEvent.class, null, "timestamp", from, to);
+            setWatermark(RollupResolution.MINUTE, to);
+            // a deployment without a low watermark has unknown coverage before this run
+            if (low == null || watermark == null || low.isAfter(from)) {
+                low = from;
+                setLowWatermark(low);
+            }
+
+            Instant hourFrom = RollupPlan.floor(from, RollupResolution.HOUR);
+            Instant hourTo = RollupPlan.floor(to, RollupResolution.HOUR);
+            int hours = 0;
+            if (hourFrom.isBefore(hourTo)) {
+                hours = roll(RollupResolution.HOUR, LogRollup.class, RollupResolution.MINUTE, "bucketStart", hourFrom, hourTo);
+                setWatermark(RollupResolution.HOUR, hourTo);
+            }
+            log.debug("Rolled up {} minute and {} hour buckets in [{}, {})", minutes, hours, from, to);
+            watermark = to;
+        }
+        if (watermark == null || low == null) return;
+
+        if (low.isBefore(cutoff)) {
+            prune(cutoff);
+        } else if (cutoff.isBefore(low)) {
+            backfill(low, cutoff);
+        }
+        sweep(watermark, low);
+    }
+
+    /** Roll one more catch-up step of history below the low watermark, down to the retention cutoff. */
+    private void backfill(Instant low, Instant cutoff) {
+        Instant from = low.minus(maxCatchUp).isBefore(cutoff) ? cutoff : low.minus(maxCatchUp);
+        int minutes = roll(RollupResolution.MINUTE, LogEvent.class, null, "timestamp", from, low);
+        // hours up to the one holding the old low now have all their minutes
+        rollHours(RollupPlan.floor(from, RollupResolution.HOUR), RollupPlan.ceil(low, RollupResolution.HOUR));
+        setLowWatermark(from);
+        log.debug("Backfilled {} minute buckets in [{}, {})", minutes, from, low);
+    }
+
+    /**
+     * Re-roll one whole hour below the lookback for logs that arrived after it was rolled.
+     * Each run moves one hour further back; after {@code late-window-hours} runs it restarts at the top.
+     */
+    private void sweep(Instant watermark, Instant low) {
+        Instant top = RollupPlan.floor(watermark.minus(lookback), RollupResolution.HOUR);
+        Instant bottom = RollupPlan.floor(watermark.minus(lateWindow), RollupResolution.HOUR);
+        if (bottom.isBefore(low)) bottom = RollupPlan.ceil(low, RollupResolution.HOUR);
+
+        Instant hour = sweepPosition();
+        if (hour == null || hour.isBefore(bottom) || !hour.isBefore(top)) hour = top.minus(Duration.ofHours(1));
+        if (hour.isBefore(bottom)) return;
+
+        Instant end = hour.plus(Duration.ofHours(1));
+        roll(RollupResolution.MINUTE, LogEvent.class, null, "timestamp", hour, end);
+        rollHours(hour, end);
+        redisTemplate.opsForValue().set(SWEEP_KEY, hour.minus(Duration.ofHours(1)).getEpochSecond());
+    }
+
+    /** Rebuild hour rollups in [from, to), never past the hour watermark. */
+    private void rollHours(Instant from, Instant to) {
+        Instant hourWatermark = watermark(RollupResolution.HOUR);
+        if (hourWatermark == null) return;
+        Instant end = to.isAfter(hourWatermark) ? hourWatermark : to;
+        if (from.isBefore(end)) {
+            roll(RollupResolution.HOUR, LogRollup.class, RollupResolution.MINUTE, "bucketStart", from, end);
+        }
+    }
+
+    /** Drop rollups of days the raw log retention has deleted, and raise the low watermark to match. */
+    private void prune(Instant cutoff) {
+        for (RollupResolution r : RollupResolution.values()) {
+            NativeQuery older = new NativeQueryBuilder()
+                    .withQuery(q -> q.range(rq -> rq.field("bucketStart").lt(JsonData.of(cutoff.toString()))))
+                    .build();
+            esOps.delete(DeleteQuery.builder(older).build(), LogRollup.class, r.index());
+        }
+        setLowWatermark(cutoff);
+        log.info("Dropped rollups before {} (retention {} days)", cutoff, retentionDays);
+    }
+
+    /** Start of the oldest day still kept by the daily index retention. */
+    Instant retentionCutoff() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /** Aggregate {@code source} (raw logs, or a finer rollup) into {@code target} buckets for [from, to). */
+    private int roll(RollupResolution target, Class<?> sourceClass, RollupResolution source,
+                     String timeField, Instant from, Instant to) {
+        Query range = Query.of(q -> q.range(r -> r.field(timeField)
+                .gte(JsonData.of(from.toString()))
+                .lt(JsonData.of(to.toString()))));
+        List<Map<String, CompositeAggregationSource>> sources = List.of(
+                Map.of("t", CompositeAggregationSource.of(s -> s.dateHistogram(d -> d
+                        .field(timeField).fixedInterval(i -> i.time(target.interval()))))),
+                Map.of("svc", CompositeAggregationSource.of(s -> s.terms(t -> t.field("serviceName").missingBucket(true)))),
+                Map.of("lvl", CompositeAggregationSource.of(s -> s.terms(t -> t.field("level").missingBucket(true)))),
+                Map.of("env", CompositeAggregationSource.of(s -> s.terms(t -> t.field("env").missingBucket(true)))));
+
+        int written = 0;
+        Map<String, FieldValue> after = null;
+        do {
+            Map<String, FieldValue> afterKey = after;
+            Aggregation.Builder.ContainerBuilder composite = new Aggregation.Builder().composite(c -> {
+                c.size(PAGE_SIZE).sources(sources);
+                if (afterKey != null) c.after(afterKey);
+                return c;
+            });
+            if (source != null) composite.aggregations("n", a -> a.sum(s -> s.field("count")));
+
+            NativeQueryBuilder nqb = new NativeQueryBuilder()
+                    .withQuery(range)
+                    .withAggregation("rollup", composite.build())
+                    .withMaxResults(0);
+            SearchHits<?> hits = esOps.search(nqb.build(), sourceClass,
+                    source == null ? logIndices.searchIndex(from, to) : source.index());
+            CompositeAggregate agg = aggregate(hits, "rollup").composite();
+
+            List<IndexQuery> docs = new ArrayList<>();
+            for (CompositeBucket b : agg.buckets().array()) {
+                long count = source == null ? b.docCount() : (long) b.aggregations().get("n").sum().value();
+                docs.add(toIndexQuery(target, b.key(), count));
+            }
+            if (!docs.isEmpty()) {
+                esOps.bulkIndex(docs, target.index());
+                written += docs.size();
+            }
+            after = docs.size() < PAGE_SIZE ? null : agg.afterKey();
+        } while (after != null && !after.isEmpty());
+        return written;
+    }
+
+    private static IndexQuery toIndexQuery(RollupResolution r, Map<String, FieldValue> key, long count) {
+        Instant bucket = Instant.ofEpochMilli(key.get("t").longValue());
+        String svc = str(key.get("svc"));
+        String lvl = str(key.get("lvl"));
+        String env = str(key.get("env"));
+        LogRollup doc = LogRollup.builder()
+                .id(r.interval() + "|" + bucket.getEpochSecond() + "|" + svc + "|" + lvl + "|" + env)
+                .bucketStart(bucket)
+                .serviceName(svc.isEmpty() ? null : svc)
+                .level(lvl.isEmpty() ? null : lvl)
+                .env(env.isEmpty() ? null : env)
+                .count(count)
+                .build();
+        return new IndexQueryBuilder().withId(doc.getId()).withObject(doc).build();
+    }
+
+    private static String str(FieldValue v) {
+        if (v == null || v.isNull()) return MISSING;
+        return v.isString() ? v.stringValue() : v._toJsonString();
+    }
+
+    private void ensureIndex(RollupResolution r) {
+        IndexOperations ops = esOps.indexOps(r.index());
+        if (!ops.exists()) {
+            ops.create();
+            ops.putMapping(ops.createMapping(LogRollup.class));
+        }
+    }
+
+    // ---- Watermarks ----
+
+    /** Rollups at this resolution are complete before the returned instant; null if never rolled. */
+    public Instant watermark(RollupResolution r) {
+        return instant(WATERMARK_KEY + r.interval());
+    }
+
+    /** Rollups exist from the returned instant on; null if never rolled. */
+    public Instant lowWatermark() {
+        return instant(LOW_WATERMARK_KEY);
+    }
+
+    private Instant sweepPosition() {
+        return instant(SWEEP_KEY);
+    }
+
+    private Instant instant(String key) {
+        try {
+            Object v = redisTemplate.opsForValue().get(key);
+            return v instanceof Number n ? Instant.ofEpochSecond(n.longValue()) : null;
+        } catch (RuntimeException e) {
+            log.debug("Rollup watermark unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void setWatermark(RollupResolution r, Instant t) {
+        redisTemplate.opsForValue().set(WATERMARK_KEY + r.interval(), t.getEpochSecond());
+    }
+
+    private void setLowWatermark(Instant t) {
+        redisTemplate.opsForValue().set(LOW_WATERMARK_KEY, t.getEpochSecond());
+    }
+
+    // ---- Queries ----
+
+    /**
+     * Log counts per value of {@code field} (serviceName, level or env) for a filter.
+     * Long ranges are split by {@link RollupPlan}; short or open-ended ones go to the raw logs.
+     */
+    public Map<String, Long> countBy(String field, TimeRangeFilter f, int size) {
+        List<RollupPlan.Segment> segments;
+        if (f.getFrom() == null || f.getTo() == null
+                || Duration.between(f.getFrom(), f.getTo()).compareTo(minRange) < 0) {
+            segments = List.of(new RollupPlan.Segment(null, f.getFrom(), f.getTo(), true));
+        } else {
+            segments = RollupPlan.plan(f.getFrom(), f.getTo(), lowWatermark(),
+                    watermark(RollupResolution.MINUTE), watermark(RollupResolution.HOUR));
+        }
+
+        if (segments.size() == 1) return countSegment(field, f, size, segments.get(0));
+
+        // segments are independent searches; run them side by side and merge
+        Map<String, Long> counts = new HashMap<>();
+        try (FanOut.Scope scope = fanOut.open()) {
+            List<Supplier<Map<String, Long>>> parts = new ArrayList<>(segments.size());
+            for (RollupPlan.Segment s : segments) {
+                parts.add(scope.fork(() -> countSegment(field, f, size, s)));
+            }
+            scope.join();
+            for (Supplier<Map<String, Long>> part : parts) {
+                part.get().forEach((k, n) -> counts.merge(k, n, Long::sum));
+            }
+        }
+        return counts;
+    }
+
+    private Map<String, Long> countSegment(String field, TimeRangeFilter f, int size, RollupPlan.Segment s) {
+        NativeQueryBuilder nqb = new NativeQueryBuilder()
+                .withQuery(filter(f, s))
+                .withMaxResults(0);
+        if (s.isRaw()) {
+            nqb.withAggregation("by", Aggregation.of(a -> a.terms(t -> t.field(field).size(size))));
+        } else {
+            nqb.withAggregation("by", new Aggregation.Builder()
+                    .terms(t -> t.field(field).size(size))
+                    .aggregations("n", a -> a.sum(x -> x.field("count")))
+                    .build());
+        }
+        SearchHits<?> hits = s.isRaw()
+                ? esOps.search(nqb.build(), LogEvent.class, logIndices.searchIndex(s.from(), s.to()))
+                : esOps.search(nqb.build(), LogRollup.class, s.resolution().index());
+        Map<String, Long> counts = new HashMap<>();
+        for (StringTermsBucket b : aggregate(hits, "by").sterms().buckets().array()) {
+            long n = s.isRaw() ? b.docCount() : (long) b.aggregations().get("n").sum().value();
+            counts.merge(b.key().stringValue(), n, Long::sum);
+        }
+        return counts;
+    }
+
+    private static Query filter(TimeRangeFilter f, RollupPlan.Segment s) {
+        String timeField = s.isRaw() ? "timestamp" : "bucketStart";
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (f.getServiceName() != null) {
+            bool.filter(q -> q.term(t -> t.field("serviceName").value(f.getServiceName())));
+        }
+        if (f.getLevel() != null) {
+            bool.filter(q -> q.term(t -> t.field("level").value(f.getLevel().name())));
+        }
+        if (f.getEnv() != null) {
+            bool.filter(q -> q.term(t -> t.field("env").value(f.getEnv())));
+        }
+        if (s.from() != null || s.to() != null) {
+            bool.filter(q -> q.range(r -> {
+                r.field(timeField);
+                if (s.from() != null) r.gte(JsonData.of(s.from().toString()));
+                if (s.to() != null) {
+                    if (s.inclusiveEnd()) r.lte(JsonData.of(s.to().toString()));
+                    else r.lt(JsonData.of(s.to().toString()));
+                }
+                return r;
+            }));
+        }
+        return Query.of(q -> q.bool(bool.build()));
+    }
+
+    private static co.elastic.clients.elasticsearch._types.aggregations.Aggregate aggregate(SearchHits<?> hits, String name) {
+        ElasticsearchAggregations aggs = (ElasticsearchAggregations) hits.getAggregations();
+        if (aggs == null || aggs.get(name) == null) {
+            throw new IllegalStateException("Aggregation not found: " + name);
+        }
+        return aggs.get(name).aggregation().getAggregate();
+    }
+}
@@ -0,0 +1,128 @@
+package com.logs.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.BaseQuery;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cursor paging with a point-in-time and {@code search_after}: every page is a top-{@code size}
+ * search after the previous page's last sort values, so page N costs the same as page 1 and is
+ * not limited by {@code max_result_window}. The PIT keeps the view stable while the client pages.
+ * <p>
+ * The filters are not part of the cursor: callers send the same request again along with it.
+ * A PIT is held open on Elasticsearch until the scroll ends or expires, so callers only start one
+ * when the client explicitly asks for cursor paging.
+ */
+@Slf4j
+@Component
+public class CursorPager {
+
+    private final ElasticsearchOperations esOps;
+    private final ObjectMapper objectMapper;
+    private final Duration keepAlive;
+
+    public CursorPager(ElasticsearchOperations esOps,
+                       ObjectMapper objectMapper,
+                       @Value("${logs.search.pit-keep-alive-seconds:120}") long keepAliveSeconds) {
+        this.esOps = esOps;
+        this.objectMapper = objectMapper;
+        this.keepAlive = Duration.ofSeconds(keepAliveSeconds);
+    }
+
+    /** One page of hits plus the token for the next one (null on the last page). */
+    public record Page<T>(SearchHits<T> hits, String nextCursor) {
+    }
+
+    /**
+     * Fetch one page. Without a cursor a new PIT is opened on {@code index} and {@code sort} is used;
+     * with one, its PIT and sort are reused and {@code index}/{@code sort} are ignored.
+     *
+     * @throws IllegalArgumentException when the cursor cannot be decoded
+     */
+    public <T> Page<T> fetch(BaseQuery query, Class<T> type, IndexCoordinates index, Sort sort, int size, String cursor) {
+        boolean opened = cursor == null || cursor.isBlank();
+        SearchCursor current = opened
+                ? new SearchCursor(esOps.openPointInTime(index, keepAlive, true), null, encodeSort(sort))
+                : decode(cursor);
+
+        SearchHits<T> hits;
+        try {
+            query.setPointInTime(new Query.PointInTime(current.pit(), keepAlive));
+            query.addSort(decodeSort(current.sort()));
+            query.setMaxResults(size);
+            if (current.after() != null) query.setSearchAfter(current.after());
+            hits = esOps.search(query, type);
+        } catch (RuntimeException e) {
+            // nobody holds a cursor for a PIT opened here, so it would linger until keepAlive
+            if (opened) close(current.pit());
+            throw e;
+        }
+        String pit = hits.getPointInTimeId() != null ? hits.getPointInTimeId() : current.pit();
+
+        List<SearchHit<T>> page = hits.getSearchHits();
+        if (page.size() < size) {
+            close(pit);
+            return new Page<>(hits, null);
+        }
+        List<Object> after = page.get(page.size() - 1).getSortValues();
+        return new Page<>(hits, encode(new SearchCursor(pit, after, current.sort())));
+    }
+
+    private void close(String pit) {
+        try {
+            esOps.closePointInTime(pit);
+        } catch (RuntimeException e) {
+            // it expires on its own after keepAlive
+            log.debug("Could not close point-in-time: {}", e.getMessage());
+        }
+    }
+
+    String encode(SearchCursor cursor) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    /** @throws IllegalArgumentException when the token is not a cursor issued by this class */
+    public SearchCursor decode(String token) {
+        try {
+            SearchCursor c = objectMapper.readValue(Base64.getUrlDecoder().decode(token), SearchCursor.class);
+            if (c.pit() == null || c.sort() == null) throw new IllegalArgumentException("Invalid cursor");
+            return c;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static List<String> encodeSort(Sort sort) {
+        List<String> out = new ArrayList<>();
+        for (Sort.Order o : sort) out.add(o.getProperty() + ":" + o.getDirection().name());
+        return out;
+    }
+
+    static Sort decodeSort(List<String> sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String s : sort) {
+            int i = s.lastIndexOf(':');
+            if (i <= 0) throw new IllegalArgumentException("Invalid cursor");
+            orders.add(new Sort.Order(Sort.Direction.fromString(s.substring(i + 1)), s.substring(0, i)));
+        }
+        return Sort.by(orders);
+    }
+}
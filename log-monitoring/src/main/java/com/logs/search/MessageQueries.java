@@ -0,0 +1,57 @@
+package com.logs.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Message clauses for log search, each on the sub-field that answers it fastest:
+ * <ul>
+ *   <li>{@code contains}: case-insensitive wildcard on {@code message.wildcard} (n-gram approximation + verify)</li>
+ *   <li>{@code exact}: term on {@code message.keyword}</li>
+ *   <li>{@code prefix}: prefix on {@code message.keyword}</li>
+ *   <li>{@code match}: analyzed full-text match on {@code message}, all words required</li>
+ * </ul>
+ * Indices that still map {@code message} as a plain keyword are queried on that field instead,
+ * scoped by {@code _index} so the slow fallback never runs against up-to-date indices.
+ */
+public final class MessageQueries {
+
+    private MessageQueries() {
+    }
+
+    public static Query forMode(String mode, String text, Set<String> keywordIndices) {
+        Query current = switch (mode) {
+            case "exact" -> Query.of(q -> q.term(t -> t.field("message.keyword").value(text)));
+            case "prefix" -> Query.of(q -> q.prefix(p -> p.field("message.keyword").value(text)));
+            case "match" -> Query.of(q -> q.match(m -> m.field("message").query(text).operator(Operator.And)));
+            default -> Query.of(q -> q.wildcard(w -> w.field("message.wildcard")
+                    .value("*" + escapeWildcard(text) + "*").caseInsensitive(true)));
+        };
+        if (keywordIndices.isEmpty()) return current;
+
+        Query legacy = switch (mode) {
+            case "exact" -> Query.of(q -> q.term(t -> t.field("message").value(text)));
+            case "prefix" -> Query.of(q -> q.prefix(p -> p.field("message").value(text)));
+            default -> Query.of(q -> q.wildcard(w -> w.field("message")
+                    .value("*" + escapeWildcard(text) + "*").caseInsensitive(true)));
+        };
+        List<FieldValue> names = keywordIndices.stream().map(FieldValue::of).toList();
+        Query onLegacy = Query.of(q -> q.bool(b -> b
+                .filter(f -> f.terms(t -> t.field("_index").terms(v -> v.value(names))))
+                .filter(legacy)));
+        return Query.of(q -> q.bool(b -> b.should(current).should(onLegacy).minimumShouldMatch("1")));
+    }
+
+    static String escapeWildcard(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '*' || c == '?' || c == '\\') out.append('\\');
+            out.append(c);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.logs.search;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a search/aggregation handler whose requests are timed by {@link QueryProfilingInterceptor}:
+ * slow ones land in the {@link SlowQueryLog}, and {@code ?profile=true} returns the breakdown
+ * (and the Elasticsearch query profile) with the response.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ProfiledQuery {
+
+    /** Name the query is reported under, e.g. {@code logs.search}. */
+    String value();
+}
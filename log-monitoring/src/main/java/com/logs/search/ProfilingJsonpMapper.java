@@ -0,0 +1,39 @@
+package com.logs.search;
+
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.json.jackson.JacksonJsonpGenerator;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.json.stream.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Adds {@code "profile": true} to search requests sent while the current request asked for a
+ * {@link QueryProfile} with the ES profile. Spring Data builds the {@link SearchRequest} itself and
+ * has no option for it, so the flag is added where the transport serializes the request body.
+ */
+public class ProfilingJsonpMapper extends JacksonJsonpMapper {
+
+    @Override
+    public <T> void serialize(T value, JsonGenerator generator) {
+        if (!(value instanceof SearchRequest) || !QueryProfile.esProfileRequested()
+                || !(generator instanceof JacksonJsonpGenerator jackson)) {
+            super.serialize(value, generator);
+            return;
+        }
+        StringWriter json = new StringWriter();
+        try (JsonGenerator buffer = jsonProvider().createGenerator(json)) {
+            super.serialize(value, buffer);
+        }
+        try {
+            ObjectNode body = (ObjectNode) objectMapper().readTree(json.toString());
+            body.put("profile", true);
+            objectMapper().writeTree(jackson.jacksonGenerator(), body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
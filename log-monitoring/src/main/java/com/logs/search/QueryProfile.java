@@ -0,0 +1,152 @@
+package com.logs.search;
+
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.dto.QueryTimings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timing of one search/aggregation request, bound to the request thread between
+ * {@link #begin} and {@link #end}. Services mark their phases with {@link #record}; the ES
+ * transport adds round trips and {@code took}. Every static method is a no-op when no profile
+ * is active, so the hooks cost nothing on unprofiled requests. Subtasks forked by
+ * {@link com.logs.concurrent.FanOut} {@link #attach} the profile of their request.
+ */
+public final class QueryProfile {
+
+    public enum Phase { BUILD, SEARCH, MAP }
+
+    private static final ThreadLocal<QueryProfile> CURRENT = new ThreadLocal<>();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String name;
+    private final boolean esProfile;
+    private final long startedAt = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long esRoundTripNanos;
+    private long esTookMs;
+    private int esRequests;
+    private final List<JsonNode> esProfiles = new ArrayList<>();
+    private long writeStartedAt;
+
+    private QueryProfile(String name, boolean esProfile) {
+        this.name = name;
+        this.esProfile = esProfile;
+    }
+
+    /** Start profiling the current request; {@code esProfile} also asks ES for its query profile. */
+    public static QueryProfile begin(String name, boolean esProfile) {
+        QueryProfile p = new QueryProfile(name, esProfile);
+        CURRENT.set(p);
+        return p;
+    }
+
+    /** Bind {@code profile} (may be null) to the current thread; returns what was bound before. */
+    public static QueryProfile attach(QueryProfile profile) {
+        QueryProfile previous = CURRENT.get();
+        if (profile == null) CURRENT.remove();
+        else CURRENT.set(profile);
+        return previous;
+    }
+
+    public static QueryProfile current() {
+        return CURRENT.get();
+    }
+
+    /** Unbind and return the current profile, if any. */
+    public static QueryProfile end() {
+        QueryProfile p = CURRENT.get();
+        CURRENT.remove();
+        return p;
+    }
+
+    /** True while a request asked for a full profile; such requests bypass result caches. */
+    public static boolean esProfileRequested() {
+        QueryProfile p = CURRENT.get();
+        return p != null && p.esProfile;
+    }
+
+    /** Add the time since {@code startNanos} ({@link System#nanoTime()}) to {@code phase}. */
+    public static void record(Phase phase, long startNanos) {
+        QueryProfile p = CURRENT.get();
+        if (p != null) p.addPhase(phase, System.nanoTime() - startNanos);
+    }
+
+    /** Called by the ES transport after each request made on this thread. */
+    public static void recordEsCall(long roundTripNanos, Object response, JsonpMapper mapper) {
+        QueryProfile p = CURRENT.get();
+        if (p == null) return;
+        long took = 0;
+        JsonNode tree = null;
+        if (response instanceof ResponseBody<?> body) {
+            took = body.took();
+            if (p.esProfile && body.profile() != null) {
+                try {
+                    tree = JSON.readTree(JsonpUtils.toJsonString(body.profile(), mapper));
+                } catch (JsonProcessingException e) {
+                    // the timings are still useful without the profile tree
+                }
+            }
+        }
+        p.addEsCall(roundTripNanos, took, tree);
+    }
+
+    private synchronized void addPhase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    private synchronized void addEsCall(long roundTripNanos, long tookMs, JsonNode profile) {
+        esRequests++;
+        esRoundTripNanos += roundTripNanos;
+        esTookMs += tookMs;
+        if (profile != null) esProfiles.add(profile);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public boolean esProfile() {
+        return esProfile;
+    }
+
+    /** The response is about to be written. */
+    public void markWriteStart() {
+        writeStartedAt = System.nanoTime();
+    }
+
+    /** Timings so far; JSON writing is included only once the response has been written. */
+    public synchronized QueryTimings timings(boolean written) {
+        long now = System.nanoTime();
+        long total = now - startedAt;
+        Long write = written && writeStartedAt > 0 ? now - writeStartedAt : null;
+        long build = phaseNanos[Phase.BUILD.ordinal()];
+        long took = esTookMs * 1_000_000;
+        long network = Math.max(esRoundTripNanos - took, 0);
+        // SEARCH covers the client call: round trip plus mapping ES hits to entities
+        long mapping = Math.max(phaseNanos[Phase.SEARCH.ordinal()] - esRoundTripNanos, 0) + phaseNanos[Phase.MAP.ordinal()];
+        long other = Math.max(total - build - took - network - mapping - (write == null ? 0 : write), 0);
+        return QueryTimings.builder()
+                .name(name)
+                .totalMs(ms(total))
+                .buildMs(ms(build))
+                .esTookMs(esTookMs)
+                .esNetworkMs(ms(network))
+                .hitMappingMs(ms(mapping))
+                .jsonWriteMs(write == null ? null : ms(write))
+                .otherMs(ms(other))
+                .esRequests(esRequests)
+                .esProfile(esProfile ? List.copyOf(esProfiles) : null)
+                .build();
+    }
+
+    private static double ms(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.logs.search;
+
+import com.logs.model.ApiResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks where serialization of a profiled response starts and, for {@code ?profile=true},
+ * attaches the timings gathered so far to the {@link ApiResponse}.
+ */
+@ControllerAdvice
+public class QueryProfileResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ProfiledQuery.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryProfile profile = QueryProfile.current();
+        if (profile == null) return body;
+        if (profile.esProfile() && body instanceof ApiResponse<?> api) {
+            api.setProfile(profile.timings(false));
+        }
+        profile.markWriteStart();
+        return body;
+    }
+}
@@ -0,0 +1,47 @@
+package com.logs.search;
+
+import com.logs.dto.QueryTimings;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Binds a {@link QueryProfile} to requests served by a {@link ProfiledQuery} handler and, once the
+ * response has been written, hands the timings to the {@link SlowQueryLog}. The Elasticsearch query
+ * profile is only requested with {@code ?profile=true}, as it makes the search itself slower.
+ */
+@Slf4j
+public class QueryProfilingInterceptor implements HandlerInterceptor {
+
+    public static final String PROFILE_PARAM = "profile";
+
+    private final SlowQueryLog slowQueries;
+
+    public QueryProfilingInterceptor(SlowQueryLog slowQueries) {
+        this.slowQueries = slowQueries;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod hm) {
+            ProfiledQuery pq = hm.getMethodAnnotation(ProfiledQuery.class);
+            if (pq != null) {
+                QueryProfile.begin(pq.value(), Boolean.parseBoolean(request.getParameter(PROFILE_PARAM)));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryProfile profile = QueryProfile.end();
+        if (profile == null) return;
+        QueryTimings timings = profile.timings(true);
+        if (slowQueries.offer(request.getRequestURI(), timings)) {
+            log.info("Slow query {} took {} ms (es took {} ms, {} requests)",
+                    timings.getName(), timings.getTotalMs(), timings.getEsTookMs(), timings.getEsRequests());
+        }
+    }
+}
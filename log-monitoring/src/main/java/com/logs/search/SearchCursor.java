@@ -0,0 +1,11 @@
+package com.logs.search;
+
+import java.util.List;
+
+/**
+ * State carried between pages of a point-in-time scroll: the PIT id, the sort values of the last
+ * hit returned, and the sort the scroll was started with ("field:ASC|DESC"). Clients only see it
+ * as an opaque token (see {@link CursorPager}).
+ */
+public record SearchCursor(String pit, List<Object> after, List<String> sort) {
+}
@@ -0,0 +1,47 @@
+package com.logs.search;
+
+import com.logs.dto.QueryTimings;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/** The last {@code capacity} profiled requests that took at least {@code thresholdMs}, in memory only. */
+public class SlowQueryLog {
+
+    public record Entry(Instant at, String uri, QueryTimings timings) {
+    }
+
+    private final long thresholdMs;
+    private final int capacity;
+    private final Deque<Entry> entries;
+
+    public SlowQueryLog(long thresholdMs, int capacity) {
+        this.thresholdMs = thresholdMs;
+        this.capacity = Math.max(capacity, 1);
+        this.entries = new ArrayDeque<>(this.capacity);
+    }
+
+    /** Keep {@code timings} if the request was slow; the oldest entry makes room once full. */
+    public boolean offer(String uri, QueryTimings timings) {
+        if (timings.getTotalMs() < thresholdMs) return false;
+        synchronized (entries) {
+            if (entries.size() == capacity) entries.removeLast();
+            entries.addFirst(new Entry(Instant.now(), uri, timings));
+        }
+        return true;
+    }
+
+    /** Newest first. */
+    public List<Entry> recent(int limit) {
+        synchronized (entries) {
+            return new ArrayList<>(entries).subList(0, Math.min(Math.max(limit, 0), entries.size()));
+        }
+    }
+
+    public long thresholdMs() {
+        return thresholdMs;
+    }
+}
@@ -0,0 +1,78 @@
+package com.logs.service;
+
+import com.logs.alerting.CompiledRules;
+import com.logs.enums.AlertMetric;
+import com.logs.enums.AlertSeverity;
+import com.logs.enums.ThresholdOperator;
+import com.logs.model.AlertRule;
+import com.logs.repository.AlertRuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alert rules live in the {@code alert-rules} index. The evaluator reads a compiled snapshot
+ * that is reloaded periodically and after every change, so evaluation never queries the rules.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertRuleService {
+
+    /** Seeded into an empty index (disable it rather than delete it); matches the original hard-coded rule. */
+    static final AlertRule DEFAULT_RULE = AlertRule.builder()
+            .id("error.rate.high")
+            .metric(AlertMetric.ERROR_COUNT)
+            .windowMinutes(5)
+            .operator(ThresholdOperator.GT)
+            .threshold(5.0)
+            .severity(AlertSeverity.HIGH)
+            .note("High error rate detected")
+            .build();
+
+    private final AlertRuleRepository alertRuleRepository;
+
+    private volatile CompiledRules compiled = CompiledRules.compile(List.of(DEFAULT_RULE));
+
+    public CompiledRules compiled() {
+        return compiled;
+    }
+
+    @Scheduled(fixedDelayString = "${logs.alerts.rules-refresh-ms:30000}")
+    public void refresh() {
+        try {
+            List<AlertRule> rules = getRules();
+            if (rules.isEmpty()) {
+                rules = List.of(alertRuleRepository.save(DEFAULT_RULE));
+            }
+            compiled = CompiledRules.compile(rules);
+        } catch (RuntimeException e) {
+            log.warn("Could not reload alert rules, keeping the previous set: {}", e.getMessage());
+        }
+    }
+
+    public List<AlertRule> getRules() {
+        List<AlertRule> rules = new ArrayList<>();
+        alertRuleRepository.findAll().forEach(rules::add);
+        return rules;
+    }
+
+    /** Create or replace a rule. */
+    public AlertRule saveRule(AlertRule rule) {
+        if (!CompiledRules.isValid(rule)) {
+            throw new IllegalArgumentException("Rule needs id, metric, operator, threshold, severity and windowMinutes > 0");
+        }
+        AlertRule saved = alertRuleRepository.save(rule);
+        refresh();
+        return saved;
+    }
+
+    public void deleteRule(String id) {
+        alertRuleRepository.deleteById(id);
+        refresh();
+    }
+}
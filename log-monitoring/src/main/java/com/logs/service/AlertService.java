@@ -1,12 +1,13 @@
 package com.logs.service;
 
-import com.logs.enums.AlertSeverity;
+import com.logs.alerting.CompiledRules;
+import com.logs.alerting.WindowStats;
+import com.logs.alerting.WindowStatsProvider;
 import com.logs.enums.AlertStatus;
-import com.logs.enums.LogLevel;
+import com.logs.enums.ThresholdOperator;
 import com.logs.model.Alert;
-import com.logs.model.LogEvent;
+import com.logs.model.AlertRule;
 import com.logs.repository.AlertRepository;
-import com.logs.repository.LogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.time.*;
@@ -26,18 +26,72 @@ import java.util.Locale;
 @RequiredArgsConstructor
 public class AlertService {
 
-    private final LogRepository logRepository;
     private final AlertRepository alertRepository;
+    private final AlertRuleService alertRuleService;
+    private final WindowStatsProvider windowStatsProvider;
+
     /**
      * Evaluate all alerting rules for a given service.
-     * If any rule triggers, an Alert is created/updated and returned.
-     * If conditions have recovered, any OPEN alerts are resolved.
+     * Rules sharing a window share one stats lookup. A breached rule opens or updates its Alert;
+     * a rule that is no longer breached resolves its OPEN alert. OPEN alerts of rules that are
+     * muted for the service, disabled or deleted are resolved too, with a note saying why, since
+     * nothing would ever close them otherwise. Returns the most severe alert triggered in this run.
      */
     public Optional<Alert> evaluateForService(String serviceName) {
-        Optional<Alert> maybe = checkErrorRate(serviceName, 5, 5 /*threshold*/);
-        maybe.ifPresent(a -> log.warn("Alert triggered: {}", a));
-        resolveIfRecovered(serviceName);
-        return maybe;
+        Map<String, Alert> open = new HashMap<>();
+        for (Alert a : alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)) {
+            open.putIfAbsent(a.getRuleId(), a);
+        }
+
+        Alert worst = null;
+        for (CompiledRules.WindowGroup group : alertRuleService.compiled().groups()) {
+            WindowStats stats = null;
+            for (AlertRule rule : group.rules()) {
+                Alert current = open.remove(rule.getId());
+                Double threshold = rule.effectiveThreshold(serviceName);
+                if (threshold == null) {
+                    if (current != null) resolve(current, "Auto-resolved: rule muted for " + serviceName + ".");
+                    continue;
+                }
+                if (stats == null) stats = windowStatsProvider.statsFor(serviceName, group.window());
+
+                double observed = stats.value(rule.getMetric());
+                if (rule.getOperator().breached(observed, threshold)) {
+                    Alert alert = openOrUpdateAlert(current, serviceName, rule, observed, threshold);
+                    log.warn("Alert triggered: {}", alert);
+                    if (worst == null || alert.getSeverity().compareTo(worst.getSeverity()) > 0) worst = alert;
+                } else if (current != null) {
+                    resolve(current, "Auto-resolved.");
+                }
+            }
+        }
+        // whatever is left belongs to rules that are no longer enabled
+        for (Alert orphan : open.values()) {
+            resolve(orphan, "Auto-resolved: rule disabled or removed.");
+        }
+        return Optional.ofNullable(worst);
+    }
+
+    /** Services with at least one OPEN alert; they are evaluated even after going quiet so the alert can resolve. */
+    public Set<String> servicesWithOpenAlerts() {
+        Set<String> services = new HashSet<>();
+        for (Alert a : alertRepository.findByStatus(AlertStatus.OPEN)) {
+            if (a.getServiceName() != null) services.add(a.getServiceName());
+        }
+        return services;
+    }
+
+    /**
+     * True when an enabled rule fires on too few logs (LT/LTE). Such a rule matters most once a
+     * service has gone quiet, so every known service has to be evaluated, not just active ones.
+     */
+    public boolean watchesForSilence() {
+        for (CompiledRules.WindowGroup group : alertRuleService.compiled().groups()) {
+            for (AlertRule rule : group.rules()) {
+                if (rule.getOperator() == ThresholdOperator.LT || rule.getOperator() == ThresholdOperator.LTE) return true;
+            }
+        }
+        return false;
     }
 
     /** List current open alerts. */
@@ -79,53 +133,26 @@ public class AlertService {
 
     }
 
-    // --- RULES ---
-
-    /**
-     * Rule: ERROR count in last <windowMinutes> minutes > threshold.
-     */
-    public Optional<Alert> checkErrorRate(String serviceName, int windowMinutes, int threshold) {
-        Instant cutoff = Instant.now().minus(windowMinutes, ChronoUnit.MINUTES);
-        long errorCount = logRepository
-                .findByServiceNameAndLevelAndTimestampAfter(serviceName, LogLevel.ERROR, cutoff)
-                .size();
-
-        if (errorCount > threshold) {
-            Alert alert = openOrUpdateAlert(serviceName,
-                    "error.rate.high",
-                    AlertSeverity.HIGH,
-                    (double) errorCount,
-                    (double) threshold,
-                    "High error rate detected for " + serviceName);
-            return Optional.of(alert);
-        }
-        return Optional.empty();
-    }
-
     // --- HELPERS ---
 
-    private Alert openOrUpdateAlert(String serviceName,
-                                    String ruleId,
-                                    AlertSeverity sev,
-                                    Double observed,
-                                    Double threshold,
-                                    String note) {
-
-        Optional<Alert> currentOpen = alertRepository
-                .findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(serviceName, ruleId, AlertStatus.OPEN);
-
-        if (currentOpen.isPresent()) {
-            Alert a = currentOpen.get();
-            a.setObserved(observed);
-            a.setThreshold(threshold);
-            a.setNote(note);
-            return alertRepository.save(a);
+    private Alert openOrUpdateAlert(Alert currentOpen,
+                                    String serviceName,
+                                    AlertRule rule,
+                                    double observed,
+                                    double threshold) {
+        String note = (rule.getNote() == null ? rule.getId() : rule.getNote()) + " for " + serviceName;
+
+        if (currentOpen != null) {
+            currentOpen.setObserved(observed);
+            currentOpen.setThreshold(threshold);
+            currentOpen.setNote(note);
+            return alertRepository.save(currentOpen);
         }
 
         Alert created = Alert.builder()
                 .serviceName(serviceName)
-                .ruleId(ruleId)
-                .severity(sev)
+                .ruleId(rule.getId())
+                .severity(rule.getSeverity())
                 .status(AlertStatus.OPEN)
                 .observed(observed)
                 .threshold(threshold)
@@ -136,23 +163,11 @@ public class AlertService {
         return alertRepository.save(created);
     }
 
-    /** Close OPEN alerts if conditions have recovered. */
-    private void resolveIfRecovered(String serviceName) {
-        // For this demo: if last 5m ERRORs <= threshold, close any OPEN error.rate.high
-        int threshold = 5;
-        Instant cutoff = Instant.now().minus(5, ChronoUnit.MINUTES);
-        long recentErrors = logRepository.findByServiceNameAndLevelAndTimestampAfter(serviceName,
-                LogLevel.ERROR, cutoff).size();
-
-        if (recentErrors <= threshold) {
-            alertRepository.findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(
-                            serviceName, "error.rate.high", AlertStatus.OPEN)
-                    .ifPresent(a -> {
-                        a.setStatus(AlertStatus.RESOLVED);
-                        a.setClosedAt(Instant.now());
-                        a.setNote((a.getNote() == null ? "" : a.getNote() + " ") + "Auto-resolved.");
-                        alertRepository.save(a);
-                    });
-        }
+    /** Close an OPEN alert whose rule has recovered or no longer applies. */
+    private void resolve(Alert a, String reason) {
+        a.setStatus(AlertStatus.RESOLVED);
+        a.setClosedAt(Instant.now());
+        a.setNote((a.getNote() == null ? "" : a.getNote() + " ") + reason);
+        alertRepository.save(a);
     }
 }
@@ -1,60 +1,95 @@
 package com.logs.service;
 
+import com.logs.cache.SingleFlightCache;
+import com.logs.concurrent.FanOut;
 import com.logs.dto.DashboardSummary;
+import com.logs.enums.AlertStatus;
 import com.logs.enums.LogLevel;
+import com.logs.index.LogIndexManager;
 import com.logs.model.LogEvent;
 import com.logs.repository.AlertRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.stereotype.Service;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.json.JsonData;
 
 import java.time.*;
 import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DashboardService {
 
     private final ElasticsearchOperations esOps;
     private final AlertRepository alertRepository;
+    private final LogIndexManager logIndices;
+    // Concurrent viewers of the same zone share one load, reused for a few seconds
+    private final SingleFlightCache<ZoneId, DashboardSummary> summaryCache;
+    private final FanOut fanOut;
+
+    public DashboardService(ElasticsearchOperations esOps,
+                            AlertRepository alertRepository,
+                            LogIndexManager logIndices,
+                            FanOut fanOut,
+                            @Value("${logs.dashboard.summary-ttl-ms:3000}") long summaryTtlMs) {
+        this.esOps = esOps;
+        this.alertRepository = alertRepository;
+        this.logIndices = logIndices;
+        this.fanOut = fanOut;
+        this.summaryCache = new SingleFlightCache<>(Duration.ofMillis(summaryTtlMs));
+    }
 
     /** Neutral summary: no filters. */
     public DashboardSummary getSummary(ZoneId zone) {
+        return summaryCache.get(zone, () -> loadSummary(zone));
+    }
+
+    /** One ES search (filter aggregations) and the alert count, run side by side. */
+    private DashboardSummary loadSummary(ZoneId zone) {
         Instant startOfToday = LocalDate.now(zone).atStartOfDay(zone).toInstant();
         Instant now = Instant.now();
+        Instant fiveMinutesAgo = now.minus(5, ChronoUnit.MINUTES);
 
-        long totalLogsToday = countLogs(startOfToday, now, null);
-        long errorsLast5m   = countLogs(now.minus(5, ChronoUnit.MINUTES), now, LogLevel.ERROR);
-        long activeAlerts   = alertRepository.countByStatus(com.logs.enums.AlertStatus.OPEN);
-
-        return DashboardSummary.builder()
-                .totalLogsToday(totalLogsToday)
-                .errorsLast5m(errorsLast5m)
-                .activeAlerts(activeAlerts)
+        Instant from = startOfToday.isBefore(fiveMinutesAgo) ? startOfToday : fiveMinutesAgo;
+        NativeQuery nq = new NativeQueryBuilder()
+                .withQuery(range(from, now))
+                .withAggregation("today", Aggregation.of(a -> a.filter(range(startOfToday, now))))
+                .withAggregation("errors_5m", Aggregation.of(a -> a.filter(f -> f.bool(b -> b
+                        .filter(range(fiveMinutesAgo, now))
+                        .filter(q -> q.term(t -> t.field("level").value(LogLevel.ERROR.name())))))))
+                .withMaxResults(0)
                 .build();
-    }
+        try (FanOut.Scope scope = fanOut.open()) {
+            Supplier<Long> activeAlerts = scope.fork(() -> alertRepository.countByStatus(AlertStatus.OPEN));
+            Supplier<SearchHits<LogEvent>> hits = scope.fork(
+                    () -> esOps.search(nq, LogEvent.class, logIndices.searchIndex(from, now)));
+            scope.join();
 
-    private long countLogs(Instant from, Instant to, LogLevel level) {
-        BoolQuery.Builder bool = new BoolQuery.Builder();
-        if (level != null) {
-            bool.filter(q -> q.term(t -> t.field("level").value(level.name())));
+            ElasticsearchAggregations aggs = (ElasticsearchAggregations) hits.get().getAggregations();
+            return DashboardSummary.builder()
+                    .totalLogsToday(docCount(aggs, "today"))
+                    .errorsLast5m(docCount(aggs, "errors_5m"))
+                    .activeAlerts(activeAlerts.get())
+                    .build();
         }
-        if (from != null || to != null) {
-            bool.filter(q -> q.range(r -> {
-                r.field("timestamp");
-                if (from != null) r.gte(JsonData.of(from.toString()));
-                if (to != null)   r.lte(JsonData.of(to.toString()));
-                return r;
-            }));
-        }
-        Query query = Query.of(q -> q.bool(bool.build()));
-        NativeQuery nq = new NativeQueryBuilder().withQuery(query).build();
-        return esOps.count(nq, LogEvent.class);
+    }
+
+    private static Query range(Instant from, Instant to) {
+        return Query.of(q -> q.range(r -> r.field("timestamp")
+                .gte(JsonData.of(from.toString()))
+                .lte(JsonData.of(to.toString()))));
+    }
+
+    private static long docCount(ElasticsearchAggregations aggs, String name) {
+        if (aggs == null || aggs.get(name) == null) return 0;
+        return aggs.get(name).aggregation().getAggregate().filter().docCount();
     }
 }
@@ -1,9 +1,17 @@
 package com.logs.service;
 
+import com.logs.cache.QueryKeyGenerator;
+import com.logs.cache.TrendBucketStore;
+import com.logs.config.CacheConfig;
 import com.logs.dto.*;
 import com.logs.enums.LogLevel;
+import com.logs.util.DateUtils;
 import com.logs.model.LogEvent;
+import com.logs.index.LogIndexManager;
 import com.logs.repository.LogRepository;
+import com.logs.rollup.RollupService;
+import com.logs.search.CursorPager;
+import com.logs.search.QueryProfile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
@@ -12,10 +20,13 @@ import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregatio
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.*;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
-import co.elastic.clients.elasticsearch._types.aggregations.StringTermsAggregate;
 import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import java.util.Map;
@@ -42,9 +53,14 @@ public class ErrorService {
 
     private final ElasticsearchOperations esOps;
     private final LogRepository logRepository;
+    private final QueryKeyGenerator queryKeys;
+    private final TrendBucketStore trendBuckets;
+    private final RollupService rollups;
+    private final LogIndexManager logIndices;
+    private final CursorPager cursorPager;
 
 
-    private Query buildFilter(TimeRangeFilter f) {
+    static Query buildFilter(TimeRangeFilter f) {
         BoolQuery.Builder bool = new BoolQuery.Builder();
 
         if (f != null) {
@@ -70,19 +86,16 @@ public class ErrorService {
         return Query.of(q -> q.bool(bool.build()));
     }
 
-    private Query andFilters(Query... queries) {
-        return Query.of(q -> q.bool(b -> {
-            for (Query qi : queries) b.filter(qi);
-            return b;
-        }));
-    }
-
 //    @SuppressWarnings("unchecked")
 //    private Map<String, Aggregate> aggs(SearchHits<?> hits) {
 //        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
 //        return aggregations.aggregations();
 //    }
 
+    private IndexCoordinates indicesFor(TimeRangeFilter f) {
+        return f == null ? logIndices.searchIndex(null, null) : logIndices.searchIndex(f.getFrom(), f.getTo());
+    }
+
     private Aggregate getAggregation(SearchHits<?> hits, String name) {
         ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
         assert aggregations != null;
@@ -97,72 +110,106 @@ public class ErrorService {
     }
 
 
+    /**
+     * Bucketed log counts (UTC). With a bounded range, closed buckets come from the
+     * {@link TrendBucketStore} and ES is only asked for the newest ones.
+     */
+    @Cacheable(cacheNames = CacheConfig.ERROR_TREND, keyGenerator = "queryKeyGenerator", sync = true,
+            condition = CacheConfig.NOT_PROFILED)
     public TrendResponse trend(TimeRangeFilter f, String interval) {
         String iv = (interval == null || interval.isBlank()) ? "hour" : interval.toLowerCase();
+        CalendarInterval calendarInterval = switch (iv) {
+            case "minute" -> CalendarInterval.Minute;
+            case "day"    -> CalendarInterval.Day;
+            default       -> CalendarInterval.Hour;
+        };
+        TimeRangeFilter nf = queryKeys.normalize(f);
+
+        if (nf.getFrom() == null || nf.getTo() == null || !nf.getFrom().isBefore(nf.getTo())) {
+            Map<Long, Long> counts = histogram(nf, calendarInterval);
+            List<TrendPoint> points = new ArrayList<>();
+            counts.forEach((start, count) -> points.add(new TrendPoint(Instant.ofEpochSecond(start), count)));
+            return new TrendResponse(points, iv);
+        }
+
+        long step = switch (calendarInterval) {
+            case Minute -> 60L;
+            case Day    -> 86_400L;
+            default     -> 3_600L;
+        };
+        TimeRangeFilter signature = TimeRangeFilter.builder()
+                .serviceName(nf.getServiceName()).level(nf.getLevel()).env(nf.getEnv()).build();
+        String key = queryKeys.generate(null, null, signature, calendarInterval.name());
+
+        List<TrendPoint> points = trendBuckets.points(key, step, nf.getFrom(), nf.getTo(), (from, to) ->
+                histogram(TimeRangeFilter.builder()
+                        .serviceName(nf.getServiceName()).level(nf.getLevel()).env(nf.getEnv())
+                        .from(from).to(to).build(), calendarInterval));
+        return new TrendResponse(points, iv);
+    }
 
+    /** Bucket start (epoch s) to doc count, in bucket order. */
+    private Map<Long, Long> histogram(TimeRangeFilter f, CalendarInterval calendarInterval) {
+        long t = System.nanoTime();
         NativeQuery nq = new NativeQueryBuilder()
                 .withQuery(buildFilter(f))
                 .withAggregation("trend", Aggregation.of(a -> a.dateHistogram(
                         DateHistogramAggregation.of(d -> d
                                 .field("timestamp")
-                                .calendarInterval(
-                                        switch (iv) {
-                                            case "minute" -> CalendarInterval.Minute;
-                                            case "day"    -> CalendarInterval.Day;
-                                            default       -> CalendarInterval.Hour;
-                                        }
-                                )
+                                .calendarInterval(calendarInterval)
                                 .minDocCount(0)
                                 .timeZone("UTC")
                         ))))
+                .withMaxResults(0)
                 .build();
+        IndexCoordinates indices = indicesFor(f);
+        QueryProfile.record(QueryProfile.Phase.BUILD, t);
 
-        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class);
+        t = System.nanoTime();
+        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class, indices);
+        QueryProfile.record(QueryProfile.Phase.SEARCH, t);
+        t = System.nanoTime();
         DateHistogramAggregate dh = getAggregation(hits, "trend").dateHistogram();
 
-        List<TrendPoint> points = new ArrayList<>();
+        Map<Long, Long> counts = new LinkedHashMap<>();
         for (DateHistogramBucket b : dh.buckets().array()) {
-            points.add(new TrendPoint(Instant.ofEpochMilli(b.key()), b.docCount()));
+            counts.put(b.key() / 1000, b.docCount());
         }
-        return new TrendResponse(points, iv);
+        QueryProfile.record(QueryProfile.Phase.MAP, t);
+        return counts;
     }
 
+    /** Counts per level; long ranges are answered from the rollup indices. */
+    @Cacheable(cacheNames = CacheConfig.ERROR_SEVERITY, keyGenerator = "queryKeyGenerator", sync = true,
+            condition = CacheConfig.NOT_PROFILED)
     public SeverityCounts severity(TimeRangeFilter f) {
-        NativeQuery nq = new NativeQueryBuilder()
-                .withQuery(buildFilter(f))
-                .withAggregation("by_level", Aggregation.of(a -> a.terms(
-                        t -> t.field("level").size(10))))
+        Map<String, Long> byLevel = rollups.countBy("level", queryKeys.normalize(f), 10);
+        return SeverityCounts.builder()
+                .error(byLevel.getOrDefault(LogLevel.ERROR.name(), 0L))
+                .warn(byLevel.getOrDefault(LogLevel.WARN.name(), 0L))
+                .info(byLevel.getOrDefault(LogLevel.INFO.name(), 0L))
                 .build();
-
-        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class);
-        StringTermsAggregate st = getAggregation(hits, "by_level").sterms();
-
-        long err = 0, warn = 0, info = 0;
-        for (StringTermsBucket b : st.buckets().array()) {
-            String k = b.key().stringValue();
-            if ("ERROR".equals(k)) err = b.docCount();
-            else if ("WARN".equals(k)) warn = b.docCount();
-            else if ("INFO".equals(k)) info = b.docCount();
-        }
-        return new SeverityCounts(err, warn, info);
     }
 
 
+    /** ERROR counts per service; long ranges are answered from the rollup indices. */
+    @Cacheable(cacheNames = CacheConfig.ERRORS_BY_SERVICE, keyGenerator = "queryKeyGenerator", sync = true,
+            condition = CacheConfig.NOT_PROFILED)
     public List<CountByService> errorsByService(TimeRangeFilter f, int topN) {
-        Query base = buildFilter(f);
-        Query onlyError = Query.of(q -> q.term(t -> t.field("level").value(LogLevel.ERROR.name())));
-
-        NativeQuery nq = new NativeQueryBuilder()
-                .withQuery(andFilters(base, onlyError))
-                .withAggregation("by_svc", Aggregation.of(a -> a.terms(
-                        t -> t.field("serviceName").size(Math.max(topN, 5)))))
+        TimeRangeFilter nf = queryKeys.normalize(f);
+        if (nf.getLevel() != null && nf.getLevel() != LogLevel.ERROR) {
+            return List.of();
+        }
+        TimeRangeFilter onlyError = TimeRangeFilter.builder()
+                .from(nf.getFrom()).to(nf.getTo())
+                .serviceName(nf.getServiceName()).env(nf.getEnv())
+                .level(LogLevel.ERROR)
                 .build();
 
-        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class);
-        StringTermsAggregate st = getAggregation(hits, "by_svc").sterms();
-
-        return st.buckets().array().stream()
-                .map(b -> new CountByService(b.key().stringValue(), b.docCount()))
+        // Rollup segments are merged, so each one must return enough services to rank the top N
+        Map<String, Long> bySvc = rollups.countBy("serviceName", onlyError, Math.max(topN * 10, 100));
+        return bySvc.entrySet().stream()
+                .map(e -> new CountByService(e.getKey(), e.getValue()))
                 .sorted(Comparator.comparingLong(CountByService::getCount).reversed())
                 .limit(topN)
                 .collect(Collectors.toList());
@@ -170,18 +217,86 @@ public class ErrorService {
 
 
 
-    public PagedRecentErrors recent(TimeRangeFilter f, int page, int size) {
+    /**
+     * Most frequent message templates (ERROR unless the filter names another level), with the
+     * service and time of the latest occurrence. One terms aggregation on the ingest-time templateHash.
+     */
+    @Cacheable(cacheNames = CacheConfig.ERROR_TOP_MESSAGES, keyGenerator = "queryKeyGenerator", sync = true,
+            condition = CacheConfig.NOT_PROFILED)
+    public List<TopMessageRow> topMessages(TimeRangeFilter f, int topN) {
+        long phase = System.nanoTime();
+        TimeRangeFilter nf = queryKeys.normalize(f);
+        LogLevel level = nf.getLevel() != null ? nf.getLevel() : LogLevel.ERROR;
+        TimeRangeFilter filter = TimeRangeFilter.builder()
+                .from(nf.getFrom()).to(nf.getTo())
+                .serviceName(nf.getServiceName()).env(nf.getEnv())
+                .level(level)
+                .build();
+
+        NativeQuery nq = new NativeQueryBuilder()
+                .withQuery(buildFilter(filter))
+                .withAggregation("by_template", new Aggregation.Builder()
+                        .terms(t -> t.field("templateHash").size(Math.max(topN, 1)))
+                        .aggregations("latest", a -> a.topHits(h -> h
+                                .size(1)
+                                .sort(s -> s.field(fs -> fs.field("timestamp").order(SortOrder.Desc)))
+                                .source(src -> src.filter(sf -> sf.includes("messageTemplate", "serviceName", "timestamp")))))
+                        .build())
+                .withMaxResults(0)
+                .build();
+        IndexCoordinates indices = indicesFor(filter);
+        QueryProfile.record(QueryProfile.Phase.BUILD, phase);
+
+        phase = System.nanoTime();
+        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class, indices);
+        QueryProfile.record(QueryProfile.Phase.SEARCH, phase);
+        phase = System.nanoTime();
+        List<TopMessageRow> rows = new ArrayList<>();
+        for (StringTermsBucket b : getAggregation(hits, "by_template").sterms().buckets().array()) {
+            List<Hit<JsonData>> latest = b.aggregations().get("latest").topHits().hits().hits();
+            Map<?, ?> src = latest.isEmpty() || latest.get(0).source() == null
+                    ? Map.of() : latest.get(0).source().to(Map.class);
+            Object ts = src.get("timestamp");
+            rows.add(TopMessageRow.builder()
+                    .message((String) src.get("messageTemplate"))
+                    .count(b.docCount())
+                    .serviceName((String) src.get("serviceName"))
+                    .lastOccurred(ts == null ? null : DateUtils.parseIsoInstant(ts.toString()))
+                    .build());
+        }
+        QueryProfile.record(QueryProfile.Phase.MAP, phase);
+        return rows;
+    }
+
+    /**
+     * Newest logs first. With {@code scroll}, or with a cursor, the page is served from a
+     * point-in-time scroll and returns {@code nextCursor}; otherwise page numbers use from+size.
+     */
+    public PagedRecentErrors recent(TimeRangeFilter f, int page, int size, String cursor, boolean scroll) {
         Pageable pageable = PageRequest.of(
                 Math.max(page, 0),
                 Math.min(Math.max(size, 1), 100),
                 Sort.by(Sort.Direction.DESC, "timestamp"));
 
+        if (cursor != null || scroll) {
+            NativeQuery nq = new NativeQueryBuilder().withQuery(buildFilter(f)).build();
+            CursorPager.Page<LogEvent> p = cursorPager.fetch(
+                    nq, LogEvent.class, indicesFor(f), pageable.getSort(), pageable.getPageSize(), cursor);
+            return PagedRecentErrors.builder()
+                    .items(p.hits().getSearchHits().stream().map(SearchHit::getContent).toList())
+                    .total(p.hits().getTotalHits())
+                    .page(pageable.getPageNumber())
+                    .size(pageable.getPageSize())
+                    .nextCursor(p.nextCursor())
+                    .build();
+        }
+
         NativeQuery nq = new NativeQueryBuilder()
                 .withQuery(buildFilter(f))
                 .withPageable(pageable)
                 .build();
 
-        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class);
+        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class, indicesFor(f));
         List<LogEvent> items = hits.getSearchHits().stream()
                 .map(SearchHit::getContent)
                 .toList();
@@ -0,0 +1,107 @@
+package com.logs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.dto.LogSearchRequest;
+import com.logs.enums.ExportFormat;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogEvent;
+import com.logs.search.CursorPager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Streams every log matching a search request, page by page from a point-in-time cursor, straight
+ * into the response. Only one page is held in memory at a time.
+ * <p>
+ * After each page a checkpoint with the cursor of the next page is written
+ * ({@code {"@cursor":"..."}} in NDJSON, {@code # cursor=...} in CSV); sending it back as
+ * {@code cursor} resumes the export after the last complete page while the PIT is alive.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LogExportService {
+
+    static final String CSV_HEADER = "timestamp,serviceName,env,level,traceId,latencyMs,tenant,id,message,stack\n";
+
+    private final LogService logService;
+    private final CursorPager cursorPager;
+    private final LogIndexManager logIndices;
+    private final ObjectMapper objectMapper;
+
+    @Value("${logs.export.page-size:1000}")
+    private int pageSize;
+
+    /** @throws IllegalArgumentException when the request carries a cursor that cannot be decoded */
+    public void validate(LogSearchRequest req) {
+        if (req.getCursor() != null) cursorPager.decode(req.getCursor());
+    }
+
+    /** @return number of logs written */
+    public long export(LogSearchRequest req, ExportFormat format, OutputStream out) throws IOException {
+        if (format == ExportFormat.CSV && req.getCursor() == null) write(out, CSV_HEADER);
+
+        String cursor = req.getCursor();
+        long written = 0;
+        do {
+            CursorPager.Page<LogEvent> page = cursorPager.fetch(
+                    new NativeQueryBuilder().withQuery(logService.searchQuery(req)).build(), LogEvent.class,
+                    logIndices.searchIndex(req.getFrom(), req.getTo()), logService.searchSort(req),
+                    Math.max(pageSize, 1), cursor);
+            for (SearchHit<LogEvent> hit : page.hits().getSearchHits()) {
+                if (format == ExportFormat.CSV) write(out, csvLine(hit.getContent()));
+                else {
+                    out.write(objectMapper.writeValueAsBytes(hit.getContent()));
+                    out.write('\n');
+                }
+                written++;
+            }
+            cursor = page.nextCursor();
+            if (cursor != null) {
+                if (format == ExportFormat.CSV) write(out, "# cursor=" + cursor + "\n");
+                else write(out, objectMapper.writeValueAsString(Map.of("@cursor", cursor)) + "\n");
+            }
+            out.flush();
+        } while (cursor != null);
+
+        log.info("Exported {} logs as {}", written, format);
+        return written;
+    }
+
+    static String csvLine(LogEvent e) {
+        StringBuilder sb = new StringBuilder(256);
+        appendCsv(sb, e.getTimestamp()).append(',');
+        appendCsv(sb, e.getServiceName()).append(',');
+        appendCsv(sb, e.getEnv()).append(',');
+        appendCsv(sb, e.getLevel()).append(',');
+        appendCsv(sb, e.getTraceId()).append(',');
+        appendCsv(sb, e.getLatencyMs()).append(',');
+        appendCsv(sb, e.getTenant()).append(',');
+        appendCsv(sb, e.getId()).append(',');
+        appendCsv(sb, e.getMessage()).append(',');
+        appendCsv(sb, e.getStack()).append('\n');
+        return sb.toString();
+    }
+
+    private static StringBuilder appendCsv(StringBuilder sb, Object value) {
+        if (value == null) return sb;
+        String s = value.toString();
+        boolean quote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0
+                || s.indexOf('\r') >= 0 || s.startsWith("#");
+        if (!quote) return sb.append(s);
+        return sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void write(OutputStream out, String s) throws IOException {
+        out.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,26 +1,44 @@
 package com.logs.service;
 
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.dto.BatchIngestResponse;
+import com.logs.dto.CursorPage;
+import com.logs.dto.BatchItemError;
 import com.logs.dto.LogRequest;
 import com.logs.enums.LogLevel;
 import com.logs.enums.Environment;
+import com.logs.index.LogIndexManager;
+import com.logs.index.LogIndices;
+import com.logs.ingest.IngestPipeline;
+import com.logs.ingest.MessageFingerprint;
 import com.logs.model.LogEvent;
 import com.logs.repository.CacheRepository;
-import com.logs.repository.LogRepository;
+import com.logs.search.CursorPager;
+import com.logs.search.MessageQueries;
+import com.logs.search.QueryProfile;
 import com.logs.util.DateUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.*;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.*;
 import org.springframework.data.elasticsearch.core.query.*;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import com.logs.dto.LogSearchRequest;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 import java.util.Objects;
+import java.util.UUID;
 
 import static org.springframework.data.elasticsearch.core.SearchHitSupport.searchPageFor;
 
@@ -29,19 +47,106 @@ import static org.springframework.data.elasticsearch.core.SearchHitSupport.searc
 @RequiredArgsConstructor
 public class LogService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final LogRepository logRepository;
+    private final IngestPipeline ingestPipeline;
     private final CacheRepository cacheRepository;
 
     private final ElasticsearchOperations esOps;
+    private final ObjectMapper objectMapper;
+    private final LogIndexManager logIndices;
+    private final CursorPager cursorPager;
 
-    private static final String TOPIC_NAME = "log-events";
+    @Value("${logs.ingest.max-timestamp-age-days:${logs.index.retention-days:30}}")
+    private int maxTimestampAgeDays;
+
+    @Value("${logs.ingest.max-timestamp-skew-seconds:300}")
+    private long maxTimestampSkewSeconds;
 
     /**
-     * Save a new log event: send to Kafka, cache, and index in ES.
+     * Accept a new log event. It is published to Kafka (and cached in Redis) asynchronously by the ingest pipeline;
+     * {@link com.logs.ingest.LogEventConsumer} indexes it into ES from the topic.
      */
     public void processLog(LogRequest dto) {
+        ingestPipeline.submit(checkTimestamp(toEvent(dto)));
+    }
+
+    /**
+     * Accept a batch of logs.
+     * Invalid or rejected items are reported individually; the rest of the batch is still accepted.
+     */
+    public BatchIngestResponse processBatch(List<LogRequest> requests) {
+        List<BatchItemError> errors = new ArrayList<>();
+        int accepted = 0;
+
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                ingestPipeline.submit(checkTimestamp(toEvent(validate(requests.get(i)))));
+                accepted++;
+            } catch (Exception e) {
+                errors.add(new BatchItemError(i, e.getMessage()));
+            }
+        }
+        return batchResponse(requests.size(), accepted, errors);
+    }
+
+    /**
+     * Accept a newline-delimited JSON body (one LogRequest per line).
+     * Blank lines are ignored; a malformed line only fails that item. Errors carry the physical
+     * line number (0-based, blank lines included) so clients can find the line in what they sent.
+     */
+    public BatchIngestResponse processNdjson(String body) {
+        List<BatchItemError> errors = new ArrayList<>();
+        int accepted = 0;
+        int received = 0;
+
+        String[] lines = (body == null ? "" : body).split("\\r?\\n");
+        for (int lineNo = 0; lineNo < lines.length; lineNo++) {
+            String line = lines[lineNo];
+            if (line.isBlank()) continue;
+            received++;
+            try {
+                ingestPipeline.submit(checkTimestamp(toEvent(validate(objectMapper.readValue(line, LogRequest.class)))));
+                accepted++;
+            } catch (Exception e) {
+                errors.add(new BatchItemError(lineNo, e.getMessage()));
+            }
+        }
+        return batchResponse(received, accepted, errors);
+    }
+
+    private BatchIngestResponse batchResponse(int received, int accepted, List<BatchItemError> errors) {
+        log.info("Batch ingest: {} received, {} accepted, {} failed", received, accepted, errors.size());
+        return BatchIngestResponse.builder()
+                .received(received)
+                .accepted(accepted)
+                .failed(errors.size())
+                .errors(errors)
+                .build();
+    }
+
+    private static LogRequest validate(LogRequest dto) {
+        if (dto == null || dto.getServiceName() == null || dto.getServiceName().isBlank()) {
+            throw new IllegalArgumentException("serviceName is required");
+        }
+        return dto;
+    }
+
+    /**
+     * Refuse client timestamps older than {@code logs.ingest.max-timestamp-age-days} (default: the index
+     * retention) or more than {@code logs.ingest.max-timestamp-skew-seconds} ahead; they would land in a
+     * daily index that is already deleted or does not exist yet.
+     */
+    private LogEvent checkTimestamp(LogEvent event) {
+        if (!LogIndices.inWriteWindow(event.getTimestamp(), Instant.now(),
+                Duration.ofDays(maxTimestampAgeDays), Duration.ofSeconds(maxTimestampSkewSeconds))) {
+            throw new IllegalArgumentException("timestamp " + event.getTimestamp() + " is outside the accepted window ("
+                    + maxTimestampAgeDays + " days back, " + maxTimestampSkewSeconds + " s ahead)");
+        }
+        return event;
+    }
+
+    static LogEvent toEvent(LogRequest dto) {
         LogEvent event = LogEvent.builder()
+                .id(UUID.randomUUID().toString()) // fixed up front so Kafka redelivery re-indexes the same document
                 .serviceName(dto.getServiceName())
                 .env(Environment.DEV)
                 .tenant("default")
@@ -51,86 +156,96 @@ public class LogService {
                 .timestamp(dto.getTimestamp() != null ?
                         DateUtils.parseIsoInstant(dto.getTimestamp()) : Instant.now())
                 .build();
+        // grouped at write time, so top error patterns are a terms aggregation on templateHash
+        MessageFingerprint.fill(event);
+        return event;
+    }
 
-        // Send to Kafka
-        kafkaTemplate.send(TOPIC_NAME, event.toString());
-        log.info("Published log to Kafka: {}", event);
+    /** Most recent logs from the Redis windows, newest first. serviceName and level are optional filters. */
+    public List<LogEvent> getRecentLogs(String serviceName, LogLevel level) {
+        return cacheRepository.getRecentLogs(serviceName, level);
+    }
 
-        // Save to Elasticsearch
-        logRepository.save(event);
-        log.info("Indexed log in Elasticsearch: {}", event.getId());
+    public Page<LogEvent> searchLogs(LogSearchRequest req) {
+        long t = System.nanoTime();
+        Query query = searchQuery(req);
 
-        // Update cache (keep last few logs in Redis)
-        List<LogEvent> recentLogs = cacheRepository.getRecentLogs();
-        if (recentLogs != null && recentLogs.size() >= 10) {
-            recentLogs.remove(0);
-        }
-        if (recentLogs != null) {
-            recentLogs.add(event);
-            cacheRepository.saveRecentLogs(recentLogs);
-        } else {
-            cacheRepository.saveRecentLogs(List.of(event));
+        int page = req.getPage() == null ? 0 : Math.max(req.getPage(), 0);
+        int size = req.getSize() == null ? 20 : Math.min(Math.max(req.getSize(), 1), 200);
+        Sort sort = searchSort(req);
+        Pageable pageable = PageRequest.of(page, size, sort);
+        IndexCoordinates indices = logIndices.searchIndex(req.getFrom(), req.getTo());
+        QueryProfile.record(QueryProfile.Phase.BUILD, t);
+
+        // An explicit scroll request (or a follow-up with a cursor) starts/continues a point-in-time
+        // scroll; plain page numbers are served with from+size and never open a PIT
+        if (req.getCursor() != null || req.isScroll()) {
+            t = System.nanoTime();
+            CursorPager.Page<LogEvent> p = cursorPager.fetch(
+                    new NativeQueryBuilder().withQuery(query).build(), LogEvent.class, indices, sort, size, req.getCursor());
+            QueryProfile.record(QueryProfile.Phase.SEARCH, t);
+            t = System.nanoTime();
+            List<LogEvent> content = p.hits().getSearchHits().stream().map(SearchHit::getContent).toList();
+            CursorPage<LogEvent> result = new CursorPage<>(content, pageable, p.hits().getTotalHits(), p.nextCursor());
+            QueryProfile.record(QueryProfile.Phase.MAP, t);
+            return result;
         }
-    }
 
-    public List<LogEvent> getRecentLogs() { return cacheRepository.getRecentLogs(); }
+        NativeQuery q = new NativeQueryBuilder().withQuery(query).withPageable(pageable).build();
 
-    public Page<LogEvent> searchLogs(LogSearchRequest req) {
-        Criteria rootCriteria = new Criteria();
+        t = System.nanoTime();
+        SearchHits<LogEvent> hits = esOps.search(q, LogEvent.class, indices);
+        QueryProfile.record(QueryProfile.Phase.SEARCH, t);
+        t = System.nanoTime();
+        Page<LogEvent> result = SearchHitSupport.searchPageFor(hits, pageable).map(SearchHit::getContent);
+        QueryProfile.record(QueryProfile.Phase.MAP, t);
+        return result;
+    }
+
+    /** The filters of a search request (paging and sort excluded); shared with the export. */
+    Query searchQuery(LogSearchRequest req) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
 
         if (req.getServiceName() != null && !req.getServiceName().isBlank()) {
-            rootCriteria.subCriteria(Criteria.where("serviceName").is(req.getServiceName()));
+            bool.filter(q -> q.term(t -> t.field("serviceName").value(req.getServiceName())));
         }
 
         if (req.getTraceId() != null && !req.getTraceId().isBlank()) {
-            rootCriteria.subCriteria(Criteria.where("traceId").is(req.getTraceId()));
+            bool.filter(q -> q.term(t -> t.field("traceId").value(req.getTraceId())));
         }
 
         if (req.getLevel() != null) {
-            rootCriteria.subCriteria(Criteria.where("level").is(req.getLevel().name()));
+            bool.filter(q -> q.term(t -> t.field("level").value(req.getLevel().name())));
         }
 
         if (req.getEnv() != null) {
-            rootCriteria.subCriteria(Criteria.where("env").is(req.getEnv().name()));
+            bool.filter(q -> q.term(t -> t.field("env").value(req.getEnv().name())));
         }
 
         if (req.getFrom() != null || req.getTo() != null) {
-            Criteria timestampCriteria = Criteria.where("timestamp");
-            if (req.getFrom() != null) timestampCriteria = timestampCriteria.greaterThanEqual(req.getFrom());
-            if (req.getTo() != null) timestampCriteria = timestampCriteria.lessThanEqual(req.getTo());
-            rootCriteria.subCriteria(timestampCriteria);
+            bool.filter(q -> q.range(r -> {
+                r.field("timestamp");
+                if (req.getFrom() != null) r.gte(JsonData.of(req.getFrom().toString()));
+                if (req.getTo() != null) r.lte(JsonData.of(req.getTo().toString()));
+                return r;
+            }));
         }
 
         if (req.getMessage() != null && !req.getMessage().isBlank()) {
             String mode = Objects.toString(req.getMessageMode(), "contains").toLowerCase();
-
-            Criteria messageCriteria;
-            if ("exact".equals(mode)) {
-                messageCriteria = Criteria.where("message.keyword").is(req.getMessage());
-            } else if ("prefix".equals(mode)) {
-                messageCriteria = Criteria.where("message").startsWith(req.getMessage());
-            } else {
-                messageCriteria = Criteria.where("message").contains(req.getMessage());
-            }
-            rootCriteria.subCriteria(messageCriteria);
+            bool.filter(MessageQueries.forMode(mode, req.getMessage(), logIndices.keywordMessageIndices()));
         }
+        return Query.of(q -> q.bool(bool.build()));
+    }
 
-        System.out.println("Constructed Criteria: " + rootCriteria);
-
-        int page = req.getPage() == null ? 0 : Math.max(req.getPage(), 0);
-        int size = req.getSize() == null ? 20 : Math.min(Math.max(req.getSize(), 1), 200);
-        Sort sort = Sort.by(
+    Sort searchSort(LogSearchRequest req) {
+        return Sort.by(
                 "DESC".equalsIgnoreCase(req.getSortDir()) ? Sort.Direction.DESC : Sort.Direction.ASC,
-                req.getSortBy() == null ? "timestamp" : req.getSortBy()
-        );
-        Pageable pageable = PageRequest.of(page, size, sort);
-
-        Query q = new CriteriaQuery(rootCriteria, pageable);
-
-        SearchHits<LogEvent> hits = esOps.search(q, LogEvent.class);
-        return SearchHitSupport.searchPageFor(hits, pageable).map(SearchHit::getContent);
+                req.getSortBy() == null ? "timestamp" : sortField(req.getSortBy()));
     }
 
-
-
+    /** message is analyzed text now; sorting uses its keyword sub-field. */
+    private static String sortField(String sortBy) {
+        return "message".equals(sortBy) ? "message.keyword" : sortBy;
+    }
 }
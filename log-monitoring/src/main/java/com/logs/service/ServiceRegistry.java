@@ -0,0 +1,129 @@
+package com.logs.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Services that have logged recently, kept in a Redis sorted set scored by last-seen time.
+ * Ingest only touches a local map; the map is flushed to Redis as one ZADD every few seconds,
+ * so Redis sees at most one write per service per flush.
+ * If Redis is empty or unavailable, the active services come from an ES terms aggregation.
+ */
+@Slf4j
+@Service
+public class ServiceRegistry {
+
+    static final String SERVICES_KEY = "services:last_seen";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ElasticsearchOperations esOps;
+    private final LogIndexManager logIndices;
+    private final ConcurrentMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final Duration activeHorizon;
+    private final Duration retention;
+
+    public ServiceRegistry(RedisTemplate<String, Object> redisTemplate,
+                           ElasticsearchOperations esOps,
+                           LogIndexManager logIndices,
+                           @Value("${logs.services.active-horizon-minutes:60}") long activeHorizonMinutes,
+                           @Value("${logs.services.retention-days:7}") long retentionDays) {
+        this.redisTemplate = redisTemplate;
+        this.esOps = esOps;
+        this.logIndices = logIndices;
+        this.activeHorizon = Duration.ofMinutes(activeHorizonMinutes);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /** Called from the ingest path; no I/O. */
+    public void record(LogEvent event) {
+        String svc = event.getServiceName();
+        if (svc == null || svc.isBlank()) return;
+        pending.put(svc, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${logs.services.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        Set<TypedTuple<Object>> tuples = new HashSet<>();
+        for (Map.Entry<String, Long> e : pending.entrySet()) {
+            // remove only if not touched again meanwhile; a newer value is flushed next time
+            if (pending.remove(e.getKey(), e.getValue())) {
+                tuples.add(new DefaultTypedTuple<>(e.getKey(), e.getValue().doubleValue()));
+            }
+        }
+        try {
+            redisTemplate.opsForZSet().add(SERVICES_KEY, tuples);
+            long cutoff = Instant.now().minus(retention).toEpochMilli();
+            redisTemplate.opsForZSet().removeRangeByScore(SERVICES_KEY, 0, cutoff);
+        } catch (RuntimeException e) {
+            log.warn("Could not update service registry: {}", e.getMessage());
+            for (TypedTuple<Object> t : tuples) {
+                pending.merge((String) t.getValue(), t.getScore().longValue(), Math::max);
+            }
+        }
+    }
+
+    /** Services seen within {@code logs.services.active-horizon-minutes}. */
+    public Set<String> activeServices() {
+        return servicesSince(Instant.now().minus(activeHorizon));
+    }
+
+    /** Every registered service, i.e. seen within {@code logs.services.retention-days}, however quiet it is now. */
+    public Set<String> knownServices() {
+        return servicesSince(Instant.now().minus(retention));
+    }
+
+    private Set<String> servicesSince(Instant since) {
+        Set<String> services = new TreeSet<>(pending.keySet());
+        try {
+            Set<Object> members = redisTemplate.opsForZSet()
+                    .rangeByScore(SERVICES_KEY, since.toEpochMilli(), Double.POSITIVE_INFINITY);
+            if (members != null && !members.isEmpty()) {
+                members.forEach(m -> services.add((String) m));
+                return services;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Service registry unavailable, falling back to Elasticsearch: {}", e.getMessage());
+        }
+        services.addAll(servicesFromIndex(since));
+        return services;
+    }
+
+    private Set<String> servicesFromIndex(Instant since) {
+        NativeQuery nq = new NativeQueryBuilder()
+                .withQuery(Query.of(q -> q.range(r -> r.field("timestamp").gte(JsonData.of(since.toString())))))
+                .withAggregation("services", Aggregation.of(a -> a.terms(t -> t.field("serviceName").size(1000))))
+                .withMaxResults(0)
+                .build();
+        SearchHits<LogEvent> hits = esOps.search(nq, LogEvent.class, logIndices.searchIndex(since, null));
+        ElasticsearchAggregations aggs = (ElasticsearchAggregations) hits.getAggregations();
+        Set<String> services = new HashSet<>();
+        if (aggs == null || aggs.get("services") == null) return services;
+        for (StringTermsBucket b : aggs.get("services").aggregation().getAggregate().sterms().buckets().array()) {
+            services.add(b.key().stringValue());
+        }
+        return services;
+    }
+}
@@ -0,0 +1,50 @@
+package com.logs.stream;
+
+import com.logs.model.LogEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-size, lock-free ring of the most recent logs. Writers claim a sequence number with a
+ * single atomic increment and overwrite the oldest slot; readers never block writers.
+ */
+public class LiveTailBuffer {
+
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    /** @param capacity rounded up to the next power of two */
+    public LiveTailBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void publish(LogEvent event) {
+        long seq = next.getAndIncrement();
+        slots.set((int) (seq & mask), event);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Up to {@code limit} of the newest buffered logs matching {@code filter}, oldest first. */
+    public List<LogEvent> snapshot(Predicate<LogEvent> filter, int limit) {
+        List<LogEvent> out = new ArrayList<>(Math.min(limit, capacity()));
+        long end = next.get();
+        long start = Math.max(0, end - capacity());
+        for (long seq = end - 1; seq >= start && out.size() < limit; seq--) {
+            LogEvent e = slots.get((int) (seq & mask));
+            if (e != null && filter.test(e)) out.add(e);
+        }
+        Collections.reverse(out);
+        return out;
+    }
+}
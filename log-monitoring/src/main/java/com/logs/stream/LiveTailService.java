@@ -0,0 +1,146 @@
+package com.logs.stream;
+
+import com.logs.enums.LogLevel;
+import com.logs.exception.SubscriberLimitException;
+import com.logs.model.LogEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live tail over Server-Sent Events. Ingested logs go into an in-memory {@link LiveTailBuffer}
+ * and are fanned out to each subscriber's bounded queue; a small shared pool pushes queued logs
+ * to the clients. Viewers never touch ES or Redis.
+ */
+@Slf4j
+@Service
+public class LiveTailService {
+
+    private static final int MAX_EVENTS_PER_DRAIN = 256;
+
+    private final LiveTailBuffer buffer;
+    private final List<LiveTailSubscription> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+
+    private final int subscriberQueueSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+
+    public LiveTailService(@Value("${logs.stream.buffer-size:4096}") int bufferSize,
+                           @Value("${logs.stream.subscriber-queue-size:1000}") int subscriberQueueSize,
+                           @Value("${logs.stream.max-subscribers:500}") int maxSubscribers,
+                           @Value("${logs.stream.dispatch-threads:4}") int dispatchThreads,
+                           @Value("${logs.stream.heartbeat-ms:15000}") long heartbeatMs,
+                           @Value("${logs.stream.timeout-ms:1800000}") long timeoutMs) {
+        this.buffer = new LiveTailBuffer(bufferSize);
+        this.subscriberQueueSize = subscriberQueueSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(dispatchThreads, 1), daemon("live-tail-dispatch"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("live-tail-heartbeat"));
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        subscribers.forEach(s -> s.getEmitter().complete());
+    }
+
+    /** Called from the ingest path for every accepted log. */
+    public void publish(LogEvent event) {
+        buffer.publish(event);
+        for (LiveTailSubscription sub : subscribers) {
+            if (sub.test(event) && sub.offer(event)) {
+                dispatcher.execute(() -> drain(sub));
+            }
+        }
+    }
+
+    /**
+     * Open a live tail. The stream starts with up to {@code backfill} buffered logs that match the filters.
+     *
+     * @throws SubscriberLimitException when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(String serviceName, LogLevel level, String traceId, int backfill) {
+        if (reserved.incrementAndGet() > maxSubscribers) {
+            reserved.decrementAndGet();
+            throw new SubscriberLimitException("Too many live tail subscribers (" + maxSubscribers + ")");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        LiveTailSubscription sub = new LiveTailSubscription(serviceName, level, traceId, subscriberQueueSize, emitter);
+
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> remove(sub));
+        emitter.onError(e -> remove(sub));
+
+        // register first so nothing published while the backfill is read is missed
+        subscribers.add(sub);
+        sub.backfill(buffer.snapshot(sub, Math.max(backfill, 0)));
+        dispatcher.execute(() -> drain(sub));
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void drain(LiveTailSubscription sub) {
+        do {
+            if (sub.isClosed()) return;
+            try {
+                long dropped = sub.takeDropped();
+                if (dropped > 0) {
+                    sub.getEmitter().send(SseEmitter.event().name("dropped").data(dropped));
+                }
+                for (LogEvent e : sub.drain(MAX_EVENTS_PER_DRAIN)) {
+                    sub.getEmitter().send(SseEmitter.event().name("log").data(e, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Live tail client went away: {}", e.getMessage());
+                remove(sub);
+                sub.getEmitter().completeWithError(e);
+                return;
+            }
+        } while (sub.finishDrain());
+    }
+
+    private void sendHeartbeats() {
+        for (LiveTailSubscription sub : subscribers) {
+            try {
+                sub.getEmitter().send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                remove(sub);
+            }
+        }
+    }
+
+    private void remove(LiveTailSubscription sub) {
+        sub.close();
+        if (subscribers.remove(sub)) reserved.decrementAndGet();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        return new ThreadFactory() {
+            private int n;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, prefix + "-" + (n++));
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.logs.stream;
+
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * One SSE viewer: its filter, its emitter and a bounded queue that drops the oldest
+ * logs when the client cannot keep up, so a slow viewer never slows ingest.
+ * <p>
+ * A subscription is registered before its backfill is read, so a log published in between can
+ * arrive both ways; the backfill is sent first and live copies of backfilled logs are skipped.
+ * No drain is scheduled until {@link #backfill} has been called.
+ */
+class LiveTailSubscription implements Predicate<LogEvent> {
+
+    private final String serviceName;
+    private final LogLevel level;
+    private final String traceId;
+    private final ArrayBlockingQueue<LogEvent> queue;
+
+    @Getter
+    private final SseEmitter emitter;
+    private final AtomicLong dropped = new AtomicLong();
+    // held until the backfill is in place; the subscriber then schedules the first drain itself
+    private final AtomicBoolean scheduled = new AtomicBoolean(true);
+    // touched by the draining thread only (and before the first drain is scheduled)
+    private final Deque<LogEvent> backfill = new ArrayDeque<>();
+    private final Set<LogEvent> backfilled = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean closed;
+
+    LiveTailSubscription(String serviceName, LogLevel level, String traceId, int queueSize, SseEmitter emitter) {
+        this.serviceName = blankToNull(serviceName);
+        this.level = level;
+        this.traceId = blankToNull(traceId);
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+        this.emitter = emitter;
+    }
+
+    @Override
+    public boolean test(LogEvent e) {
+        return (serviceName == null || serviceName.equals(e.getServiceName()))
+                && (level == null || level == e.getLevel())
+                && (traceId == null || traceId.equals(e.getTraceId()));
+    }
+
+    /** Enqueue, evicting the oldest queued log if full. Returns true if the caller should schedule a drain. */
+    boolean offer(LogEvent e) {
+        while (!queue.offer(e)) {
+            if (queue.poll() != null) dropped.incrementAndGet();
+        }
+        return scheduled.compareAndSet(false, true);
+    }
+
+    /** Logs from the tail buffer to send ahead of anything queued live. */
+    void backfill(List<LogEvent> events) {
+        backfill.addAll(events);
+        backfilled.addAll(events);
+    }
+
+    List<LogEvent> drain(int max) {
+        List<LogEvent> batch = new ArrayList<>(Math.min(max, backfill.size() + queue.size()));
+        while (batch.size() < max && !backfill.isEmpty()) batch.add(backfill.poll());
+        while (batch.size() < max) {
+            LogEvent e = queue.poll();
+            if (e == null) break;
+            if (!backfilled.contains(e)) batch.add(e);
+        }
+        return batch;
+    }
+
+    long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+
+    /** Called after a drain; returns true if more logs arrived meanwhile and another drain is needed. */
+    boolean finishDrain() {
+        scheduled.set(false);
+        return (!queue.isEmpty() || !backfill.isEmpty()) && scheduled.compareAndSet(false, true);
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s;
+    }
+}
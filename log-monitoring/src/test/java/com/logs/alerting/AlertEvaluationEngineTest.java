@@ -0,0 +1,141 @@
+package com.logs.alerting;
+
+import com.logs.service.AlertService;
+import com.logs.service.ServiceRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertEvaluationEngineTest {
+
+    @Mock
+    private ServiceRegistry serviceRegistry;
+
+    @Mock
+    private AlertService alertService;
+
+    @Mock
+    private ClusterMembership membership;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AlertEvaluationEngine engine;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        engine = new AlertEvaluationEngine(serviceRegistry, alertService, membership, meterRegistry, 4, 100, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    /**
+     * Only services owned by this instance are evaluated
+     */
+    @Test
+    void runOnce_evaluatesOwnedServices() {
+        when(serviceRegistry.activeServices()).thenReturn(Set.of("api", "billing", "search"));
+        when(membership.owns(anyString())).thenAnswer(inv -> !"search".equals(inv.getArgument(0)));
+
+        engine.runOnce();
+
+        verify(alertService, timeout(2000)).evaluateForService("api");
+        verify(alertService, timeout(2000)).evaluateForService("billing");
+        verify(alertService, never()).evaluateForService("search");
+    }
+
+    /**
+     * A service that went quiet is still evaluated while it has an OPEN alert, so the alert can resolve
+     */
+    @Test
+    void runOnce_evaluatesQuietServicesWithOpenAlerts() {
+        when(serviceRegistry.activeServices()).thenReturn(Set.of("api"));
+        when(alertService.servicesWithOpenAlerts()).thenReturn(Set.of("quiet"));
+        when(membership.owns(anyString())).thenReturn(true);
+
+        engine.runOnce();
+
+        verify(alertService, timeout(2000)).evaluateForService("api");
+        verify(alertService, timeout(2000)).evaluateForService("quiet");
+    }
+
+    /**
+     * With a "too few logs" rule enabled, a registered service that has gone silent is still evaluated
+     */
+    @Test
+    void runOnce_evaluatesSilentServicesWhenALowThresholdRuleIsEnabled() {
+        when(alertService.watchesForSilence()).thenReturn(true);
+        when(serviceRegistry.knownServices()).thenReturn(Set.of("api", "silent"));
+        when(membership.owns(anyString())).thenReturn(true);
+
+        engine.runOnce();
+
+        verify(alertService, timeout(2000)).evaluateForService("api");
+        verify(alertService, timeout(2000)).evaluateForService("silent");
+        verify(serviceRegistry, never()).activeServices();
+    }
+
+    /**
+     * A slow service is cancelled at the timeout and does not hold up the others
+     */
+    @Test
+    void runOnce_slowServiceTimesOut() throws Exception {
+        CountDownLatch fastDone = new CountDownLatch(1);
+        when(serviceRegistry.activeServices()).thenReturn(Set.of("slow", "fast"));
+        when(membership.owns(anyString())).thenReturn(true);
+        when(alertService.evaluateForService("slow")).thenAnswer(inv -> {
+            Thread.sleep(10_000);
+            return Optional.empty();
+        });
+        when(alertService.evaluateForService("fast")).thenAnswer(inv -> {
+            fastDone.countDown();
+            return Optional.empty();
+        });
+
+        engine.runOnce();
+
+        assertThat(fastDone.await(2, TimeUnit.SECONDS)).isTrue();
+        verify(alertService, timeout(2000)).evaluateForService("slow");
+        Thread.sleep(600);
+        assertThat(meterRegistry.counter("alerts.evaluation.timeouts").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.timer("alerts.evaluation.run").count()).isEqualTo(1);
+    }
+
+    /**
+     * Time spent queued behind another service does not count against the timeout
+     */
+    @Test
+    void runOnce_timeoutStartsWhenEvaluationStarts() throws Exception {
+        engine.stop();
+        engine = new AlertEvaluationEngine(serviceRegistry, alertService, membership, meterRegistry, 1, 100, 200);
+        CountDownLatch finished = new CountDownLatch(2);
+        when(serviceRegistry.activeServices()).thenReturn(Set.of("a", "b"));
+        when(membership.owns(anyString())).thenReturn(true);
+        when(alertService.evaluateForService(anyString())).thenAnswer(inv -> {
+            Thread.sleep(150);
+            finished.countDown();
+            return Optional.empty();
+        });
+
+        engine.runOnce();
+
+        assertThat(finished.await(2, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+        assertThat(meterRegistry.counter("alerts.evaluation.timeouts").count()).isZero();
+    }
+}
@@ -0,0 +1,52 @@
+package com.logs.alerting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> SERVICES =
+            IntStream.range(0, 1000).mapToObj(i -> "service-" + i).toList();
+
+    /**
+     * Every key has exactly one owner and the load is reasonably even
+     */
+    @Test
+    void owner_spreadsKeysAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+        Map<String, Integer> load = new HashMap<>();
+        SERVICES.forEach(s -> load.merge(ring.owner(s), 1, Integer::sum));
+
+        assertThat(load.keySet()).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(load.values()).allMatch(n -> n > 200 && n < 470);
+    }
+
+    /**
+     * Adding a node only moves keys onto the new node
+     */
+    @Test
+    void owner_addingNodeMovesOnlyItsShare() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        for (String s : SERVICES) {
+            String now = after.owner(s);
+            assertThat(now.equals(before.owner(s)) || now.equals("d")).isTrue();
+        }
+    }
+
+    /**
+     * Empty ring has no owner
+     */
+    @Test
+    void owner_emptyRing() {
+        assertThat(new ConsistentHashRing(List.of(), 16).owner("x")).isNull();
+    }
+}
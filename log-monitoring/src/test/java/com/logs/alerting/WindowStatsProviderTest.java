@@ -0,0 +1,93 @@
+package com.logs.alerting;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import com.logs.enums.LogLevel;
+import com.logs.index.LogIndexManager;
+import com.logs.metrics.LogCounterService;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WindowStatsProviderTest {
+
+    @Mock
+    private LogCounterService counters;
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    @Mock
+    private LogIndexManager logIndices;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, Object> zset;
+
+    @Mock
+    private SearchHits<LogEvent> hits;
+
+    private ClusterMembership membership;
+    private WindowStatsProvider provider;
+
+    @BeforeEach
+    void setup() {
+        membership = new ClusterMembership(redisTemplate, "a", 30_000, 16);
+        provider = new WindowStatsProvider(counters, esOps, logIndices, membership);
+    }
+
+    @Test
+    void singleInstance_usesLocalCounters() {
+        when(counters.count(eq("api"), any(), any())).thenReturn(OptionalLong.of(3));
+
+        WindowStats stats = provider.statsFor("api", Duration.ofMinutes(5));
+
+        assertThat(stats.count(LogLevel.ERROR)).isEqualTo(3);
+        verifyNoInteractions(esOps);
+    }
+
+    /** With two instances each one only ingested part of the logs, so counts come from ES. */
+    @Test
+    void twoInstances_countInIndex() {
+        when(redisTemplate.opsForZSet()).thenReturn(zset);
+        when(zset.rangeByScore(anyString(), anyDouble(), anyDouble())).thenReturn(Set.of("a", "b"));
+        membership.heartbeat();
+        assertThat(membership.liveInstances()).isEqualTo(2);
+
+        StringTermsBucket errors = StringTermsBucket.of(x -> x.key("ERROR").docCount(40));
+        ElasticsearchAggregations aggs = new ElasticsearchAggregations(Map.of("by_level",
+                Aggregate.of(a -> a.sterms(StringTermsAggregate.of(t -> t.buckets(b -> b.array(List.of(errors))))))));
+        doReturn(aggs).when(hits).getAggregations();
+        when(logIndices.searchIndex(any(), any())).thenReturn(IndexCoordinates.of("logs-search"));
+        when(esOps.search(any(NativeQuery.class), eq(LogEvent.class), any(IndexCoordinates.class))).thenReturn(hits);
+
+        WindowStats stats = provider.statsFor("api", Duration.ofMinutes(5));
+
+        assertThat(stats.count(LogLevel.ERROR)).isEqualTo(40);
+        verifyNoInteractions(counters);
+    }
+}
@@ -0,0 +1,132 @@
+package com.logs.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightCacheTest {
+
+    /**
+     * Concurrent callers share one load
+     */
+    @Test
+    void get_concurrentCallersShareOneLoad() throws Exception {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get("k", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(2, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 42;
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<Integer> f : results) {
+                assertThat(f.get(2, TimeUnit.SECONDS)).isEqualTo(42);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    /**
+     * Expired entries are reloaded
+     */
+    @Test
+    void get_reloadsAfterTtl() {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("k", loads::incrementAndGet);
+        cache.get("k", loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    /**
+     * Failures are not cached
+     */
+    @Test
+    void get_doesNotCacheFailures() {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(Duration.ofSeconds(10));
+
+        assertThatThrownBy(() -> cache.get("k", () -> {
+            throw new IllegalStateException("es down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("k", () -> 7)).isEqualTo(7);
+    }
+
+    /**
+     * An Error from the loader reaches the waiters instead of leaving them hanging, and is not cached
+     */
+    @Test
+    void get_errorCompletesWaiters() throws Exception {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(Duration.ofSeconds(10));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> loader = pool.submit(() -> cache.get("k", () -> {
+                loading.countDown();
+                try {
+                    fail.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("boom");
+            }));
+            assertThat(loading.await(2, TimeUnit.SECONDS)).isTrue();
+            Future<Integer> waiter = pool.submit(() -> cache.get("k", () -> 1));
+            Thread.sleep(100);
+            fail.countDown();
+
+            assertThatThrownBy(() -> loader.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> waiter.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(cache.get("k", () -> 7)).isEqualTo(7);
+    }
+
+    /**
+     * The TTL runs from when the load finished, not from when it started
+     */
+    @Test
+    void get_ttlStartsWhenLoadFinishes() {
+        SingleFlightCache<String, Integer> cache = new SingleFlightCache<>(Duration.ofMillis(300));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("k", () -> {
+            try {
+                Thread.sleep(400);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loads.incrementAndGet();
+        });
+
+        assertThat(cache.get("k", loads::incrementAndGet)).isEqualTo(1);
+    }
+}
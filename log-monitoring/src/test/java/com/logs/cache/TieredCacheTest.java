@@ -0,0 +1,165 @@
+package com.logs.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.logs.dto.TimeRangeFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCacheTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redis;
+
+    @Mock
+    private ValueOperations<String, Object> valueOps;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TieredCache cache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TieredCache("error-trend", Caffeine.newBuilder().maximumSize(10).build(),
+                redis, Duration.ofMinutes(1), meterRegistry);
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.counter("cache.tiered.gets",
+                "cache", "error-trend", "tier", tier, "result", result).count();
+    }
+
+    /**
+     * A miss in both tiers loads once, writes through to Redis, then serves from L1
+     */
+    @Test
+    void get_loadsOnceAndWritesThrough() {
+        when(redis.opsForValue()).thenReturn(valueOps);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("k", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        assertThat(loads.get()).isEqualTo(1);
+        verify(valueOps).set("qcache:error-trend:k", "v1", Duration.ofMinutes(1));
+        assertThat(gets("l1", "hit")).isEqualTo(1);
+        assertThat(gets("l2", "miss")).isEqualTo(1);
+    }
+
+    /**
+     * A value already in Redis (e.g. computed by another instance) is not recomputed
+     */
+    @Test
+    void get_usesRedisTier() {
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get("qcache:error-trend:k")).thenReturn("remote");
+
+        assertThat(cache.get("k", () -> "local")).isEqualTo("remote");
+        assertThat(gets("l2", "hit")).isEqualTo(1);
+        verify(valueOps, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    /**
+     * Redis failures degrade to L1 only
+     */
+    @Test
+    void get_survivesRedisOutage() {
+        when(redis.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(cache.get("k", () -> "v")).isEqualTo("v");
+        assertThat(cache.get("k", () -> "other")).isEqualTo("v");
+    }
+
+    /**
+     * Concurrent callers of one key share a single load, and a slow load does not hold up other keys
+     */
+    @Test
+    void get_singleFlightPerKeyOutsideCaffeineCompute() throws Exception {
+        when(redis.opsForValue()).thenReturn(valueOps);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = pool.submit(() -> cache.get("slow", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "v";
+            }));
+            assertThat(loading.await(2, TimeUnit.SECONDS)).isTrue();
+            Future<Object> second = pool.submit(() -> cache.get("slow", () -> "v" + loads.incrementAndGet()));
+
+            assertThat(cache.get("other", () -> "fast")).isEqualTo("fast");
+
+            release.countDown();
+            assertThat(first.get(2, TimeUnit.SECONDS)).isEqualTo("v");
+            assertThat(second.get(2, TimeUnit.SECONDS)).isEqualTo("v");
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * clear() walks the cache's Redis keys with SCAN instead of KEYS
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void clear_scansRedisKeys() {
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn("qcache:error-trend:a", "qcache:error-trend:b");
+        when(redis.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+        cache.clear();
+
+        verify(redis).delete(List.of("qcache:error-trend:a", "qcache:error-trend:b"));
+        verify(redis, never()).keys(anyString());
+        verify(cursor).close();
+    }
+
+    /**
+     * Time ranges a few seconds apart share a key; other filters still distinguish keys
+     */
+    @Test
+    void queryKeys_snapTimeRanges() {
+        QueryKeyGenerator keys = new QueryKeyGenerator(60);
+        TimeRangeFilter a = TimeRangeFilter.builder()
+                .from(Instant.parse("2026-01-20T10:00:05Z")).to(Instant.parse("2026-01-21T10:00:05Z")).build();
+        TimeRangeFilter b = TimeRangeFilter.builder()
+                .from(Instant.parse("2026-01-20T10:00:41Z")).to(Instant.parse("2026-01-21T10:00:41Z"))
+                .serviceName(" ").build();
+        TimeRangeFilter c = TimeRangeFilter.builder()
+                .from(Instant.parse("2026-01-20T10:00:41Z")).to(Instant.parse("2026-01-21T10:00:41Z"))
+                .serviceName("api").build();
+
+        assertThat(keys.generate(null, null, a, "HOUR")).isEqualTo(keys.generate(null, null, b, "hour"));
+        assertThat(keys.generate(null, null, a, "hour")).isNotEqualTo(keys.generate(null, null, c, "hour"));
+        assertThat(keys.normalize(a).getFrom()).isEqualTo(Instant.parse("2026-01-20T10:00:00Z"));
+        assertThat(keys.normalize(a).getTo()).isEqualTo(Instant.parse("2026-01-21T10:01:00Z"));
+    }
+}
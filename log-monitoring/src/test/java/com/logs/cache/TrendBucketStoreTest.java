@@ -0,0 +1,126 @@
+package com.logs.cache;
+
+import com.logs.dto.TrendPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendBucketStoreTest {
+
+    private static final long HOUR = 3_600;
+    private static final Instant NOW = Instant.parse("2026-01-31T12:30:00Z");
+
+    private final List<Instant[]> queries = new ArrayList<>();
+
+    /** Every hour has 10 logs. */
+    private final BiFunction<Instant, Instant, Map<Long, Long>> es = (from, to) -> {
+        queries.add(new Instant[]{from, to});
+        Map<Long, Long> counts = new HashMap<>();
+        for (long b = from.getEpochSecond(); b <= to.getEpochSecond(); b += HOUR) counts.put(b, 10L);
+        return counts;
+    };
+
+    /**
+     * A second refresh of a 30-day hourly chart only queries the open edge
+     */
+    @Test
+    void points_secondRefreshQueriesOnlyOpenBucket() {
+        TrendBucketStore store = new TrendBucketStore(10, 50_000, 60, 600, Clock.fixed(NOW, ZoneOffset.UTC));
+        Instant from = NOW.minusSeconds(30 * 24 * HOUR);
+
+        List<TrendPoint> first = store.points("sig", HOUR, from, NOW, es);
+        List<TrendPoint> second = store.points("sig", HOUR, from, NOW, es);
+
+        assertThat(first).hasSize(30 * 24 + 1);
+        assertThat(second).extracting(TrendPoint::getCount).containsOnly(10L);
+        assertThat(queries).hasSize(2);
+        assertThat(queries.get(0)[0]).isEqualTo(Instant.parse("2026-01-01T12:00:00Z"));
+        assertThat(queries.get(1)[0]).isEqualTo(Instant.parse("2026-01-31T12:00:00Z"));
+    }
+
+    /**
+     * Empty buckets are returned as zeros, and signatures do not share buckets
+     */
+    @Test
+    void points_fillsGapsAndSeparatesSignatures() {
+        TrendBucketStore store = new TrendBucketStore(10, 50_000, 60, 600, Clock.fixed(NOW, ZoneOffset.UTC));
+        Instant from = NOW.minusSeconds(3 * HOUR);
+
+        List<TrendPoint> points = store.points("a", HOUR, from, NOW, (f, t) -> Map.of());
+        store.points("b", HOUR, from, NOW, es);
+
+        assertThat(points).extracting(TrendPoint::getCount).containsExactly(0L, 0L, 0L, 0L);
+        assertThat(queries.get(0)[0]).isEqualTo(Instant.parse("2026-01-31T09:00:00Z"));
+    }
+
+    /**
+     * A bucket cut off by the end of the range is never stored as closed
+     */
+    @Test
+    void points_partialLastBucketIsNotStored() {
+        TrendBucketStore store = new TrendBucketStore(10, 50_000, 60, 600, Clock.fixed(NOW, ZoneOffset.UTC));
+        Instant from = Instant.parse("2026-01-30T00:00:00Z");
+        Instant to = Instant.parse("2026-01-30T05:30:00Z");
+
+        store.points("sig", HOUR, from, to, es);
+        store.points("sig", HOUR, from, Instant.parse("2026-01-30T06:00:00Z"), es);
+
+        assertThat(queries.get(1)[0]).isEqualTo(Instant.parse("2026-01-30T05:00:00Z"));
+    }
+
+    /**
+     * Closed buckets are re-read from ES once their TTL has passed, picking up late logs
+     */
+    @Test
+    void points_expiredClosedBucketsAreQueriedAgain() {
+        MutableClock clock = new MutableClock(NOW);
+        TrendBucketStore store = new TrendBucketStore(10, 50_000, 60, 600, clock);
+        Instant from = NOW.minusSeconds(3 * HOUR);
+
+        store.points("sig", HOUR, from, NOW, es);
+        clock.now = NOW.plusSeconds(300);
+        store.points("sig", HOUR, from, NOW, es);
+        clock.now = NOW.plusSeconds(600);
+        List<TrendPoint> late = store.points("sig", HOUR, from, NOW, (f, t) -> {
+            queries.add(new Instant[]{f, t});
+            return Map.of(Instant.parse("2026-01-31T09:00:00Z").getEpochSecond(), 11L);
+        });
+
+        assertThat(queries.get(1)[0]).isEqualTo(Instant.parse("2026-01-31T12:00:00Z"));
+        assertThat(queries.get(2)[0]).isEqualTo(Instant.parse("2026-01-31T09:00:00Z"));
+        assertThat(late.get(0).getCount()).isEqualTo(11L);
+    }
+
+    private static class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
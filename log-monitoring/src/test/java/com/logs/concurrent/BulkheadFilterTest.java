@@ -0,0 +1,85 @@
+package com.logs.concurrent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logs.enums.TrafficClass;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadFilterTest {
+
+    private final BulkheadFilter filter = new BulkheadFilter(Map.of(
+            TrafficClass.INGEST, new BulkheadFilter.Limit(1, 0),
+            TrafficClass.QUERY, new BulkheadFilter.Limit(1, 0),
+            TrafficClass.ADMIN, new BulkheadFilter.Limit(1, 0)), new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    @Test
+    void classify() {
+        assertThat(BulkheadFilter.classify("POST", "/api/logs")).isEqualTo(TrafficClass.INGEST);
+        assertThat(BulkheadFilter.classify("POST", "/api/logs/batch")).isEqualTo(TrafficClass.INGEST);
+        assertThat(BulkheadFilter.classify("POST", "/api/logs/search")).isEqualTo(TrafficClass.QUERY);
+        assertThat(BulkheadFilter.classify("POST", "/api/errors/trend")).isEqualTo(TrafficClass.QUERY);
+        assertThat(BulkheadFilter.classify("PUT", "/api/alerts/rules/1")).isEqualTo(TrafficClass.ADMIN);
+        assertThat(BulkheadFilter.classify("GET", "/actuator/prometheus")).isEqualTo(TrafficClass.ADMIN);
+        assertThat(BulkheadFilter.classify("GET", "/actuator/health")).isNull();
+        assertThat(BulkheadFilter.classify("GET", "/api/logs/stream")).isNull();
+        assertThat(BulkheadFilter.classify("GET", "/health")).isNull();
+        assertThat(BulkheadFilter.classify("GET", "/ping")).isNull();
+    }
+
+    /** A full query bulkhead rejects more searches but lets ingest and /ping through. */
+    @Test
+    void fullClass_rejectsOnlyItsOwnTraffic() throws Exception {
+        AtomicReference<Integer> ingestStatus = new AtomicReference<>();
+        AtomicReference<Integer> pingStatus = new AtomicReference<>();
+        MockHttpServletResponse searchRejected = new MockHttpServletResponse();
+
+        // while one search is in flight...
+        filter.doFilter(request("POST", "/api/logs/search"), new MockHttpServletResponse(), (req, res) -> {
+            assertThat(filter.available(TrafficClass.QUERY)).isZero();
+            filter.doFilter(request("POST", "/api/errors/trend"), searchRejected, (r, s) -> { });
+            MockHttpServletResponse ingest = new MockHttpServletResponse();
+            filter.doFilter(request("POST", "/api/logs"), ingest, (r, s) -> ((MockHttpServletResponse) s).setStatus(202));
+            ingestStatus.set(ingest.getStatus());
+            MockHttpServletResponse ping = new MockHttpServletResponse();
+            filter.doFilter(request("GET", "/ping"), ping, (r, s) -> { });
+            pingStatus.set(ping.getStatus());
+        });
+
+        assertThat(searchRejected.getStatus()).isEqualTo(503);
+        assertThat(searchRejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(searchRejected.getContentAsString()).contains("\"success\":false");
+        assertThat(ingestStatus.get()).isEqualTo(202);
+        assertThat(pingStatus.get()).isEqualTo(200);
+        assertThat(filter.available(TrafficClass.QUERY)).isEqualTo(1);
+    }
+
+    /** A streaming export holds its query permit until the async response completes. */
+    @Test
+    void asyncRequest_keepsPermitUntilCompletion() throws Exception {
+        MockHttpServletRequest export = request("POST", "/api/logs/export");
+        export.setAsyncSupported(true);
+
+        filter.doFilter(export, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(export.isAsyncStarted()).isTrue();
+        assertThat(filter.available(TrafficClass.QUERY)).isZero();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/logs/search"), rejected, (r, s) -> { });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        export.getAsyncContext().complete();
+
+        assertThat(filter.available(TrafficClass.QUERY)).isEqualTo(1);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
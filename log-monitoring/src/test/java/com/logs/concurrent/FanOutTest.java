@@ -0,0 +1,79 @@
+package com.logs.concurrent;
+
+import com.logs.exception.FanOutTimeoutException;
+import com.logs.search.QueryProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanOutTest {
+
+    private final FanOut fanOut = new FanOut(Executors.newFixedThreadPool(4), Duration.ofMillis(500));
+
+    @AfterEach
+    void stop() {
+        fanOut.stop();
+        QueryProfile.end();
+    }
+
+    @Test
+    void join_runsSubtasksConcurrently() {
+        CountDownLatch both = new CountDownLatch(2);
+        try (FanOut.Scope scope = fanOut.open()) {
+            // each subtask only finishes once the other has started
+            Supplier<Boolean> a = scope.fork(() -> { both.countDown(); return both.await(1, TimeUnit.SECONDS); });
+            Supplier<Boolean> b = scope.fork(() -> { both.countDown(); return both.await(1, TimeUnit.SECONDS); });
+            scope.join();
+
+            assertThat(a.get()).isTrue();
+            assertThat(b.get()).isTrue();
+        }
+    }
+
+    @Test
+    void join_firstFailureCancelsTheRest() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (FanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> { throw new IllegalStateException("es down"); });
+
+            assertThatThrownBy(scope::join).isInstanceOf(IllegalStateException.class).hasMessage("es down");
+        }
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void join_pastDeadline_throws() {
+        try (FanOut.Scope scope = fanOut.open()) {
+            scope.fork(() -> { Thread.sleep(5_000); return null; });
+
+            assertThatThrownBy(scope::join).isInstanceOf(FanOutTimeoutException.class);
+        }
+    }
+
+    @Test
+    void fork_carriesQueryProfile() {
+        QueryProfile profile = QueryProfile.begin("errors.severity", true);
+        try (FanOut.Scope scope = fanOut.open()) {
+            Supplier<QueryProfile> seen = scope.fork(QueryProfile::current);
+            scope.join();
+
+            assertThat(seen.get()).isSameAs(profile);
+        }
+    }
+}
@@ -3,12 +3,17 @@ package com.logs.controller;
 import com.logs.enums.AlertSeverity;
 import com.logs.enums.AlertStatus;
 import com.logs.enums.Environment;
+import com.logs.enums.AlertMetric;
+import com.logs.enums.ThresholdOperator;
 import com.logs.model.Alert;
+import com.logs.model.AlertRule;
+import com.logs.service.AlertRuleService;
 import com.logs.service.AlertService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
@@ -17,9 +22,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(AlertController.class)
@@ -31,6 +38,9 @@ class AlertControllerTest {
     @MockBean
     private AlertService alertService;
 
+    @MockBean
+    private AlertRuleService alertRuleService;
+
     /**
      * GET /api/alerts/active
      */
@@ -146,4 +156,41 @@ class AlertControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
     }
+
+    /**
+     * GET /api/alerts/rules
+     */
+    @Test
+    void getRules_success() throws Exception {
+        AlertRule rule = AlertRule.builder()
+                .id("error.rate.high")
+                .metric(AlertMetric.ERROR_COUNT)
+                .windowMinutes(5)
+                .operator(ThresholdOperator.GT)
+                .threshold(5.0)
+                .severity(AlertSeverity.HIGH)
+                .build();
+        when(alertRuleService.getRules()).thenReturn(List.of(rule));
+
+        mockMvc.perform(get("/api/alerts/rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("error.rate.high"))
+                .andExpect(jsonPath("$[0].metric").value("ERROR_COUNT"))
+                .andExpect(jsonPath("$[0].enabled").value(true));
+    }
+
+    /**
+     * PUT /api/alerts/rules/{id} - invalid rule
+     */
+    @Test
+    void saveRule_invalid() throws Exception {
+        when(alertRuleService.saveRule(any(AlertRule.class)))
+                .thenThrow(new IllegalArgumentException("Rule needs id"));
+
+        mockMvc.perform(put("/api/alerts/rules/bad")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"metric\":\"ERROR_COUNT\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
 }
@@ -60,6 +60,30 @@ class ErrorControllerTest {
                 .andExpect(jsonPath("$.data.trendPoints[0].count").value(5));
     }
 
+    /**
+     * POST /api/errors/trend?profile=true returns the timing breakdown along with the data
+     */
+    @Test
+    void trend_profiled() throws Exception {
+        when(errorService.trend(null, "hour"))
+                .thenReturn(TrendResponse.builder().interval("hour").trendPoints(List.of()).build());
+
+        mockMvc.perform(post("/api/errors/trend")
+                        .param("interval", "hour")
+                        .param("profile", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.profile.name").value("errors.trend"))
+                .andExpect(jsonPath("$.profile.totalMs").isNumber())
+                .andExpect(jsonPath("$.profile.esRequests").value(0));
+
+        mockMvc.perform(post("/api/errors/trend")
+                        .param("interval", "hour")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.profile").doesNotExist());
+    }
+
     /**
      * POST /api/errors/severity
      */
@@ -107,6 +131,27 @@ class ErrorControllerTest {
                 .andExpect(jsonPath("$.data[0].count").value(7));
     }
 
+    /**
+     * POST /api/errors/topMessages?top=3
+     */
+    @Test
+    void topMessages_success() throws Exception {
+        when(errorService.topMessages(null, 3)).thenReturn(List.of(TopMessageRow.builder()
+                .message("Timeout after <NUM> ms")
+                .count(42)
+                .serviceName("order-service")
+                .lastOccurred(Instant.parse("2024-05-01T10:00:00Z"))
+                .build()));
+
+        mockMvc.perform(post("/api/errors/topMessages")
+                        .param("top", "3")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].message").value("Timeout after <NUM> ms"))
+                .andExpect(jsonPath("$.data[0].count").value(42))
+                .andExpect(jsonPath("$.data[0].serviceName").value("order-service"));
+    }
+
     /**
      * POST /api/errors/recent?page=0&size=10
      */
@@ -128,7 +173,7 @@ class ErrorControllerTest {
                 .size(10)
                 .build();
 
-        when(errorService.recent(null, 0, 10))
+        when(errorService.recent(null, 0, 10, null, false))
                 .thenReturn(paged);
 
         mockMvc.perform(post("/api/errors/recent")
@@ -1,12 +1,19 @@
 package com.logs.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.enums.ExportFormat;
+import com.logs.dto.BatchIngestResponse;
+import com.logs.dto.BatchItemError;
 import com.logs.dto.LogRequest;
 import com.logs.dto.LogSearchRequest;
 import com.logs.enums.Environment;
 import com.logs.enums.LogLevel;
+import com.logs.exception.IngestRejectedException;
+import com.logs.exception.SubscriberLimitException;
 import com.logs.model.LogEvent;
 import com.logs.service.LogService;
+import com.logs.service.LogExportService;
+import com.logs.stream.LiveTailService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -15,10 +22,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,6 +47,12 @@ class LogControllerTest {
     @MockBean
     private LogService logService;
 
+    @MockBean
+    private LiveTailService liveTailService;
+
+    @MockBean
+    private LogExportService logExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -50,10 +70,10 @@ class LogControllerTest {
         mockMvc.perform(post("/api/logs")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data")
-                        .value("Log processed successfully"));
+                        .value("Log accepted"));
     }
 
     /**
@@ -76,6 +96,68 @@ class LogControllerTest {
                 .andExpect(status().isInternalServerError());
     }
 
+    /**
+     * POST /api/logs - pipeline saturated
+     */
+    @Test
+    void receiveLog_rejectedWhenPipelineIsFull() throws Exception {
+        LogRequest request = LogRequest.builder()
+                .serviceName("order-service")
+                .message("Burst")
+                .build();
+
+        doThrow(new IngestRejectedException("Ingest queue for 'elasticsearch' is full"))
+                .when(logService).processLog(request);
+
+        mockMvc.perform(post("/api/logs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    /**
+     * POST /api/logs/batch - JSON array
+     */
+    @Test
+    void receiveBatch_jsonArray() throws Exception {
+        List<LogRequest> batch = List.of(
+                LogRequest.builder().serviceName("order-service").message("a").build(),
+                LogRequest.builder().serviceName("order-service").message("b").build());
+
+        when(logService.processBatch(anyList()))
+                .thenReturn(BatchIngestResponse.builder()
+                        .received(2).accepted(2).failed(0).errors(List.of())
+                        .build());
+
+        mockMvc.perform(post("/api/logs/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.received").value(2))
+                .andExpect(jsonPath("$.data.accepted").value(2));
+    }
+
+    /**
+     * POST /api/logs/batch - NDJSON with a per-item failure
+     */
+    @Test
+    void receiveBatch_ndjson() throws Exception {
+        when(logService.processNdjson(anyString()))
+                .thenReturn(BatchIngestResponse.builder()
+                        .received(2).accepted(1).failed(1)
+                        .errors(List.of(new BatchItemError(1, "serviceName is required")))
+                        .build());
+
+        mockMvc.perform(post("/api/logs/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{\"serviceName\":\"a\"}\n{\"message\":\"b\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.failed").value(1))
+                .andExpect(jsonPath("$.data.errors[0].index").value(1));
+    }
+
     /**
      * GET /api/logs/recent
      */
@@ -90,7 +172,7 @@ class LogControllerTest {
                 .timestamp(Instant.now())
                 .build();
 
-        when(logService.getRecentLogs())
+        when(logService.getRecentLogs(null, null))
                 .thenReturn(List.of(log));
 
         mockMvc.perform(get("/api/logs/recent"))
@@ -102,6 +184,58 @@ class LogControllerTest {
                         .value("ERROR"));
     }
 
+    /**
+     * GET /api/logs/recent?serviceName=...&level=...
+     */
+    @Test
+    void getRecentLogs_filtered() throws Exception {
+        LogEvent log = LogEvent.builder()
+                .id("1")
+                .serviceName("payment-service")
+                .level(LogLevel.ERROR)
+                .message("Timeout")
+                .timestamp(Instant.now())
+                .build();
+
+        when(logService.getRecentLogs("payment-service", LogLevel.ERROR))
+                .thenReturn(List.of(log));
+
+        mockMvc.perform(get("/api/logs/recent")
+                        .param("serviceName", "payment-service")
+                        .param("level", "ERROR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].serviceName").value("payment-service"));
+    }
+
+    /**
+     * GET /api/logs/stream - SSE with filters
+     */
+    @Test
+    void stream_opensEmitterWithFilters() throws Exception {
+        when(liveTailService.subscribe("payment-service", LogLevel.ERROR, null, 0))
+                .thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/logs/stream")
+                        .param("serviceName", "payment-service")
+                        .param("level", "ERROR")
+                        .param("backfill", "0"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    /**
+     * GET /api/logs/stream - subscriber limit reached
+     */
+    @Test
+    void stream_rejectedWhenFull() throws Exception {
+        when(liveTailService.subscribe(null, null, null, 50))
+                .thenThrow(new SubscriberLimitException("Too many live tail subscribers (500)"));
+
+        mockMvc.perform(get("/api/logs/stream"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     /**
      * POST /api/logs/search
      */
@@ -136,4 +270,33 @@ class LogControllerTest {
                         .value("WARN"));
     }
 
+    /**
+     * GET /api/logs/export - streams the export body as an attachment
+     */
+    @Test
+    void export_streamsNdjson() throws Exception {
+        doAnswer(inv -> {
+            inv.getArgument(2, OutputStream.class).write("{\"serviceName\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(logExportService).export(any(), any(ExportFormat.class), any(OutputStream.class));
+
+        var result = mockMvc.perform(get("/api/logs/export").param("serviceName", "a"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"logs.ndjson\""))
+                .andExpect(content().string("{\"serviceName\":\"a\"}\n"));
+    }
+
+    /**
+     * GET /api/logs/export - unknown format
+     */
+    @Test
+    void export_rejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/logs/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,65 @@
+package com.logs.controller;
+
+import com.logs.dto.AggregatedLogStatsDTO;
+import com.logs.enums.StatsWindow;
+import com.logs.metrics.ServiceStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ServiceStatsController.class)
+class ServiceStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ServiceStatsService serviceStatsService;
+
+    /**
+     * GET /api/services/stats?window=1h&serviceName=api
+     */
+    @Test
+    void stats_forWindowAndService() throws Exception {
+        when(serviceStatsService.stats(StatsWindow.ONE_HOUR, "api"))
+                .thenReturn(List.of(new AggregatedLogStatsDTO("api", 5, 2, 40, "2024-05-01T10:00:00Z")));
+
+        mockMvc.perform(get("/api/services/stats")
+                        .param("window", "1h")
+                        .param("serviceName", "api"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].serviceName").value("api"))
+                .andExpect(jsonPath("$[0].errorCount").value(5))
+                .andExpect(jsonPath("$[0].infoCount").value(40));
+    }
+
+    /**
+     * GET /api/services/stats (default window = 5m)
+     */
+    @Test
+    void stats_defaultWindow() throws Exception {
+        when(serviceStatsService.stats(StatsWindow.FIVE_MINUTES, null)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/services/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void stats_unknownWindow_badRequest() throws Exception {
+        mockMvc.perform(get("/api/services/stats").param("window", "7d"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(serviceStatsService, never()).stats(any(), any());
+    }
+}
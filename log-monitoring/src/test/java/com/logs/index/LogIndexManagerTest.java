@@ -0,0 +1,96 @@
+package com.logs.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.data.elasticsearch.core.reindex.ReindexRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogIndexManagerTest {
+
+    private static final String SOURCE = "logs-2024.05.01";
+    private static final String COPY = SOURCE + LogIndices.REINDEXED_SUFFIX;
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    @Mock
+    private ElasticsearchClient esClient;
+
+    @Mock
+    private IndexOperations sourceOps;
+
+    @Mock
+    private IndexOperations copyOps;
+
+    private LogIndexManager manager;
+
+    @BeforeEach
+    void setup() {
+        manager = new LogIndexManager(esOps, esClient, 30, 31, 1, 1, true);
+        ReflectionTestUtils.setField(manager, "keywordMessageIndices", Set.of(SOURCE));
+        lenient().when(esOps.indexOps(argThat((IndexCoordinates c) -> c != null && SOURCE.equals(c.getIndexName())))).thenReturn(sourceOps);
+        when(esOps.indexOps(argThat((IndexCoordinates c) -> c != null && COPY.equals(c.getIndexName())))).thenReturn(copyOps);
+    }
+
+    /**
+     * The copy is created hidden and outside the search alias before the reindex starts
+     */
+    @Test
+    void migrateStep_keepsCopyOutOfSearchWhileFilling() {
+        when(copyOps.exists()).thenReturn(false);
+
+        manager.migrateStep();
+
+        verify(copyOps).create(Map.of("index.hidden", true));
+        ArgumentCaptor<AliasActions> actions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(copyOps).alias(actions.capture());
+        assertThat(actions.getValue().getActions()).singleElement().isInstanceOf(AliasAction.Remove.class);
+        verify(esOps).submitReindex(any(ReindexRequest.class));
+        verify(sourceOps, never()).delete();
+    }
+
+    /**
+     * A complete copy joins the search alias in the same request that deletes the source
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void migrateStep_swapsAliasAndDeletesSourceAtomically() throws Exception {
+        ElasticsearchIndicesClient indices = mock(ElasticsearchIndicesClient.class);
+        when(esClient.indices()).thenReturn(indices);
+        when(copyOps.exists()).thenReturn(true);
+        when(esOps.count(any(Query.class), any(IndexCoordinates.class))).thenReturn(10L);
+
+        manager.migrateStep();
+
+        verify(indices).putSettings(any(Function.class));
+        ArgumentCaptor<AliasActions> actions = ArgumentCaptor.forClass(AliasActions.class);
+        verify(copyOps).alias(actions.capture());
+        assertThat(actions.getValue().getActions())
+                .hasSize(2)
+                .hasAtLeastOneElementOfType(AliasAction.Add.class)
+                .hasAtLeastOneElementOfType(AliasAction.RemoveIndex.class);
+        verify(sourceOps, never()).delete();
+        verify(esOps, never()).submitReindex(any());
+    }
+}
@@ -0,0 +1,33 @@
+package com.logs.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogIndicesTest {
+
+    @Test
+    void dailyPatterns_coverEveryOverlappingDay() {
+        assertThat(LogIndices.dailyPatterns(
+                Instant.parse("2024-04-30T22:00:00Z"), Instant.parse("2024-05-02T01:00:00Z"), 31))
+                .containsExactly("logs-2024.04.30*", "logs-2024.05.01*", "logs-2024.05.02*");
+    }
+
+    @Test
+    void dailyPatterns_emptyWhenRangeIsTooLong() {
+        assertThat(LogIndices.dailyPatterns(
+                Instant.parse("2024-01-01T00:00:00Z"), Instant.parse("2024-03-01T00:00:00Z"), 31))
+                .isEmpty();
+    }
+
+    @Test
+    void dayOf_onlyParsesDailyIndices() {
+        assertThat(LogIndices.dayOf("logs-2024.05.01")).contains(LocalDate.of(2024, 5, 1));
+        assertThat(LogIndices.dayOf("logs-2024.05.01" + LogIndices.REINDEXED_SUFFIX)).contains(LocalDate.of(2024, 5, 1));
+        assertThat(LogIndices.dayOf(LogIndices.SEARCH_ALIAS)).isEmpty();
+        assertThat(LogIndices.dayOf(LogIndices.LEGACY_INDEX)).isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+package com.logs.ingest;
+
+import com.logs.index.LogIndices;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.BulkOptions;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIndexerTest {
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    /**
+     * Reaching maxActions flushes immediately in one bulk request
+     */
+    @Test
+    void submit_flushesWhenBatchIsFull() {
+        BulkIndexer indexer = new BulkIndexer(esOps, new SimpleMeterRegistry(), 2, 60_000, 30, 300);
+
+        CompletableFuture<Void> first = indexer.submit(LogEvent.builder().serviceName("a").build());
+        assertThat(first).isNotDone();
+
+        CompletableFuture<Void> second = indexer.submit(LogEvent.builder().serviceName("b").build());
+
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        verify(esOps, times(1)).bulkIndex(argThat(list -> list.size() == 2), any(BulkOptions.class), eq(LogEvent.class));
+    }
+
+    /**
+     * A rejected item fails only its own future
+     */
+    @Test
+    void flush_reportsFailuresPerItem() {
+        BulkIndexer indexer = new BulkIndexer(esOps, new SimpleMeterRegistry(), 100, 60_000, 30, 300);
+        LogEvent ok = LogEvent.builder().id("ok").serviceName("a").build();
+        LogEvent bad = LogEvent.builder().id("bad").serviceName("a").build();
+
+        when(esOps.bulkIndex(anyList(), any(BulkOptions.class), eq(LogEvent.class)))
+                .thenThrow(new BulkFailureException("1 failed", Map.of(
+                        "bad", new BulkFailureException.FailureDetails(400, "mapper_parsing_exception"))));
+
+        CompletableFuture<Void> okResult = indexer.submit(ok);
+        CompletableFuture<Void> badResult = indexer.submit(bad);
+        indexer.flush();
+
+        assertThat(okResult).isCompleted();
+        assertThat(badResult).isCompletedExceptionally();
+    }
+
+    /**
+     * indexNow assigns ids so failures can be mapped back to events
+     */
+    @Test
+    void indexNow_assignsIds() {
+        BulkIndexer indexer = new BulkIndexer(esOps, new SimpleMeterRegistry(), 100, 60_000, 30, 300);
+        LogEvent event = LogEvent.builder().serviceName("a").build();
+
+        Map<String, BulkFailureException.FailureDetails> failures = indexer.indexNow(List.of(event));
+
+        assertThat(failures).isEmpty();
+        assertThat(event.getId()).isNotBlank();
+    }
+
+    /**
+     * Each log is written to the daily index of its own timestamp
+     */
+    @Test
+    void indexNow_routesToDailyIndex() {
+        BulkIndexer indexer = new BulkIndexer(esOps, new SimpleMeterRegistry(), 100, 60_000, 30, 300);
+        Instant midnight = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        LogEvent late = LogEvent.builder().serviceName("a").timestamp(midnight.minusSeconds(1)).build();
+        LogEvent next = LogEvent.builder().serviceName("a").timestamp(midnight).build();
+
+        indexer.indexNow(List.of(late, next));
+
+        verify(esOps).bulkIndex(argThat(list -> list.size() == 2
+                && LogIndices.daily(midnight.minusSeconds(1)).equals(list.get(0).getIndexName())
+                && LogIndices.daily(midnight).equals(list.get(1).getIndexName())), any(BulkOptions.class), eq(LogEvent.class));
+    }
+
+    /**
+     * Timestamps outside the accepted window go to the write alias instead of creating a daily index
+     */
+    @Test
+    void indexNow_routesOutOfWindowTimestampsToWriteAlias() {
+        BulkIndexer indexer = new BulkIndexer(esOps, new SimpleMeterRegistry(), 100, 60_000, 30, 300);
+        LogEvent ancient = LogEvent.builder().serviceName("a").timestamp(Instant.parse("1999-01-01T00:00:00Z")).build();
+        LogEvent future = LogEvent.builder().serviceName("a").timestamp(Instant.now().plusSeconds(3_600)).build();
+
+        indexer.indexNow(List.of(ancient, future));
+
+        verify(esOps).bulkIndex(argThat(list -> list.stream()
+                .allMatch(q -> LogIndices.WRITE_ALIAS.equals(q.getIndexName()))), any(BulkOptions.class), eq(LogEvent.class));
+    }
+}
@@ -0,0 +1,224 @@
+package com.logs.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logs.enums.BackpressurePolicy;
+import com.logs.exception.IngestRejectedException;
+import com.logs.model.LogEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngestPipelineTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private IngestPipeline pipeline;
+
+    @TempDir
+    Path spillDir;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) pipeline.stop();
+    }
+
+    /**
+     * Every sink receives the event on its own worker
+     */
+    @Test
+    void submit_fansOutToEverySink() throws Exception {
+        RecordingSink a = new RecordingSink("a", null);
+        RecordingSink b = new RecordingSink("b", null);
+        pipeline = new IngestPipeline(List.of(a, b), mapper, new SimpleMeterRegistry(), 10, 1, BackpressurePolicy.REJECT, 100, spillDir.toString());
+        pipeline.start();
+
+        pipeline.submit(event("order-service"));
+
+        assertThat(a.awaitCount(1)).isTrue();
+        assertThat(b.awaitCount(1)).isTrue();
+    }
+
+    /**
+     * REJECT: a full queue fails the submit instead of blocking the caller
+     */
+    @Test
+    void submit_rejectsWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink("slow", release);
+        pipeline = new IngestPipeline(List.of(slow), mapper, new SimpleMeterRegistry(), 1, 1, BackpressurePolicy.REJECT, 100, spillDir.toString());
+        pipeline.start();
+
+        pipeline.submit(event("a"));          // taken by the (stuck) worker
+        assertThat(slow.awaitStarted()).isTrue();
+        pipeline.submit(event("b"));          // fills the queue
+
+        assertThatThrownBy(() -> pipeline.submit(event("c")))
+                .isInstanceOf(IngestRejectedException.class);
+        release.countDown();
+    }
+
+    /**
+     * REJECT: a submit refused because one stage is full is not queued for the other sinks either
+     */
+    @Test
+    void submit_rejectedEventReachesNoSink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink fast = new RecordingSink("fast", null);
+        RecordingSink slow = new RecordingSink("slow", release);
+        pipeline = new IngestPipeline(List.of(fast, slow), mapper, new SimpleMeterRegistry(), 1, 1, BackpressurePolicy.REJECT, 100, spillDir.toString());
+        pipeline.start();
+
+        pipeline.submit(event("a"));
+        assertThat(slow.awaitStarted()).isTrue();
+        assertThat(fast.awaitCount(1)).isTrue();
+        pipeline.submit(event("b"));
+
+        assertThatThrownBy(() -> pipeline.submit(event("c")))
+                .isInstanceOf(IngestRejectedException.class);
+        release.countDown();
+
+        assertThat(slow.awaitCount(2)).isTrue();
+        assertThat(fast.awaitCount(2)).isTrue();
+        Thread.sleep(100);
+        assertThat(fast.received).extracting(LogEvent::getServiceName).containsExactly("a", "b");
+    }
+
+    /**
+     * BLOCK: a timed-out submit hands back the slots it reserved on the other stages
+     */
+    @Test
+    void submit_blockTimeoutReleasesReservations() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink fast = new RecordingSink("fast", null);
+        RecordingSink slow = new RecordingSink("slow", release);
+        pipeline = new IngestPipeline(List.of(fast, slow), mapper, new SimpleMeterRegistry(), 1, 1, BackpressurePolicy.BLOCK, 50, spillDir.toString());
+        pipeline.start();
+
+        pipeline.submit(event("a"));
+        assertThat(slow.awaitStarted()).isTrue();
+        assertThat(fast.awaitCount(1)).isTrue();
+        pipeline.submit(event("b"));
+
+        assertThatThrownBy(() -> pipeline.submit(event("c")))
+                .isInstanceOf(IngestRejectedException.class);
+        release.countDown();
+        assertThat(slow.awaitCount(2)).isTrue();
+
+        pipeline.submit(event("d"));
+        assertThat(fast.awaitCount(3)).isTrue();
+        assertThat(slow.awaitCount(3)).isTrue();
+        assertThat(fast.received).extracting(LogEvent::getServiceName).containsExactly("a", "b", "d");
+    }
+
+    /**
+     * SPILL: overflow goes to disk and is replayed once the sink catches up
+     */
+    @Test
+    void submit_spillsOverflowAndReplaysIt() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink("slow", release);
+        pipeline = new IngestPipeline(List.of(slow), mapper, new SimpleMeterRegistry(), 1, 1, BackpressurePolicy.SPILL, 100, spillDir.toString());
+        pipeline.start();
+
+        pipeline.submit(event("a"));
+        assertThat(slow.awaitStarted()).isTrue();
+        pipeline.submit(event("b"));
+        pipeline.submit(event("c"));          // spilled
+
+        assertThat(Files.readAllLines(spillDir.resolve("slow.ndjson"))).hasSize(1);
+
+        release.countDown();
+        assertThat(slow.awaitCount(3)).isTrue();
+        assertThat(slow.received).extracting(LogEvent::getServiceName).contains("c");
+    }
+
+    /**
+     * SPILL: an undecodable line (e.g. torn by a crash) is quarantined and the rest is replayed once
+     */
+    @Test
+    void replay_quarantinesUndecodableLines() throws Exception {
+        Files.write(spillDir.resolve("sink.ndjson"), List.of(
+                mapper.writeValueAsString(event("a")),
+                "{\"serviceName\":\"torn",
+                mapper.writeValueAsString(event("b"))));
+        RecordingSink sink = new RecordingSink("sink", null);
+        pipeline = new IngestPipeline(List.of(sink), mapper, new SimpleMeterRegistry(), 10, 1, BackpressurePolicy.SPILL, 100, spillDir.toString());
+        pipeline.start();
+
+        assertThat(sink.awaitCount(2)).isTrue();
+        Thread.sleep(1500);                   // another replay tick must not re-send anything
+
+        assertThat(sink.received).extracting(LogEvent::getServiceName).containsExactly("a", "b");
+        assertThat(Files.readAllLines(spillDir.resolve("sink.quarantine.ndjson"))).containsExactly("{\"serviceName\":\"torn");
+        assertThat(spillDir.resolve("sink.replaying.ndjson")).doesNotExist();
+    }
+
+    /**
+     * SPILL: a replay interrupted part-way resumes after the last line it enqueued
+     */
+    @Test
+    void replay_resumesFromRecordedOffset() throws Exception {
+        String first = mapper.writeValueAsString(event("a"));
+        Files.write(spillDir.resolve("sink.replaying.ndjson"), List.of(first, mapper.writeValueAsString(event("b"))));
+        Files.writeString(spillDir.resolve("sink.replaying.offset"), Integer.toString(first.length() + 1));
+        RecordingSink sink = new RecordingSink("sink", null);
+        pipeline = new IngestPipeline(List.of(sink), mapper, new SimpleMeterRegistry(), 10, 1, BackpressurePolicy.SPILL, 100, spillDir.toString());
+        pipeline.start();
+
+        assertThat(sink.awaitCount(1)).isTrue();
+        Thread.sleep(1500);
+
+        assertThat(sink.received).extracting(LogEvent::getServiceName).containsExactly("b");
+        assertThat(spillDir.resolve("sink.replaying.offset")).doesNotExist();
+    }
+
+    private static LogEvent event(String service) {
+        return LogEvent.builder().serviceName(service).timestamp(Instant.now()).build();
+    }
+
+    private static class RecordingSink implements IngestSink {
+        private final String name;
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+        final List<LogEvent> received = new CopyOnWriteArrayList<>();
+
+        RecordingSink(String name, CountDownLatch release) {
+            this.name = name;
+            this.release = release;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void write(LogEvent event) throws Exception {
+            started.countDown();
+            if (release != null) release.await();
+            received.add(event);
+        }
+
+        boolean awaitStarted() throws InterruptedException {
+            return started.await(2, TimeUnit.SECONDS);
+        }
+
+        boolean awaitCount(int n) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (received.size() < n && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            return received.size() >= n;
+        }
+    }
+}
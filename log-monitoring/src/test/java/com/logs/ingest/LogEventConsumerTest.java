@@ -0,0 +1,133 @@
+package com.logs.ingest;
+
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException.FailureDetails;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogEventConsumerTest {
+
+    @Mock
+    private BulkIndexer bulkIndexer;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> deadLetters;
+
+    private LogEventConsumer consumer;
+
+    @BeforeEach
+    void setup() {
+        consumer = new LogEventConsumer(bulkIndexer, deadLetters);
+    }
+
+    /**
+     * Decoded records are bulk-indexed; null ones without payload (tombstones) are skipped
+     */
+    @Test
+    void onBatch_indexesReadableRecords() {
+        when(bulkIndexer.indexNow(anyList())).thenReturn(Map.of());
+
+        consumer.onBatch(List.of(record(0, event("1")), record(1, null), record(2, event("2"))));
+
+        verify(bulkIndexer).indexNow(argThat(list -> list.size() == 2
+                && "1".equals(list.get(0).getId()) && "2".equals(list.get(1).getId())));
+    }
+
+    /**
+     * Undecodable records go to the DLT with their raw bytes before the batch is acknowledged
+     */
+    @Test
+    void onBatch_deadLettersUnreadableRecords() {
+        when(bulkIndexer.indexNow(anyList())).thenReturn(Map.of());
+        when(deadLetters.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenReturn(CompletableFuture.completedFuture(null));
+        byte[] raw = {'L', 0, 1};
+
+        consumer.onBatch(List.of(record(0, event("1")), unreadable(1, raw)));
+
+        verify(deadLetters).send(argThat((ProducerRecord<String, byte[]> r) -> LogEventConsumer.DLT_NAME.equals(r.topic())
+                && Arrays.equals(raw, r.value())
+                && r.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET) != null));
+        verify(bulkIndexer).indexNow(argThat(list -> list.size() == 1));
+    }
+
+    /**
+     * If the DLT cannot be written the batch fails, so the unreadable record is not lost
+     */
+    @Test
+    void onBatch_failsWhenDeadLetteringFails() {
+        when(deadLetters.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThatThrownBy(() -> consumer.onBatch(List.of(unreadable(0, new byte[]{1}))))
+                .isInstanceOf(IllegalStateException.class);
+        verify(bulkIndexer, never()).indexNow(anyList());
+    }
+
+    /**
+     * Retryable ES failures fail the batch so offsets are not committed
+     */
+    @Test
+    void onBatch_throwsOnRetryableFailures() {
+        when(bulkIndexer.indexNow(anyList()))
+                .thenReturn(Map.of("1", new FailureDetails(429, "es_rejected_execution_exception")));
+
+        assertThatThrownBy(() -> consumer.onBatch(List.of(record(0, event("1")))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Permanent ES failures (e.g. mapping errors) are dropped so the partition keeps moving
+     */
+    @Test
+    void onBatch_dropsPermanentFailures() {
+        when(bulkIndexer.indexNow(anyList()))
+                .thenReturn(Map.of("1", new FailureDetails(400, "mapper_parsing_exception")));
+
+        consumer.onBatch(List.of(record(0, event("1"))));
+
+        verify(bulkIndexer, times(1)).indexNow(anyList());
+    }
+
+    private static LogEvent event(String id) {
+        return LogEvent.builder()
+                .id(id)
+                .serviceName("order-service")
+                .level(LogLevel.ERROR)
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    private static ConsumerRecord<String, LogEvent> record(long offset, LogEvent value) {
+        return new ConsumerRecord<>(KafkaSink.TOPIC_NAME, 0, offset, "order-service", value);
+    }
+
+    /** What ErrorHandlingDeserializer hands the listener for a payload the codec rejected. */
+    private static ConsumerRecord<String, LogEvent> unreadable(long offset, byte[] data) {
+        ConsumerRecord<String, LogEvent> r = record(offset, null);
+        SerializationUtils.deserializationException(r.headers(), data,
+                new SerializationException("Unsupported LogEvent payload version 0"), false);
+        return r;
+    }
+}
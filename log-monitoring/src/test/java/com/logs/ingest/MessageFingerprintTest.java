@@ -0,0 +1,41 @@
+package com.logs.ingest;
+
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageFingerprintTest {
+
+    @Test
+    void template_masksVariableParts() {
+        assertThat(MessageFingerprint.template(
+                "Payment 4711 for user42 failed after 1500 ms: order 3f1c2a9e-8b7d-4c6e-9f00-1a2b3c4d5e6f, addr 0x7ffe12ab"))
+                .isEqualTo("Payment <NUM> for user<NUM> failed after <NUM> ms: order <UUID>, addr <HEX>");
+        assertThat(MessageFingerprint.template("Key 'abc-123' not found in \"cache one\", sha deadbeef42"))
+                .isEqualTo("Key '<STR>' not found in \"<STR>\", sha <HEX>");
+    }
+
+    @Test
+    void template_leavesPlainTextAndApostrophesAlone() {
+        assertThat(MessageFingerprint.template("Can't reach database, giving up"))
+                .isEqualTo("Can't reach database, giving up");
+    }
+
+    /**
+     * Messages that differ only in their values share a hash
+     */
+    @Test
+    void fill_groupsMessagesThatDifferOnlyInValues() {
+        LogEvent a = LogEvent.builder().message("Timeout after 3000 ms calling 10.0.0.12").build();
+        LogEvent b = LogEvent.builder().message("Timeout after 250 ms calling 10.0.0.7").build();
+        LogEvent c = LogEvent.builder().message("Connection refused calling 10.0.0.7").build();
+
+        MessageFingerprint.fill(a);
+        MessageFingerprint.fill(b);
+        MessageFingerprint.fill(c);
+
+        assertThat(a.getTemplateHash()).hasSize(16).isEqualTo(b.getTemplateHash()).isNotEqualTo(c.getTemplateHash());
+        assertThat(a.getMessageTemplate()).isEqualTo("Timeout after <NUM> ms calling <NUM>.<NUM>.<NUM>.<NUM>");
+    }
+}
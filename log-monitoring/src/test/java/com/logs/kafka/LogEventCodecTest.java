@@ -0,0 +1,117 @@
+package com.logs.kafka;
+
+import com.logs.enums.Environment;
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LogEventCodecTest {
+
+    private final LogEventSerializer serializer = new LogEventSerializer();
+    private final LogEventDeserializer deserializer = new LogEventDeserializer();
+
+    /**
+     * Every field survives a round trip, including non-ASCII text
+     */
+    @Test
+    void roundTrip_allFields() {
+        LogEvent event = LogEvent.builder()
+                .id("3f2a")
+                .serviceName("payment-service")
+                .env(Environment.PROD)
+                .tenant("tenant-a")
+                .level(LogLevel.ERROR)
+                .message("Zahlung fehlgeschlagen – café 🚀")
+                .messageTemplate("Zahlung fehlgeschlagen – café 🚀")
+                .templateHash("0123456789abcdef")
+                .traceId("trace-1")
+                .latencyMs(1234)
+                .stack("java.lang.IllegalStateException\n\tat X.y(X.java:1)")
+                .timestamp(Instant.parse("2026-01-20T10:15:30.123456789Z"))
+                .build();
+
+        LogEvent decoded = deserializer.deserialize("log-events", serializer.serialize("log-events", event));
+
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    /**
+     * Null fields are left out of the payload and come back as null
+     */
+    @Test
+    void roundTrip_nullFields() {
+        LogEvent event = LogEvent.builder().serviceName("order-service").build();
+
+        byte[] bytes = serializer.serialize("log-events", event);
+        LogEvent decoded = deserializer.deserialize("log-events", bytes);
+
+        assertThat(decoded).isEqualTo(event);
+        assertThat(bytes.length).isLessThan(20);
+    }
+
+    /**
+     * Timestamps before the epoch survive the zig-zag encoding
+     */
+    @Test
+    void roundTrip_preEpochTimestamp() {
+        LogEvent event = LogEvent.builder().timestamp(Instant.parse("1969-12-31T23:59:58.5Z")).build();
+
+        assertThat(deserializer.deserialize("t", serializer.serialize("t", event)).getTimestamp())
+                .isEqualTo(event.getTimestamp());
+    }
+
+    /**
+     * Version 1 payloads (no template fields) are still readable
+     */
+    @Test
+    void decode_acceptsVersion1() {
+        LogEvent event = LogEvent.builder().serviceName("a").message("boom").build();
+        byte[] bytes = serializer.serialize("t", event);
+        bytes[1] = 1;
+
+        assertThat(deserializer.deserialize("t", bytes)).isEqualTo(event);
+    }
+
+    /**
+     * A newer writer's payload (an extra field behind a new presence bit) is read without that field,
+     * so consumers that are not upgraded yet keep indexing during a rolling deploy
+     */
+    @Test
+    void decode_newerVersion_ignoresUnknownTrailingFields() {
+        LogEventCodec.Buffer out = new LogEventCodec.Buffer(64);
+        out.writeByte(LogEventCodec.MAGIC);
+        out.writeByte(LogEventCodec.VERSION + 1);
+        out.writeVarInt((1 << 1) | (1 << 5) | (1 << 12));  // serviceName, message, unknown field
+        out.writeString("a");
+        out.writeString("boom");
+        out.writeString("field from the future");
+
+        assertThat(deserializer.deserialize("t", out.toByteArray()))
+                .isEqualTo(LogEvent.builder().serviceName("a").message("boom").build());
+    }
+
+    @Test
+    void decode_rejectsVersionZero() {
+        byte[] bytes = serializer.serialize("t", LogEvent.builder().serviceName("a").build());
+        bytes[1] = 0;
+
+        assertThatThrownBy(() -> deserializer.deserialize("t", bytes))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("version 0");
+    }
+
+    /**
+     * Old toString() payloads (or any foreign bytes) fail fast
+     */
+    @Test
+    void decode_rejectsForeignPayload() {
+        assertThatThrownBy(() -> deserializer.deserialize("t", "LogEvent(serviceName=x)".getBytes()))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.logs.metrics;
+
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisListCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RemoteCallMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RemoteCallMetrics metrics = new RemoteCallMetrics(registry);
+
+    private long count(String system, String operation, String outcome) {
+        var timer = registry.find(RemoteCallMetrics.METRIC)
+                .tags("system", system, "operation", operation, "outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void elasticsearchRequestsAreTimedByApiAndOutcome() throws IOException {
+        ElasticsearchTransport delegate = mock(ElasticsearchTransport.class);
+        Endpoint<Object, Object, Object> search = mock(Endpoint.class);
+        when(search.id()).thenReturn("es/search");
+        when(delegate.performRequest(any(), eq(search), any()))
+                .thenReturn("hits")
+                .thenThrow(new IOException("connection refused"));
+        ElasticsearchTransport transport = metrics.instrument(delegate);
+
+        assertThat(transport.performRequest("q", search, null)).isEqualTo("hits");
+        assertThatThrownBy(() -> transport.performRequest("q", search, null)).isInstanceOf(IOException.class);
+
+        assertThat(count("elasticsearch", "search", "success")).isEqualTo(1);
+        assertThat(count("elasticsearch", "search", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void redisCommandsAreTimedByCommand() {
+        RedisConnectionFactory delegate = mock(RedisConnectionFactory.class);
+        RedisConnection target = mock(RedisConnection.class);
+        RedisStringCommands strings = mock(RedisStringCommands.class);
+        when(delegate.getConnection()).thenReturn(target);
+        when(target.stringCommands()).thenReturn(strings);
+        when(strings.get(any())).thenReturn("v".getBytes());
+
+        RedisConnection connection = metrics.instrument(delegate).getConnection();
+        assertThat(connection.stringCommands().get("k".getBytes())).isEqualTo("v".getBytes());
+        connection.isClosed();
+
+        assertThat(count("redis", "get", "success")).isEqualTo(1);
+        assertThat(registry.find(RemoteCallMetrics.METRIC).tag("operation", "stringcommands").timer()).isNull();
+        assertThat(registry.find(RemoteCallMetrics.METRIC).tag("operation", "isclosed").timer()).isNull();
+    }
+
+    @Test
+    void pipelinedCommandsAreTimedAsOneRoundTrip() {
+        RedisConnectionFactory delegate = mock(RedisConnectionFactory.class);
+        RedisConnection target = mock(RedisConnection.class);
+        when(delegate.getConnection()).thenReturn(target);
+        when(target.listCommands()).thenReturn(mock(RedisListCommands.class));
+        when(target.isPipelined()).thenReturn(true);
+        when(target.closePipeline()).thenReturn(List.of());
+
+        RedisConnection connection = metrics.instrument(delegate).getConnection();
+        connection.openPipeline();
+        connection.listCommands().lPush("k".getBytes(), "v".getBytes());
+        connection.listCommands().lTrim("k".getBytes(), 0, 9);
+        connection.closePipeline();
+
+        assertThat(count("redis", "lpush", "success")).isZero();
+        assertThat(count("redis", "pipeline", "success")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,131 @@
+package com.logs.metrics;
+
+import com.logs.dto.AggregatedLogStatsDTO;
+import com.logs.enums.LogLevel;
+import com.logs.enums.StatsWindow;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ServiceStatsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:17:42Z");
+
+    private final ServiceStatsService stats =
+            new ServiceStatsService(null, 1000, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    private static LogEvent log(String svc, LogLevel level) {
+        LogEvent e = new LogEvent();
+        e.setServiceName(svc);
+        e.setLevel(level);
+        return e;
+    }
+
+    @Test
+    void drainReturnsDeltasSinceLastFlush() {
+        stats.record(log("api", LogLevel.ERROR));
+        stats.record(log("api", LogLevel.ERROR));
+        stats.record(log("db", LogLevel.WARN));
+        stats.record(log(null, LogLevel.ERROR));
+
+        assertThat(stats.drain(NOW)).containsExactlyInAnyOrderEntriesOf(Map.of("api|ERROR", 2L, "db|WARN", 1L));
+        assertThat(stats.drain(NOW)).isEmpty();
+    }
+
+    /**
+     * Counters idle for the shortest window are dropped; a service that logs again gets a new one
+     */
+    @Test
+    void drainDropsIdleCounters() {
+        stats.record(log("gone", LogLevel.INFO));
+        stats.drain(NOW);
+        stats.drain(NOW.plusSeconds(60));
+        assertThat(stats.pendingSize()).isEqualTo(1);
+
+        stats.drain(NOW.plusSeconds(360));
+        assertThat(stats.pendingSize()).isZero();
+
+        stats.record(log("gone", LogLevel.INFO));
+        assertThat(stats.drain(NOW.plusSeconds(365))).containsExactlyEntriesOf(Map.of("gone|INFO", 1L));
+    }
+
+    @Test
+    void mergeSumsBucketsPerService() {
+        List<AggregatedLogStatsDTO> rows = ServiceStatsService.merge(List.of(
+                Map.of("api|ERROR", "3", "api|INFO", "10", "db|WARN", "1"),
+                Map.of("api|ERROR", "2", "db|ERROR", "7", "db|DEBUG", "4", "a|b|WARN", "1"),
+                Map.of()), List.of(1.0, 1.0, 1.0), "t");
+
+        assertThat(rows).extracting(AggregatedLogStatsDTO::getServiceName).containsExactly("db", "api", "a|b");
+        assertThat(rows.get(0)).isEqualTo(new AggregatedLogStatsDTO("db", 7, 1, 0, "t"));
+        assertThat(rows.get(1)).isEqualTo(new AggregatedLogStatsDTO("api", 5, 0, 10, "t"));
+    }
+
+    @Test
+    void windowsCoverTheirBuckets() {
+        List<String> fiveMinutes = ServiceStatsService.bucketKeys(StatsWindow.FIVE_MINUTES, NOW);
+        assertThat(fiveMinutes).hasSize(6)
+                .first().isEqualTo("svcstats:m:" + NOW.truncatedTo(ChronoUnit.MINUTES).getEpochSecond());
+        assertThat(fiveMinutes.get(5))
+                .isEqualTo("svcstats:m:" + Instant.parse("2024-05-01T10:12:00Z").getEpochSecond());
+
+        List<String> day = ServiceStatsService.bucketKeys(StatsWindow.ONE_DAY, NOW);
+        assertThat(day).hasSize(25)
+                .last().isEqualTo("svcstats:h:" + Instant.parse("2024-04-30T10:00:00Z").getEpochSecond());
+    }
+
+    /**
+     * The bucket before the window only counts for the part the current partial bucket leaves out
+     */
+    @Test
+    void oldestBucketIsProRated() {
+        List<Double> weights = ServiceStatsService.weights(StatsWindow.FIVE_MINUTES, NOW);
+
+        assertThat(weights).hasSize(6).startsWith(1.0, 1.0, 1.0, 1.0, 1.0);
+        assertThat(weights.get(5)).isCloseTo(0.3, within(1e-9)); // 42 s of 10:17 elapsed
+
+        List<AggregatedLogStatsDTO> rows = ServiceStatsService.merge(List.of(
+                Map.of("api|ERROR", "1"), Map.of(), Map.of(), Map.of(), Map.of(), Map.of("api|ERROR", "10")), weights, "t");
+        assertThat(rows.get(0).getErrorCount()).isEqualTo(4);
+    }
+
+    /**
+     * A failed flush is retried as the same batch (same id and buckets), not merged into new deltas
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushIsRetriedWithTheSameBatchId() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ServiceStatsService service = new ServiceStatsService(redis, 1000, Clock.fixed(NOW, ZoneOffset.UTC));
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("reply lost"))
+                .thenReturn(0L)
+                .thenReturn(1L);
+
+        service.record(log("api", LogLevel.ERROR));
+        service.flush();
+        service.record(log("api", LogLevel.ERROR));
+        service.flush();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redis, times(3)).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+        assertThat(keys.getAllValues().get(1)).isEqualTo(keys.getAllValues().get(0));
+        assertThat(keys.getAllValues().get(2).get(2)).isNotEqualTo(keys.getAllValues().get(0).get(2))
+                .startsWith(ServiceStatsService.BATCH_KEY);
+    }
+}
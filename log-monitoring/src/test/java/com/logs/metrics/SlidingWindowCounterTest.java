@@ -0,0 +1,135 @@
+package com.logs.metrics;
+
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    /**
+     * Only buckets inside the window are summed
+     */
+    @Test
+    void sum_countsOnlyWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        counter.increment(1_000);
+        counter.increment(1_000);
+        counter.increment(1_030);
+        counter.increment(1_059);
+
+        assertThat(counter.sum(60, 1_059)).isEqualTo(4);
+        assertThat(counter.sum(30, 1_059)).isEqualTo(2);
+        assertThat(counter.sum(60, 1_060)).isEqualTo(2);
+    }
+
+    /**
+     * A bucket from an earlier lap of the ring is reset, and late events are ignored
+     */
+    @Test
+    void increment_reusesStaleBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        counter.increment(5);
+        counter.increment(15);
+        counter.increment(5);
+
+        assertThat(counter.sum(10, 15)).isEqualTo(1);
+    }
+
+    /**
+     * Concurrent increments are not lost
+     */
+    @Test
+    void increment_isThreadSafe() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60);
+        IntStream.range(0, 10_000).parallel().forEach(i -> counter.increment(100 + (i % 3)));
+
+        assertThat(counter.sum(60, 102)).isEqualTo(10_000);
+    }
+
+    /**
+     * Counts are only served once the counters have covered the whole window
+     */
+    @Test
+    void logCounterService_coldStartFallsBack() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        LogCounterService service = new LogCounterService(true, 900, clock);
+        clock.now = clock.now.plusSeconds(100);
+        service.record(LogEvent.builder().serviceName("api").level(LogLevel.ERROR).timestamp(clock.instant()).build());
+
+        assertThat(service.count("api", LogLevel.ERROR, Duration.ofMinutes(5))).isEmpty();
+
+        clock.now = clock.now.plusSeconds(200);
+        assertThat(service.count("api", LogLevel.ERROR, Duration.ofMinutes(5))).hasValue(1);
+        assertThat(service.count("api", LogLevel.WARN, Duration.ofMinutes(5))).hasValue(0);
+        assertThat(service.count("api", LogLevel.ERROR, Duration.ofMinutes(30))).isEmpty();
+    }
+
+    /**
+     * A service/level idle for a whole window is dropped; one that logged within it is kept
+     */
+    @Test
+    void logCounterService_evictsIdleCounters() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+        LogCounterService service = new LogCounterService(true, 60, clock);
+        service.record(LogEvent.builder().serviceName("gone").level(LogLevel.INFO).timestamp(clock.instant()).build());
+        clock.now = clock.now.plusSeconds(30);
+        service.record(LogEvent.builder().serviceName("api").level(LogLevel.INFO).timestamp(clock.instant()).build());
+
+        clock.now = clock.now.plusSeconds(45);
+        service.evictIdle();
+
+        assertThat(service.size()).isEqualTo(1);
+        assertThat(service.count("api", LogLevel.INFO, Duration.ofMinutes(1))).hasValue(1);
+        assertThat(service.count("gone", LogLevel.INFO, Duration.ofMinutes(1))).hasValue(0);
+    }
+
+    /**
+     * Transferred counts move once and keep their second
+     */
+    @Test
+    void transferTo_movesRecentBucketsOnce() {
+        SlidingWindowCounter from = new SlidingWindowCounter(60);
+        SlidingWindowCounter to = new SlidingWindowCounter(60);
+        from.increment(100);
+        from.increment(150);
+        from.increment(150);
+
+        from.transferTo(to, 120);
+        from.transferTo(to, 120);
+
+        assertThat(to.sum(60, 159)).isEqualTo(2);
+        assertThat(from.sum(60, 159)).isEqualTo(1);       // second 100 stays behind
+        assertThat(to.newestSecond()).isEqualTo(150);
+    }
+
+    private static final class MutableClock extends Clock {
+        Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.logs.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CacheRepositoryTest {
+
+    /**
+     * A log lands in the global, service, level and service+level windows
+     */
+    @Test
+    void keysFor_coversEveryFilterCombination() {
+        LogEvent event = LogEvent.builder().serviceName("order-service").level(LogLevel.ERROR).build();
+
+        assertThat(CacheRepository.keysFor(event)).containsExactly(
+                "recent_logs:all",
+                "recent_logs:svc:order-service",
+                "recent_logs:lvl:ERROR",
+                "recent_logs:svc:order-service:lvl:ERROR");
+    }
+
+    /**
+     * Missing fields only skip the windows that depend on them
+     */
+    @Test
+    void keysFor_skipsMissingFields() {
+        LogEvent event = LogEvent.builder().serviceName(" ").level(LogLevel.WARN).build();
+
+        assertThat(CacheRepository.keysFor(event)).containsExactly("recent_logs:all", "recent_logs:lvl:WARN");
+    }
+
+    /**
+     * Read keys line up with the write keys
+     */
+    @Test
+    void recentKey_matchesFilters() {
+        assertThat(CacheRepository.recentKey(null, null)).isEqualTo("recent_logs:all");
+        assertThat(CacheRepository.recentKey("a", null)).isEqualTo("recent_logs:svc:a");
+        assertThat(CacheRepository.recentKey(null, LogLevel.INFO)).isEqualTo("recent_logs:lvl:INFO");
+    }
+
+    /**
+     * window=0 reads the same single entry that a push keeps
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void getRecentLogs_zeroWindowReadsOneEntry() {
+        RedisTemplate<String, Object> redis = mock(RedisTemplate.class);
+        ListOperations<String, Object> lists = mock(ListOperations.class);
+        when(redis.opsForList()).thenReturn(lists);
+        CacheRepository repo = new CacheRepository(redis, new ObjectMapper());
+        ReflectionTestUtils.setField(repo, "window", 0);
+
+        repo.getRecentLogs();
+
+        verify(lists).range("recent_logs:all", 0, 0);
+    }
+}
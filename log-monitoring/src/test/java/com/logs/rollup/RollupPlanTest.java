@@ -0,0 +1,83 @@
+package com.logs.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupPlanTest {
+
+    private static final Instant T0 = Instant.parse("2024-05-01T00:00:00Z");
+
+    private static Instant at(String hhmmss) {
+        return Instant.parse("2024-05-01T" + hhmmss + "Z");
+    }
+
+    @Test
+    void longRange_usesHoursInTheMiddleAndMinutesAtTheEdges() {
+        List<RollupPlan.Segment> plan = RollupPlan.plan(at("00:10:30"), at("05:20:00"),
+                T0, at("06:00:00"), at("06:00:00"));
+
+        assertThat(plan).containsExactly(
+                new RollupPlan.Segment(null, at("00:10:30"), at("00:11:00"), false),
+                new RollupPlan.Segment(RollupResolution.MINUTE, at("00:11:00"), at("01:00:00"), false),
+                new RollupPlan.Segment(RollupResolution.HOUR, at("01:00:00"), at("05:00:00"), false),
+                new RollupPlan.Segment(RollupResolution.MINUTE, at("05:00:00"), at("05:20:00"), false),
+                new RollupPlan.Segment(null, at("05:20:00"), at("05:20:00"), true));
+    }
+
+    @Test
+    void dataNewerThanWatermarks_readsRawLogs() {
+        List<RollupPlan.Segment> plan = RollupPlan.plan(T0, at("04:00:00"),
+                T0, at("03:30:00"), at("03:00:00"));
+
+        assertThat(plan).containsExactly(
+                new RollupPlan.Segment(RollupResolution.HOUR, T0, at("03:00:00"), false),
+                new RollupPlan.Segment(RollupResolution.MINUTE, at("03:00:00"), at("03:30:00"), false),
+                new RollupPlan.Segment(null, at("03:30:00"), at("04:00:00"), true));
+    }
+
+    @Test
+    void noRollups_readsEverythingRaw() {
+        List<RollupPlan.Segment> plan = RollupPlan.plan(T0, at("04:00:00"), null, null, null);
+
+        assertThat(plan).containsExactly(new RollupPlan.Segment(null, T0, at("04:00:00"), true));
+    }
+
+    /** Nothing was rolled up before the low watermark, so that part reads raw logs. */
+    @Test
+    void historyBeforeLowWatermark_readsRawLogs() {
+        List<RollupPlan.Segment> plan = RollupPlan.plan(T0, at("06:00:00"),
+                at("02:30:00"), at("05:00:00"), at("05:00:00"));
+
+        assertThat(plan).containsExactly(
+                new RollupPlan.Segment(null, T0, at("02:30:00"), false),
+                new RollupPlan.Segment(RollupResolution.MINUTE, at("02:30:00"), at("03:00:00"), false),
+                new RollupPlan.Segment(RollupResolution.HOUR, at("03:00:00"), at("05:00:00"), false),
+                new RollupPlan.Segment(null, at("05:00:00"), at("06:00:00"), true));
+    }
+
+    @Test
+    void rangeEntirelyBeforeLowWatermark_readsRawLogs() {
+        List<RollupPlan.Segment> plan = RollupPlan.plan(T0, at("02:00:00"),
+                at("03:00:00"), at("05:00:00"), at("05:00:00"));
+
+        assertThat(plan).containsExactly(new RollupPlan.Segment(null, T0, at("02:00:00"), true));
+    }
+
+    @Test
+    void segmentsAreContiguous() {
+        Instant from = at("00:00:07");
+        Instant to = at("23:59:59");
+        List<RollupPlan.Segment> plan = RollupPlan.plan(from, to, T0, at("23:58:00"), at("23:00:00"));
+
+        assertThat(plan.get(0).from()).isEqualTo(from);
+        assertThat(plan.get(plan.size() - 1).to()).isEqualTo(to);
+        for (int i = 1; i < plan.size(); i++) {
+            assertThat(plan.get(i).from()).isEqualTo(plan.get(i - 1).to());
+        }
+        assertThat(plan).filteredOn(RollupPlan.Segment::inclusiveEnd).hasSize(1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.logs.rollup;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import com.logs.concurrent.FanOut;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogRollup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.DeleteQuery;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RollupServiceTest {
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> values;
+
+    @Mock
+    private LogIndexManager logIndices;
+
+    @Mock
+    private IndexOperations indexOps;
+
+    @Mock
+    private SearchHits<Object> hits;
+
+    private RollupService rollups;
+    private Instant cutoff;
+
+    @BeforeEach
+    void setup() {
+        rollups = new RollupService(esOps, redisTemplate, logIndices,
+                new FanOut(Executors.newSingleThreadExecutor(), Duration.ofSeconds(5)),
+                60, 5, 24, 6, 120, 24, 30);
+        cutoff = rollups.retentionCutoff();
+
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(esOps.indexOps(any(IndexCoordinates.class))).thenReturn(indexOps);
+        when(indexOps.exists()).thenReturn(true);
+        when(logIndices.searchIndex(any(), any())).thenReturn(IndexCoordinates.of("logs-search"));
+        ElasticsearchAggregations empty = new ElasticsearchAggregations(Map.of("rollup",
+                Aggregate.of(a -> a.composite(c -> c.buckets(b -> b.array(List.of()))))));
+        doReturn(empty).when(hits).getAggregations();
+        doReturn(hits).when(esOps).search(any(NativeQuery.class), any(), any(IndexCoordinates.class));
+
+        // the minute/hour rollups are already up to date
+        long upToDate = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+        when(values.get(RollupService.WATERMARK_KEY + "1m")).thenReturn(upToDate);
+        when(values.get(RollupService.WATERMARK_KEY + "1h")).thenReturn(upToDate);
+    }
+
+    /** Retention dropped the raw days below the low watermark: their rollups go too. */
+    @Test
+    void rollUp_dropsRollupsOlderThanRetention() {
+        when(values.get(RollupService.LOW_WATERMARK_KEY)).thenReturn(cutoff.minus(Duration.ofDays(2)).getEpochSecond());
+
+        rollups.rollUp();
+
+        verify(esOps).delete(any(DeleteQuery.class), eq(LogRollup.class), eq(RollupResolution.MINUTE.index()));
+        verify(esOps).delete(any(DeleteQuery.class), eq(LogRollup.class), eq(RollupResolution.HOUR.index()));
+        verify(values).set(RollupService.LOW_WATERMARK_KEY, cutoff.getEpochSecond());
+    }
+
+    /** History between the retention cutoff and the low watermark is rolled up one step per run. */
+    @Test
+    void rollUp_backfillsBelowLowWatermark() {
+        Instant low = cutoff.plus(Duration.ofDays(10));
+        when(values.get(RollupService.LOW_WATERMARK_KEY)).thenReturn(low.getEpochSecond());
+
+        rollups.rollUp();
+
+        verify(values).set(RollupService.LOW_WATERMARK_KEY, low.minus(Duration.ofHours(6)).getEpochSecond());
+        verify(esOps, never()).delete(any(DeleteQuery.class), any(), any(IndexCoordinates.class));
+    }
+
+    /** Hours below the lookback are re-rolled one per run, walking back through the late window. */
+    @Test
+    void rollUp_sweepsOneOlderHour() {
+        when(values.get(RollupService.LOW_WATERMARK_KEY)).thenReturn(cutoff.getEpochSecond());
+        Instant watermark = RollupPlan.floor(Instant.now(), RollupResolution.MINUTE);
+        when(values.get(RollupService.WATERMARK_KEY + "1m")).thenReturn(watermark.getEpochSecond());
+        when(values.get(RollupService.WATERMARK_KEY + "1h")).thenReturn(RollupPlan.floor(watermark, RollupResolution.HOUR).getEpochSecond());
+        Instant hour = RollupPlan.floor(watermark.minus(Duration.ofHours(5)), RollupResolution.HOUR);
+        when(values.get(RollupService.SWEEP_KEY)).thenReturn(hour.getEpochSecond());
+
+        rollups.rollUp();
+
+        verify(values).set(RollupService.SWEEP_KEY, hour.minus(Duration.ofHours(1)).getEpochSecond());
+    }
+}
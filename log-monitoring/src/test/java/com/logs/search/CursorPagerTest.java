@@ -0,0 +1,111 @@
+package com.logs.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CursorPagerTest {
+
+    private static final IndexCoordinates INDEX = IndexCoordinates.of("logs-search");
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "timestamp");
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    @Mock
+    private SearchHits<LogEvent> hits;
+
+    private CursorPager pager;
+
+    @BeforeEach
+    void setup() {
+        pager = new CursorPager(esOps, new ObjectMapper(), 60);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenHits(Object... lastSortValues) {
+        SearchHit<LogEvent> first = mock(SearchHit.class);
+        SearchHit<LogEvent> last = mock(SearchHit.class);
+        lenient().when(last.getSortValues()).thenReturn(List.of(lastSortValues));
+        when(hits.getSearchHits()).thenReturn(List.of(first, last));
+        when(hits.getPointInTimeId()).thenReturn("pit-2");
+        when(esOps.search(any(NativeQuery.class), eq(LogEvent.class))).thenReturn(hits);
+    }
+
+    /**
+     * The first page opens a PIT; a full page returns a cursor holding the last hit's sort values
+     */
+    @Test
+    void firstPage_opensPitAndReturnsCursor() {
+        when(esOps.openPointInTime(eq(INDEX), any(Duration.class), eq(true))).thenReturn("pit-1");
+        givenHits(1714521600000L, 42);
+
+        CursorPager.Page<LogEvent> page = pager.fetch(new NativeQueryBuilder().build(), LogEvent.class, INDEX, NEWEST_FIRST, 2, null);
+
+        SearchCursor next = pager.decode(page.nextCursor());
+        assertThat(next.pit()).isEqualTo("pit-2");
+        assertThat(next.after()).containsExactly(1714521600000L, 42);
+        assertThat(CursorPager.decodeSort(next.sort())).isEqualTo(NEWEST_FIRST);
+        verify(esOps, never()).closePointInTime(any());
+    }
+
+    /**
+     * A follow-up page searches after the cursor without opening another PIT; a short page ends the scroll
+     */
+    @Test
+    void nextPage_searchesAfterCursorAndClosesPitAtTheEnd() {
+        String cursor = pager.encode(new SearchCursor("pit-1", List.of(1714521600000L, 42), List.of("timestamp:DESC")));
+        givenHits(1714521500000L, 7);
+
+        CursorPager.Page<LogEvent> page = pager.fetch(new NativeQueryBuilder().build(), LogEvent.class, INDEX, Sort.unsorted(), 10, cursor);
+
+        ArgumentCaptor<NativeQuery> query = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(esOps).search(query.capture(), eq(LogEvent.class));
+        assertThat(query.getValue().getSearchAfter()).containsExactly(1714521600000L, 42);
+        assertThat(query.getValue().getPointInTime().id()).isEqualTo("pit-1");
+        assertThat(query.getValue().getSort()).isEqualTo(NEWEST_FIRST);
+        assertThat(page.nextCursor()).isNull();
+        verify(esOps, never()).openPointInTime(any(), any(), any());
+        verify(esOps).closePointInTime("pit-2");
+    }
+
+    /**
+     * A PIT opened for a first page is closed again when the search itself fails
+     */
+    @Test
+    void firstPage_closesPitWhenSearchFails() {
+        when(esOps.openPointInTime(eq(INDEX), any(Duration.class), eq(true))).thenReturn("pit-1");
+        when(esOps.search(any(NativeQuery.class), eq(LogEvent.class))).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> pager.fetch(new NativeQueryBuilder().build(), LogEvent.class, INDEX, NEWEST_FIRST, 10, null))
+                .isInstanceOf(IllegalStateException.class);
+        verify(esOps).closePointInTime("pit-1");
+    }
+
+    @Test
+    void garbageCursor_isRejected() {
+        assertThatThrownBy(() -> pager.fetch(new NativeQueryBuilder().build(), LogEvent.class, INDEX, NEWEST_FIRST, 10, "not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.logs.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageQueriesTest {
+
+    @Test
+    void contains_isCaseInsensitiveWildcardOnWildcardField() {
+        Query q = MessageQueries.forMode("contains", "timeout*", Set.of());
+
+        assertThat(q.isWildcard()).isTrue();
+        assertThat(q.wildcard().field()).isEqualTo("message.wildcard");
+        assertThat(q.wildcard().value()).isEqualTo("*timeout\\**");
+        assertThat(q.wildcard().caseInsensitive()).isTrue();
+    }
+
+    @Test
+    void exactAndPrefix_useKeywordSubField() {
+        assertThat(MessageQueries.forMode("exact", "boom", Set.of()).term().field()).isEqualTo("message.keyword");
+        assertThat(MessageQueries.forMode("prefix", "boom", Set.of()).prefix().field()).isEqualTo("message.keyword");
+        assertThat(MessageQueries.forMode("match", "boom", Set.of()).match().field()).isEqualTo("message");
+    }
+
+    /**
+     * Indices still mapping message as keyword get the old query, scoped to those indices
+     */
+    @Test
+    void keywordIndices_getScopedFallback() {
+        Query q = MessageQueries.forMode("exact", "boom", Set.of("logs"));
+
+        assertThat(q.bool().should()).hasSize(2);
+        assertThat(q.bool().should().get(0).term().field()).isEqualTo("message.keyword");
+        Query legacy = q.bool().should().get(1);
+        assertThat(legacy.bool().filter().get(0).terms().field()).isEqualTo("_index");
+        assertThat(legacy.bool().filter().get(1).term().field()).isEqualTo("message");
+    }
+}
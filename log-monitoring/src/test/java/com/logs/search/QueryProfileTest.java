@@ -0,0 +1,70 @@
+package com.logs.search;
+
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.json.JsonpUtils;
+import com.logs.dto.QueryTimings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryProfileTest {
+
+    private final ProfilingJsonpMapper mapper = new ProfilingJsonpMapper();
+    private final SearchRequest search = SearchRequest.of(s -> s.index("logs-search").size(10));
+
+    @AfterEach
+    void unbind() {
+        QueryProfile.end();
+    }
+
+    @Test
+    void record_withoutActiveProfile_isNoOp() {
+        QueryProfile.record(QueryProfile.Phase.BUILD, System.nanoTime());
+
+        assertThat(QueryProfile.current()).isNull();
+        assertThat(QueryProfile.esProfileRequested()).isFalse();
+    }
+
+    @Test
+    void timings_splitPhases() throws Exception {
+        QueryProfile profile = QueryProfile.begin("logs.search", false);
+        long start = System.nanoTime();
+        Thread.sleep(5);
+        QueryProfile.record(QueryProfile.Phase.BUILD, start);
+
+        QueryTimings t = profile.timings(false);
+
+        assertThat(t.getName()).isEqualTo("logs.search");
+        assertThat(t.getBuildMs()).isGreaterThanOrEqualTo(5.0);
+        assertThat(t.getTotalMs()).isGreaterThanOrEqualTo(t.getBuildMs());
+        assertThat(t.getJsonWriteMs()).isNull();
+        assertThat(t.getEsProfile()).isNull();
+    }
+
+    @Test
+    void mapper_addsProfileFlag_onlyWhenRequested() {
+        assertThat(JsonpUtils.toJsonString(search, mapper)).doesNotContain("\"profile\"");
+
+        QueryProfile.begin("logs.search", false);
+        assertThat(JsonpUtils.toJsonString(search, mapper)).doesNotContain("\"profile\"");
+
+        QueryProfile.begin("logs.search", true);
+        assertThat(JsonpUtils.toJsonString(search, mapper))
+                .contains("\"profile\":true")
+                .contains("\"size\":10");
+    }
+
+    @Test
+    void slowQueryLog_keepsNewestAboveThreshold() {
+        SlowQueryLog log = new SlowQueryLog(100, 2);
+
+        assertThat(log.offer("/api/logs/search", QueryTimings.builder().name("fast").totalMs(99).build())).isFalse();
+        log.offer("/api/logs/search", QueryTimings.builder().name("a").totalMs(100).build());
+        log.offer("/api/errors/trend", QueryTimings.builder().name("b").totalMs(250).build());
+        log.offer("/api/errors/trend", QueryTimings.builder().name("c").totalMs(300).build());
+
+        assertThat(log.recent(10)).extracting(e -> e.timings().getName()).containsExactly("c", "b");
+        assertThat(log.recent(1)).hasSize(1);
+    }
+}
@@ -1,12 +1,16 @@
 package com.logs.service;
 
+import com.logs.alerting.CompiledRules;
+import com.logs.alerting.WindowStats;
+import com.logs.alerting.WindowStatsProvider;
+import com.logs.enums.AlertMetric;
 import com.logs.enums.AlertSeverity;
 import com.logs.enums.AlertStatus;
 import com.logs.enums.LogLevel;
+import com.logs.enums.ThresholdOperator;
 import com.logs.model.Alert;
-import com.logs.model.LogEvent;
+import com.logs.model.AlertRule;
 import com.logs.repository.AlertRepository;
-import com.logs.repository.LogRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +18,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.List;
@@ -28,10 +33,13 @@ import static org.mockito.Mockito.*;
 class AlertServiceTest {
 
     @Mock
-    private LogRepository logRepository;
+    private AlertRepository alertRepository;
 
     @Mock
-    private AlertRepository alertRepository;
+    private AlertRuleService alertRuleService;
+
+    @Mock
+    private WindowStatsProvider windowStatsProvider;
 
     @InjectMocks
     private AlertService alertService;
@@ -43,28 +51,30 @@ class AlertServiceTest {
         serviceName = "order-service";
     }
 
+    private void givenRules(AlertRule... rules) {
+        when(alertRuleService.compiled()).thenReturn(CompiledRules.compile(List.of(rules)));
+    }
+
+    private void givenErrors(Duration window, long errors, long total) {
+        when(windowStatsProvider.statsFor(serviceName, window))
+                .thenReturn(new WindowStats(Map.of(LogLevel.ERROR, errors, LogLevel.INFO, total - errors)));
+    }
+
     /**
      * ERROR count > threshold → alert created
      */
     @Test
     void evaluateForService_triggersAlert() {
-        when(logRepository.findByServiceNameAndLevelAndTimestampAfter(
-                eq(serviceName), eq(LogLevel.ERROR), any()))
-                .thenReturn(List.of(
-                        new LogEvent(), new LogEvent(), new LogEvent(),
-                        new LogEvent(), new LogEvent(), new LogEvent()
-                ));
-
-        when(alertRepository.findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(
-                serviceName, "error.rate.high", AlertStatus.OPEN))
-                .thenReturn(Optional.empty());
-
+        givenRules(AlertRuleService.DEFAULT_RULE);
+        givenErrors(Duration.ofMinutes(5), 6, 6);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of());
         when(alertRepository.save(any(Alert.class)))
                 .thenAnswer(inv -> inv.getArgument(0));
 
         Optional<Alert> result = alertService.evaluateForService(serviceName);
 
         assertThat(result).isPresent();
+        assertThat(result.get().getRuleId()).isEqualTo("error.rate.high");
         assertThat(result.get().getStatus()).isEqualTo(AlertStatus.OPEN);
         assertThat(result.get().getSeverity()).isEqualTo(AlertSeverity.HIGH);
         assertThat(result.get().getObserved()).isGreaterThan(5);
@@ -79,24 +89,42 @@ class AlertServiceTest {
                 .serviceName(serviceName)
                 .ruleId("error.rate.high")
                 .status(AlertStatus.OPEN)
+                .severity(AlertSeverity.HIGH)
                 .openedAt(Instant.now())
                 .build();
 
-        when(logRepository.findByServiceNameAndLevelAndTimestampAfter(
-                eq(serviceName), eq(LogLevel.ERROR), any()))
-                .thenReturn(List.of(new LogEvent(), new LogEvent(), new LogEvent(),
-                        new LogEvent(), new LogEvent(), new LogEvent()));
+        givenRules(AlertRuleService.DEFAULT_RULE);
+        givenErrors(Duration.ofMinutes(5), 6, 6);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of(existing));
+        when(alertRepository.save(existing)).thenReturn(existing);
 
-        when(alertRepository.findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(
-                serviceName, "error.rate.high", AlertStatus.OPEN))
-                .thenReturn(Optional.of(existing));
+        Optional<Alert> result = alertService.evaluateForService(serviceName);
 
-        when(alertRepository.save(existing)).thenReturn(existing);
+        assertThat(result).containsSame(existing);
+        verify(alertRepository, times(1)).save(existing);
+    }
+
+    /**
+     * A silent service (no logs in the window) breaches a "too few logs" rule, and such a rule
+     * asks for every known service to be evaluated
+     */
+    @Test
+    void evaluateForService_silentServiceTriggersLowVolumeRule() {
+        AlertRule tooQuiet = AlertRule.builder()
+                .id("volume.low").metric(AlertMetric.LOG_COUNT).windowMinutes(15)
+                .operator(ThresholdOperator.LT).threshold(1.0).severity(AlertSeverity.MEDIUM)
+                .build();
+        givenRules(tooQuiet);
+        when(windowStatsProvider.statsFor(serviceName, Duration.ofMinutes(15))).thenReturn(new WindowStats(Map.of()));
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of());
+        when(alertRepository.save(any(Alert.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Optional<Alert> result = alertService.evaluateForService(serviceName);
 
+        assertThat(alertService.watchesForSilence()).isTrue();
         assertThat(result).isPresent();
-        verify(alertRepository, times(1)).save(existing);
+        assertThat(result.get().getRuleId()).isEqualTo("volume.low");
+        assertThat(result.get().getObserved()).isZero();
     }
 
     /**
@@ -104,13 +132,14 @@ class AlertServiceTest {
      */
     @Test
     void evaluateForService_noAlertWhenBelowThreshold() {
-        when(logRepository.findByServiceNameAndLevelAndTimestampAfter(
-                eq(serviceName), eq(LogLevel.ERROR), any()))
-                .thenReturn(List.of(new LogEvent(), new LogEvent()));
+        givenRules(AlertRuleService.DEFAULT_RULE);
+        givenErrors(Duration.ofMinutes(5), 2, 10);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of());
 
         Optional<Alert> result = alertService.evaluateForService(serviceName);
 
         assertThat(result).isEmpty();
+        verify(alertRepository, never()).save(any());
     }
 
     /**
@@ -125,14 +154,9 @@ class AlertServiceTest {
                 .openedAt(Instant.now())
                 .build();
 
-        when(logRepository.findByServiceNameAndLevelAndTimestampAfter(
-                eq(serviceName), eq(LogLevel.ERROR), any()))
-                .thenReturn(List.of(new LogEvent())); // below threshold
-
-        when(alertRepository.findFirstByServiceNameAndRuleIdAndStatusOrderByOpenedAtDesc(
-                serviceName, "error.rate.high", AlertStatus.OPEN))
-                .thenReturn(Optional.of(open));
-
+        givenRules(AlertRuleService.DEFAULT_RULE);
+        givenErrors(Duration.ofMinutes(5), 1, 1); // below threshold
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of(open));
         when(alertRepository.save(any(Alert.class)))
                 .thenAnswer(inv -> inv.getArgument(0));
 
@@ -142,6 +166,125 @@ class AlertServiceTest {
         assertThat(open.getClosedAt()).isNotNull();
     }
 
+    /**
+     * Rules sharing a window share one stats lookup; the most severe triggered alert is returned
+     */
+    @Test
+    void evaluateForService_rulesShareWindowStats() {
+        AlertRule ratio = AlertRule.builder()
+                .id("error.ratio.high")
+                .metric(AlertMetric.ERROR_RATE_PERCENT)
+                .windowMinutes(5)
+                .operator(ThresholdOperator.GTE)
+                .threshold(50.0)
+                .severity(AlertSeverity.CRITICAL)
+                .build();
+        AlertRule quiet = AlertRule.builder()
+                .id("traffic.low")
+                .metric(AlertMetric.LOG_COUNT)
+                .windowMinutes(60)
+                .operator(ThresholdOperator.LT)
+                .threshold(1.0)
+                .severity(AlertSeverity.LOW)
+                .build();
+
+        givenRules(AlertRuleService.DEFAULT_RULE, ratio, quiet);
+        givenErrors(Duration.ofMinutes(5), 6, 10);
+        givenErrors(Duration.ofMinutes(60), 6, 40);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of());
+        when(alertRepository.save(any(Alert.class)))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        Optional<Alert> result = alertService.evaluateForService(serviceName);
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getRuleId()).isEqualTo("error.ratio.high");
+        assertThat(result.get().getObserved()).isEqualTo(60.0);
+        verify(windowStatsProvider, times(1)).statsFor(serviceName, Duration.ofMinutes(5));
+        verify(alertRepository, times(2)).save(any(Alert.class));
+    }
+
+    /**
+     * Per-service override mutes a rule without a stats lookup
+     */
+    @Test
+    void evaluateForService_overrideDisablesRule() {
+        AlertRule muted = AlertRule.builder()
+                .id("error.rate.high")
+                .metric(AlertMetric.ERROR_COUNT)
+                .windowMinutes(5)
+                .operator(ThresholdOperator.GT)
+                .threshold(5.0)
+                .severity(AlertSeverity.HIGH)
+                .overrides(List.of(AlertRule.ServiceOverride.builder()
+                        .serviceName(serviceName)
+                        .enabled(false)
+                        .build()))
+                .build();
+        givenRules(muted);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of());
+
+        assertThat(alertService.evaluateForService(serviceName)).isEmpty();
+        verifyNoInteractions(windowStatsProvider);
+    }
+
+    /**
+     * An OPEN alert of a rule muted for the service is resolved, without a stats lookup
+     */
+    @Test
+    void evaluateForService_resolvesAlertOfMutedRule() {
+        AlertRule muted = AlertRule.builder()
+                .id("error.rate.high")
+                .metric(AlertMetric.ERROR_COUNT)
+                .windowMinutes(5)
+                .operator(ThresholdOperator.GT)
+                .threshold(5.0)
+                .severity(AlertSeverity.HIGH)
+                .overrides(List.of(AlertRule.ServiceOverride.builder()
+                        .serviceName(serviceName)
+                        .enabled(false)
+                        .build()))
+                .build();
+        Alert open = Alert.builder()
+                .serviceName(serviceName)
+                .ruleId("error.rate.high")
+                .status(AlertStatus.OPEN)
+                .openedAt(Instant.now())
+                .build();
+        givenRules(muted);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of(open));
+        when(alertRepository.save(any(Alert.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThat(alertService.evaluateForService(serviceName)).isEmpty();
+
+        assertThat(open.getStatus()).isEqualTo(AlertStatus.RESOLVED);
+        assertThat(open.getNote()).contains("muted");
+        verifyNoInteractions(windowStatsProvider);
+    }
+
+    /**
+     * An OPEN alert whose rule was deleted or disabled is resolved
+     */
+    @Test
+    void evaluateForService_resolvesAlertOfMissingRule() {
+        Alert orphan = Alert.builder()
+                .serviceName(serviceName)
+                .ruleId("deleted.rule")
+                .status(AlertStatus.OPEN)
+                .openedAt(Instant.now())
+                .build();
+        givenRules(AlertRuleService.DEFAULT_RULE);
+        givenErrors(Duration.ofMinutes(5), 0, 10);
+        when(alertRepository.findByServiceNameAndStatus(serviceName, AlertStatus.OPEN)).thenReturn(List.of(orphan));
+        when(alertRepository.save(any(Alert.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        alertService.evaluateForService(serviceName);
+
+        assertThat(orphan.getStatus()).isEqualTo(AlertStatus.RESOLVED);
+        assertThat(orphan.getClosedAt()).isNotNull();
+        assertThat(orphan.getNote()).contains("disabled or removed");
+    }
+
     /**
      * getActiveAlerts → OPEN alerts only
      */
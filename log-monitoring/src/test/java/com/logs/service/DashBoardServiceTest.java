@@ -1,21 +1,28 @@
 package com.logs.service;
 
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.FilterAggregate;
+import com.logs.concurrent.FanOut;
 import com.logs.dto.DashboardSummary;
 import com.logs.enums.AlertStatus;
-import com.logs.enums.LogLevel;
+import com.logs.index.LogIndexManager;
 import com.logs.model.LogEvent;
 import com.logs.repository.AlertRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 
+import java.time.Duration;
 import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -29,12 +36,27 @@ class DashboardServiceTest {
     @Mock
     private AlertRepository alertRepository;
 
-    @InjectMocks
+    @Mock
+    private LogIndexManager logIndices;
+
+    @Mock
+    private SearchHits<LogEvent> hits;
+
     private DashboardService dashboardService;
 
     @BeforeEach
     void setup() {
-        // nothing required
+        dashboardService = new DashboardService(esOps, alertRepository, logIndices,
+                new FanOut(Executors.newFixedThreadPool(2), Duration.ofSeconds(5)), 60_000);
+    }
+
+    private void givenCounts(long today, long errors5m) {
+        ElasticsearchAggregations aggs = new ElasticsearchAggregations(Map.of(
+                "today", Aggregate.of(a -> a.filter(FilterAggregate.of(f -> f.docCount(today)))),
+                "errors_5m", Aggregate.of(a -> a.filter(FilterAggregate.of(f -> f.docCount(errors5m))))));
+        doReturn(aggs).when(hits).getAggregations();
+        when(logIndices.searchIndex(any(), any())).thenReturn(IndexCoordinates.of("logs-search"));
+        when(esOps.search(any(NativeQuery.class), eq(LogEvent.class), any(IndexCoordinates.class))).thenReturn(hits);
     }
 
     /**
@@ -46,12 +68,7 @@ class DashboardServiceTest {
     @Test
     void getSummary_success() {
         ZoneId zone = ZoneId.of("UTC");
-
-        // First countLogs call → totalLogsToday
-        // Second countLogs call → errorsLast5m
-        when(esOps.count(any(NativeQuery.class), eq(LogEvent.class)))
-                .thenReturn(1200L)  // totalLogsToday
-                .thenReturn(45L);   // errorsLast5m
+        givenCounts(1200L, 45L);
 
         when(alertRepository.countByStatus(AlertStatus.OPEN))
                 .thenReturn(3L);
@@ -63,12 +80,27 @@ class DashboardServiceTest {
         assertThat(summary.getErrorsLast5m()).isEqualTo(45L);
         assertThat(summary.getActiveAlerts()).isEqualTo(3L);
 
-        // Verify ES count called twice
-        verify(esOps, times(2))
-                .count(any(NativeQuery.class), eq(LogEvent.class));
+        // Both log counts come from a single ES search
+        verify(esOps, times(1))
+                .search(any(NativeQuery.class), eq(LogEvent.class), any(IndexCoordinates.class));
 
         // Verify alert count called once
         verify(alertRepository, times(1))
                 .countByStatus(AlertStatus.OPEN);
     }
+
+    /**
+     * Repeated calls within the TTL reuse the cached summary per zone
+     */
+    @Test
+    void getSummary_cachedPerZone() {
+        givenCounts(10L, 1L);
+        when(alertRepository.countByStatus(AlertStatus.OPEN)).thenReturn(0L);
+
+        dashboardService.getSummary(ZoneId.of("UTC"));
+        dashboardService.getSummary(ZoneId.of("UTC"));
+        dashboardService.getSummary(ZoneId.of("Asia/Kolkata"));
+
+        verify(esOps, times(2)).search(any(NativeQuery.class), eq(LogEvent.class), any(IndexCoordinates.class));
+    }
 }
@@ -0,0 +1,46 @@
+package com.logs.service;
+
+import com.logs.cache.QueryKeyGenerator;
+import com.logs.dto.SeverityCounts;
+import com.logs.dto.TimeRangeFilter;
+import com.logs.rollup.RollupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ErrorServiceTest {
+
+    @Mock
+    private QueryKeyGenerator queryKeys;
+
+    @Mock
+    private RollupService rollups;
+
+    @InjectMocks
+    private ErrorService errorService;
+
+    /**
+     * Each level's count lands in its own field
+     */
+    @Test
+    void severity_mapsEachLevelToItsField() {
+        TimeRangeFilter f = new TimeRangeFilter();
+        when(queryKeys.normalize(f)).thenReturn(f);
+        when(rollups.countBy(eq("level"), eq(f), anyInt())).thenReturn(Map.of("ERROR", 3L, "WARN", 5L, "INFO", 7L));
+
+        SeverityCounts counts = errorService.severity(f);
+
+        assertThat(counts.getError()).isEqualTo(3);
+        assertThat(counts.getWarn()).isEqualTo(5);
+        assertThat(counts.getInfo()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,152 @@
+package com.logs.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.logs.dto.LogSearchRequest;
+import com.logs.enums.Environment;
+import com.logs.enums.ExportFormat;
+import com.logs.enums.LogLevel;
+import com.logs.index.LogIndexManager;
+import com.logs.model.LogEvent;
+import com.logs.search.CursorPager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogExportServiceTest {
+
+    @Mock
+    private LogService logService;
+
+    @Mock
+    private CursorPager cursorPager;
+
+    @Mock
+    private LogIndexManager logIndices;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private LogExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        exportService = new LogExportService(logService, cursorPager, logIndices, objectMapper);
+        ReflectionTestUtils.setField(exportService, "pageSize", 2);
+        lenient().when(logService.searchQuery(any())).thenReturn(Query.of(q -> q.matchAll(m -> m)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CursorPager.Page<LogEvent> page(String nextCursor, LogEvent... events) {
+        SearchHits<LogEvent> hits = mock(SearchHits.class);
+        List<SearchHit<LogEvent>> list = Arrays.stream(events).map(e -> {
+            SearchHit<LogEvent> hit = mock(SearchHit.class);
+            when(hit.getContent()).thenReturn(e);
+            return hit;
+        }).toList();
+        when(hits.getSearchHits()).thenReturn(list);
+        return new CursorPager.Page<>(hits, nextCursor);
+    }
+
+    private void givenPages(String cursor, CursorPager.Page<LogEvent> first, CursorPager.Page<LogEvent> second) {
+        when(cursorPager.fetch(any(), eq(LogEvent.class), any(), any(), eq(2), eq(cursor))).thenReturn(first);
+        if (second != null) {
+            when(cursorPager.fetch(any(), eq(LogEvent.class), any(), any(), eq(2), eq(first.nextCursor()))).thenReturn(second);
+        }
+    }
+
+    /**
+     * Pages are followed until the last one, with a checkpoint after every page that has a successor
+     */
+    @Test
+    void export_ndjsonPagesThroughWithCheckpoints() throws Exception {
+        LogEvent a = event("1"), b = event("2"), c = event("3");
+        givenPages(null, page("c1", a, b), page(null, c));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.export(new LogSearchRequest(), ExportFormat.NDJSON, out);
+
+        assertThat(written).isEqualTo(3);
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                objectMapper.writeValueAsString(a),
+                objectMapper.writeValueAsString(b),
+                "{\"@cursor\":\"c1\"}",
+                objectMapper.writeValueAsString(c));
+    }
+
+    /**
+     * CSV from the start has the header and a comment checkpoint between pages
+     */
+    @Test
+    void export_csvWritesHeaderAndCheckpoint() throws Exception {
+        LogEvent a = event("1"), b = event("2"), c = event("3");
+        givenPages(null, page("c1", a, b), page(null, c));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(new LogSearchRequest(), ExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(LogExportService.CSV_HEADER
+                + LogExportService.csvLine(a) + LogExportService.csvLine(b)
+                + "# cursor=c1\n"
+                + LogExportService.csvLine(c));
+    }
+
+    /**
+     * Resuming from a checkpoint continues at that cursor and leaves out the CSV header
+     */
+    @Test
+    void export_resumesFromCursorWithoutHeader() throws Exception {
+        LogEvent c = event("3");
+        givenPages("c1", page(null, c), null);
+        LogSearchRequest req = new LogSearchRequest();
+        req.setCursor("c1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exportService.export(req, ExportFormat.CSV, out);
+
+        assertThat(written).isEqualTo(1);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(LogExportService.csvLine(c));
+        verify(cursorPager, times(1)).fetch(any(), eq(LogEvent.class), any(), any(), eq(2), any());
+    }
+
+    @Test
+    void csvLine_quotesOnlyWhenNeeded() {
+        LogEvent e = LogEvent.builder()
+                .id("1")
+                .timestamp(Instant.parse("2024-05-01T10:00:00Z"))
+                .serviceName("payments")
+                .env(Environment.DEV)
+                .level(LogLevel.ERROR)
+                .message("charge failed, card \"declined\"")
+                .stack("line1\nline2")
+                .build();
+
+        assertThat(LogExportService.csvLine(e)).isEqualTo(
+                "2024-05-01T10:00:00Z,payments,DEV,ERROR,,,,1,\"charge failed, card \"\"declined\"\"\",\"line1\nline2\"\n");
+    }
+
+    private static LogEvent event(String id) {
+        return LogEvent.builder()
+                .id(id)
+                .timestamp(Instant.parse("2024-05-01T10:00:00Z"))
+                .serviceName("payments")
+                .level(LogLevel.INFO)
+                .message("m" + id)
+                .build();
+    }
+}
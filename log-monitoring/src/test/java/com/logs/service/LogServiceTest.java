@@ -1,28 +1,39 @@
 package com.logs.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.logs.dto.BatchIngestResponse;
+import com.logs.dto.CursorPage;
 import com.logs.dto.LogRequest;
 import com.logs.dto.LogSearchRequest;
 import com.logs.enums.Environment;
 import com.logs.enums.LogLevel;
+import com.logs.exception.IngestRejectedException;
+import com.logs.index.LogIndexManager;
+import com.logs.ingest.IngestPipeline;
 import com.logs.model.LogEvent;
 import com.logs.repository.CacheRepository;
-import com.logs.repository.LogRepository;
+import com.logs.search.CursorPager;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -30,10 +41,7 @@ import static org.mockito.Mockito.*;
 class LogServiceTest {
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
-
-    @Mock
-    private LogRepository logRepository;
+    private IngestPipeline ingestPipeline;
 
     @Mock
     private CacheRepository cacheRepository;
@@ -41,65 +49,174 @@ class LogServiceTest {
     @Mock
     private ElasticsearchOperations esOps;
 
+    @Mock
+    private LogIndexManager logIndices;
+
+    @Mock
+    private CursorPager cursorPager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private LogService logService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(logService, "maxTimestampAgeDays", 30);
+        ReflectionTestUtils.setField(logService, "maxTimestampSkewSeconds", 300L);
+    }
+
+    // ---------- searchLogs() ----------
+
+    /**
+     * Plain page-number browsing (page 0, then page 1) is served with from+size and never opens a PIT
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchLogs_pageNumbersDoNotOpenPit() {
+        IndexCoordinates index = IndexCoordinates.of("logs-search");
+        when(logIndices.searchIndex(any(), any())).thenReturn(index);
+        when(esOps.search(any(Query.class), eq(LogEvent.class), eq(index))).thenReturn(mock(SearchHits.class));
+
+        LogSearchRequest first = new LogSearchRequest();
+        logService.searchLogs(first);
+        LogSearchRequest second = new LogSearchRequest();
+        second.setPage(1);
+        logService.searchLogs(second);
+
+        verify(esOps, times(2)).search(any(Query.class), eq(LogEvent.class), eq(index));
+        verifyNoInteractions(cursorPager);
+    }
+
+    /**
+     * An explicit scroll request goes through the cursor pager and hands back its cursor
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void searchLogs_scrollUsesCursorPager() {
+        IndexCoordinates index = IndexCoordinates.of("logs-search");
+        when(logIndices.searchIndex(any(), any())).thenReturn(index);
+        when(cursorPager.fetch(any(), eq(LogEvent.class), eq(index), any(), eq(20), isNull()))
+                .thenReturn(new CursorPager.Page<>(mock(SearchHits.class), "next"));
+
+        LogSearchRequest req = new LogSearchRequest();
+        req.setScroll(true);
+        Page<LogEvent> page = logService.searchLogs(req);
+
+        assertThat(((CursorPage<LogEvent>) page).getNextCursor()).isEqualTo("next");
+        verify(esOps, never()).search(any(Query.class), eq(LogEvent.class), any(IndexCoordinates.class));
+    }
+
     // ---------- processLog() ----------
 
     @Test
-    void processLog_sendsToKafka_savesToEs_andUpdatesCache() {
+    void processLog_submitsEventToPipeline() {
         LogRequest req = new LogRequest();
         req.setServiceName("order-service");
         req.setLevel(LogLevel.ERROR);
         req.setMessage("Something failed");
 
-        when(cacheRepository.getRecentLogs())
-                .thenReturn(List.of()); // start empty
-
         logService.processLog(req);
 
-        verify(kafkaTemplate, times(1))
-                .send(eq("log-events"), anyString());
+        verify(ingestPipeline, times(1)).submit(argThat(e ->
+                "order-service".equals(e.getServiceName())
+                        && e.getLevel() == LogLevel.ERROR
+                        && e.getTimestamp() != null));
+    }
 
-        verify(logRepository, times(1))
-                .save(any(LogEvent.class));
+    @Test
+    void processLog_propagatesBackpressure() {
+        LogRequest req = LogRequest.builder().serviceName("order-service").build();
+        doThrow(new IngestRejectedException("full")).when(ingestPipeline).submit(any(LogEvent.class));
 
-        verify(cacheRepository, times(1))
-                .saveRecentLogs(anyList());
+        assertThatThrownBy(() -> logService.processLog(req))
+                .isInstanceOf(IngestRejectedException.class);
     }
 
+    // ---------- processBatch() / processNdjson() ----------
+
     @Test
-    void processLog_trimsCacheWhenSizeExceedsLimit() {
-        LogRequest req = new LogRequest();
-        req.setServiceName("order-service");
-        req.setMessage("Test");
+    void processBatch_refusesTimestampsOutsideTheWindow() {
+        LogRequest future = LogRequest.builder().serviceName("a").timestamp(Instant.now().plusSeconds(3_600).toString()).build();
+        LogRequest ancient = LogRequest.builder().serviceName("b").timestamp("1999-01-01T00:00:00Z").build();
+        LogRequest ok = LogRequest.builder().serviceName("c").timestamp(Instant.now().minusSeconds(60).toString()).build();
 
-        List<LogEvent> existing =
-                new java.util.ArrayList<>(List.of(
-                        new LogEvent(), new LogEvent(), new LogEvent(),
-                        new LogEvent(), new LogEvent(), new LogEvent(),
-                        new LogEvent(), new LogEvent(), new LogEvent(),
-                        new LogEvent() // size = 10
-                ));
+        BatchIngestResponse res = logService.processBatch(List.of(future, ancient, ok));
 
-        when(cacheRepository.getRecentLogs())
-                .thenReturn(existing);
+        assertThat(res.getAccepted()).isEqualTo(1);
+        assertThat(res.getErrors()).extracting(e -> e.getIndex()).containsExactly(0, 1);
+        verify(ingestPipeline, times(1)).submit(argThat(e -> "c".equals(e.getServiceName())));
+    }
 
-        logService.processLog(req);
+    @Test
+    void processBatch_acceptsValidItems_andReportsInvalidOnes() {
+        LogRequest ok = LogRequest.builder().serviceName("order-service").message("ok").build();
+        LogRequest missingService = LogRequest.builder().message("no service").build();
 
-        verify(cacheRepository).saveRecentLogs(argThat(list -> list.size() == 10));
+        BatchIngestResponse res = logService.processBatch(List.of(ok, missingService));
+
+        assertThat(res.getReceived()).isEqualTo(2);
+        assertThat(res.getAccepted()).isEqualTo(1);
+        assertThat(res.getFailed()).isEqualTo(1);
+        assertThat(res.getErrors().get(0).getIndex()).isEqualTo(1);
+        verify(ingestPipeline, times(1)).submit(any(LogEvent.class));
+    }
+
+    @Test
+    void processBatch_reportsRejectedItems() {
+        LogRequest a = LogRequest.builder().serviceName("a").build();
+        LogRequest b = LogRequest.builder().serviceName("b").build();
+
+        doNothing()
+                .doThrow(new IngestRejectedException("Ingest queue for 'kafka' is full"))
+                .when(ingestPipeline).submit(any(LogEvent.class));
+
+        BatchIngestResponse res = logService.processBatch(List.of(a, b));
+
+        assertThat(res.getAccepted()).isEqualTo(1);
+        assertThat(res.getErrors()).hasSize(1);
+        assertThat(res.getErrors().get(0).getIndex()).isEqualTo(1);
+        assertThat(res.getErrors().get(0).getReason()).isEqualTo("Ingest queue for 'kafka' is full");
+    }
+
+    @Test
+    void processNdjson_skipsBlankLines_andReportsPhysicalLineOfMalformedLines() {
+        String body = """
+                {"serviceName":"order-service","level":"ERROR","message":"boom"}
+
+                {not json}
+                {"serviceName":"payment-service","message":"ok"}
+                """;
+
+        BatchIngestResponse res = logService.processNdjson(body);
+
+        assertThat(res.getReceived()).isEqualTo(3);
+        assertThat(res.getAccepted()).isEqualTo(2);
+        assertThat(res.getErrors()).hasSize(1);
+        assertThat(res.getErrors().get(0).getIndex()).isEqualTo(2); // physical line, the blank one counts
     }
 
     // ---------- getRecentLogs() ----------
 
     @Test
     void getRecentLogs_returnsCache() {
-        when(cacheRepository.getRecentLogs())
+        when(cacheRepository.getRecentLogs(null, null))
                 .thenReturn(List.of(new LogEvent()));
 
-        List<LogEvent> logs = logService.getRecentLogs();
+        List<LogEvent> logs = logService.getRecentLogs(null, null);
 
         assertThat(logs).hasSize(1);
     }
 
+    @Test
+    void getRecentLogs_passesFiltersToCache() {
+        when(cacheRepository.getRecentLogs("order-service", LogLevel.ERROR))
+                .thenReturn(List.of(new LogEvent(), new LogEvent()));
+
+        List<LogEvent> logs = logService.getRecentLogs("order-service", LogLevel.ERROR);
+
+        assertThat(logs).hasSize(2);
+    }
+
 }
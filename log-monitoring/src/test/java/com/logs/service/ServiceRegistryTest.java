@@ -0,0 +1,111 @@
+package com.logs.service;
+
+import com.logs.model.LogEvent;
+import com.logs.index.LogIndexManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceRegistryTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, Object> zSetOps;
+
+    @Mock
+    private ElasticsearchOperations esOps;
+
+    @Mock
+    private LogIndexManager logIndices;
+
+    private ServiceRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new ServiceRegistry(redisTemplate, esOps, logIndices, 60, 7);
+    }
+
+    /**
+     * Many logs for the same service become a single ZADD member per flush
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesEachServiceOnce() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        for (int i = 0; i < 100; i++) {
+            registry.record(LogEvent.builder().serviceName(i % 2 == 0 ? "api" : "billing").build());
+        }
+        registry.record(LogEvent.builder().serviceName(" ").build());
+
+        registry.flush();
+        registry.flush();
+
+        ArgumentCaptor<Set<TypedTuple<Object>>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(zSetOps, times(1)).add(eq(ServiceRegistry.SERVICES_KEY), captor.capture());
+        assertThat(captor.getValue()).extracting(TypedTuple::getValue).containsExactlyInAnyOrder("api", "billing");
+    }
+
+    /**
+     * Active services are read from the sorted set by last-seen score
+     */
+    @Test
+    void activeServices_readsFromRedis() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        when(zSetOps.rangeByScore(eq(ServiceRegistry.SERVICES_KEY), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(new LinkedHashSet<>(Set.of("api", "billing")));
+
+        assertThat(registry.activeServices()).containsExactly("api", "billing");
+        verifyNoInteractions(esOps);
+    }
+
+    /**
+     * Known services reach back over the whole retention, not just the active horizon
+     */
+    @Test
+    void knownServices_readsTheWholeRetention() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        ArgumentCaptor<Double> since = ArgumentCaptor.forClass(Double.class);
+        when(zSetOps.rangeByScore(eq(ServiceRegistry.SERVICES_KEY), since.capture(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(new LinkedHashSet<>(Set.of("api", "silent")));
+
+        assertThat(registry.knownServices()).containsExactly("api", "silent");
+        assertThat(since.getValue()).isLessThan(Instant.now().minus(Duration.ofDays(1)).toEpochMilli());
+    }
+
+    /**
+     * A failed flush keeps the services for the next attempt
+     */
+    @Test
+    void flush_retriesAfterRedisFailure() {
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        when(zSetOps.add(eq(ServiceRegistry.SERVICES_KEY), anySet()))
+                .thenThrow(new RedisConnectionFailureException("down"))
+                .thenReturn(1L);
+        registry.record(LogEvent.builder().serviceName("api").build());
+
+        registry.flush();
+        registry.flush();
+
+        verify(zSetOps, times(2)).add(eq(ServiceRegistry.SERVICES_KEY), anySet());
+    }
+}
@@ -0,0 +1,80 @@
+package com.logs.stream;
+
+import com.logs.enums.LogLevel;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveTailBufferTest {
+
+    /**
+     * Capacity is rounded up to a power of two
+     */
+    @Test
+    void capacity_roundedToPowerOfTwo() {
+        assertThat(new LiveTailBuffer(1000).capacity()).isEqualTo(1024);
+        assertThat(new LiveTailBuffer(1024).capacity()).isEqualTo(1024);
+    }
+
+    /**
+     * Only the newest {@code capacity} logs are kept, returned oldest first
+     */
+    @Test
+    void snapshot_returnsNewestInOrder() {
+        LiveTailBuffer buffer = new LiveTailBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.publish(LogEvent.builder().id(String.valueOf(i)).build());
+        }
+
+        List<LogEvent> snapshot = buffer.snapshot(e -> true, 10);
+
+        assertThat(snapshot).extracting(LogEvent::getId).containsExactly("2", "3", "4", "5");
+    }
+
+    /**
+     * Filters and limits apply to the newest matching logs
+     */
+    @Test
+    void snapshot_appliesFilterAndLimit() {
+        LiveTailBuffer buffer = new LiveTailBuffer(16);
+        for (int i = 0; i < 10; i++) {
+            buffer.publish(LogEvent.builder()
+                    .id(String.valueOf(i))
+                    .level(i % 2 == 0 ? LogLevel.ERROR : LogLevel.INFO)
+                    .build());
+        }
+
+        List<LogEvent> errors = buffer.snapshot(e -> e.getLevel() == LogLevel.ERROR, 2);
+
+        assertThat(errors).extracting(LogEvent::getId).containsExactly("6", "8");
+    }
+
+    /**
+     * A slow subscriber drops its oldest queued logs instead of growing without bound
+     */
+    @Test
+    void subscription_dropsOldestWhenFull() {
+        LiveTailSubscription sub = new LiveTailSubscription(null, null, null, 2, null);
+        sub.offer(LogEvent.builder().id("1").build());
+        sub.offer(LogEvent.builder().id("2").build());
+        sub.offer(LogEvent.builder().id("3").build());
+
+        assertThat(sub.drain(10)).extracting(LogEvent::getId).containsExactly("2", "3");
+        assertThat(sub.takeDropped()).isEqualTo(1);
+    }
+
+    /**
+     * Subscription filters on service, level and trace id
+     */
+    @Test
+    void subscription_matchesFilters() {
+        LiveTailSubscription sub = new LiveTailSubscription("order-service", LogLevel.ERROR, "", 2, null);
+
+        assertThat(sub.test(LogEvent.builder().serviceName("order-service").level(LogLevel.ERROR).build())).isTrue();
+        assertThat(sub.test(LogEvent.builder().serviceName("order-service").level(LogLevel.WARN).build())).isFalse();
+        assertThat(sub.test(LogEvent.builder().serviceName("billing").level(LogLevel.ERROR).build())).isFalse();
+    }
+}
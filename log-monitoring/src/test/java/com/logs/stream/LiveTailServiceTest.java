@@ -0,0 +1,85 @@
+package com.logs.stream;
+
+import com.logs.exception.SubscriberLimitException;
+import com.logs.model.LogEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LiveTailServiceTest {
+
+    private LiveTailService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    /**
+     * Concurrent subscribers never exceed the limit
+     */
+    @Test
+    void subscribe_limitHoldsUnderConcurrency() throws Exception {
+        service = new LiveTailService(16, 10, 5, 1, 60_000, 60_000);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            for (int i = 0; i < 50; i++) {
+                pool.execute(() -> {
+                    try {
+                        go.await();
+                        service.subscribe(null, null, null, 0);
+                        accepted.incrementAndGet();
+                    } catch (SubscriberLimitException e) {
+                        refused.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            go.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(accepted.get()).isEqualTo(5);
+        assertThat(refused.get()).isEqualTo(45);
+        assertThat(service.subscriberCount()).isEqualTo(5);
+        assertThatThrownBy(() -> service.subscribe(null, null, null, 0)).isInstanceOf(SubscriberLimitException.class);
+    }
+
+    /**
+     * The backfill is sent first, and a log that also arrived live while it was read is sent once
+     */
+    @Test
+    void subscription_sendsBackfillFirstWithoutDuplicates() {
+        LiveTailSubscription sub = new LiveTailSubscription(null, null, null, 10, new SseEmitter());
+        LogEvent old = event("old");
+        LogEvent racing = event("racing");
+        LogEvent fresh = event("fresh");
+
+        sub.offer(racing);                    // published after registration, also in the buffer
+        sub.backfill(List.of(old, racing));
+        sub.offer(fresh);
+
+        assertThat(sub.drain(10)).containsExactly(old, racing, fresh);
+    }
+
+    private static LogEvent event(String id) {
+        return LogEvent.builder().id(id).serviceName("api").build();
+    }
+}